@@ -42,6 +42,15 @@ CREATE TABLE IF NOT EXISTS books (
     content_relevance VARCHAR(50) NOT NULL DEFAULT 'Relevan' COMMENT 'Relevansi Isi Buku',
     loan_duration INT NOT NULL DEFAULT 7 COMMENT 'Durasi Peminjaman (hari)',
     
+    -- Stored SPK levels (C1-C5) and final score under the current criteria weights,
+    -- maintained by the application (SPKScoreStore); NULL until first computed
+    level_c1 TINYINT NULL,
+    level_c2 TINYINT NULL,
+    level_c3 TINYINT NULL,
+    level_c4 TINYINT NULL,
+    level_c5 TINYINT NULL,
+    spk_score DOUBLE NULL,
+    
     -- Constraints
     CHECK (year >= 1900 AND year <= 2024),
     CHECK (pages > 0 AND pages <= 5000),
@@ -116,6 +125,21 @@ CREATE INDEX idx_books_borrower_count ON books(borrower_count DESC);
 CREATE INDEX idx_books_book_condition ON books(book_condition);
 CREATE INDEX idx_books_content_relevance ON books(content_relevance);
 CREATE INDEX idx_books_loan_duration ON books(loan_duration);
+CREATE INDEX idx_books_created_at ON books(created_at DESC, id DESC);
+CREATE INDEX idx_books_rating_id ON books(rating DESC, id DESC);
+CREATE INDEX idx_books_category_rating ON books(category, rating DESC, id DESC);
+CREATE INDEX idx_books_category_created ON books(category, created_at DESC, id DESC);
+-- SPK top N by stored score, ties in catalog order
+CREATE INDEX idx_books_spk_score ON books(spk_score DESC, created_at DESC, id DESC);
+
+-- A database created before the stored SPK columns existed is upgraded by the
+-- application on startup (SPKScoreStore adds the columns and this index).
+
+-- Fingerprint of the criteria plan the stored spk_score values were computed with
+CREATE TABLE IF NOT EXISTS spk_score_state (
+    id TINYINT PRIMARY KEY,
+    plan_fingerprint VARCHAR(512) NOT NULL
+);
 
 -- Tabel untuk kriteria SPK
 CREATE TABLE IF NOT EXISTS criteria (
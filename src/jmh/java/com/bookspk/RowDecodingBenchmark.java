@@ -0,0 +1,139 @@
+package com.bookspk;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.reflect.Proxy;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decoding a LIST_VIEW scan into Book objects: BookRowMapper (positions
+ * resolved once per result set) against the old per-row lookup by column name.
+ * The result set is an in-memory stand-in that resolves labels the way
+ * Connector/J does (case-insensitive map), so the difference is the name
+ * lookups themselves; run with -Djmh.args="RowDecodingBenchmark".
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms1g", "-Xmx2g"})
+public class RowDecodingBenchmark {
+
+    @Param({"100000"})
+    public int rows;
+
+    private String[] labels;
+    private Object[][] data;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        BookProjection.Column[] columns = {
+            BookProjection.Column.ID, BookProjection.Column.TITLE, BookProjection.Column.AUTHOR,
+            BookProjection.Column.CATEGORY, BookProjection.Column.PUBLISHER, BookProjection.Column.YEAR,
+            BookProjection.Column.PAGES, BookProjection.Column.RATING, BookProjection.Column.PRICE,
+            BookProjection.Column.ISBN, BookProjection.Column.CREATED_AT, BookProjection.Column.BORROWER_COUNT,
+            BookProjection.Column.BOOK_CONDITION, BookProjection.Column.CONTENT_RELEVANCE,
+            BookProjection.Column.LOAN_DURATION
+        };
+        labels = new String[columns.length];
+        for (int i = 0; i < columns.length; i++) {
+            labels[i] = columns[i].getName();
+        }
+        List<Book> books = SyntheticCatalog.generate(rows, 42L);
+        data = new Object[books.size()][];
+        for (int r = 0; r < data.length; r++) {
+            Book b = books.get(r);
+            data[r] = new Object[] {
+                b.getId(), "Judul " + r, "Penulis " + r, "Kategori", "Penerbit", 2020, 250, 4.5, 95000.0,
+                "978-" + r, new Timestamp(1700000000000L + r), b.getBorrowerCount(), b.getBookCondition(),
+                b.getContentRelevance(), b.getLoanDuration()
+            };
+        }
+    }
+
+    @Benchmark
+    public List<Book> rowMapper() throws SQLException {
+        ResultSet rs = resultSet();
+        return new BookRowMapper(rs).mapAll(rs);
+    }
+
+    @Benchmark
+    public List<Book> byColumnName() throws SQLException {
+        ResultSet rs = resultSet();
+        List<Book> books = new ArrayList<>();
+        while (rs.next()) {
+            Book book = new Book();
+            book.setId(rs.getInt("id"));
+            book.setTitle(rs.getString("title"));
+            book.setAuthor(rs.getString("author"));
+            book.setCategory(rs.getString("category"));
+            book.setPublisher(rs.getString("publisher"));
+            book.setYear(rs.getInt("year"));
+            book.setPages(rs.getInt("pages"));
+            book.setRating(rs.getDouble("rating"));
+            book.setPrice(rs.getDouble("price"));
+            book.setIsbn(rs.getString("isbn"));
+            book.setCreatedAt(rs.getTimestamp("created_at"));
+            book.setBorrowerCount(rs.getInt("borrower_count"));
+            book.setBookCondition(rs.getString("book_condition"));
+            book.setContentRelevance(rs.getString("content_relevance"));
+            book.setLoanDuration(rs.getInt("loan_duration"));
+            books.add(book);
+        }
+        return books;
+    }
+
+    // Forward-only result set over data, answering only the calls the decoders make
+    private ResultSet resultSet() {
+        Map<String, Integer> labelIndex = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        for (int i = 0; i < labels.length; i++) {
+            labelIndex.put(labels[i], i + 1);
+        }
+        ResultSetMetaData meta = (ResultSetMetaData) Proxy.newProxyInstance(
+                getClass().getClassLoader(), new Class<?>[] {ResultSetMetaData.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "getColumnCount": return labels.length;
+                        case "getColumnLabel": return labels[(Integer) args[0] - 1];
+                        default: throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+        int[] row = {-1};
+        return (ResultSet) Proxy.newProxyInstance(
+                getClass().getClassLoader(), new Class<?>[] {ResultSet.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "next": return ++row[0] < data.length;
+                        case "getMetaData": return meta;
+                        case "findColumn": return labelIndex.get((String) args[0]);
+                        case "getInt":
+                        case "getString":
+                        case "getDouble":
+                        case "getTimestamp":
+                            int column = args[0] instanceof String
+                                    ? labelIndex.get((String) args[0])
+                                    : (Integer) args[0];
+                            return data[row[0]][column - 1];
+                        default: throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+    }
+}
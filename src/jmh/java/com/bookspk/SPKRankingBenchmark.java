@@ -0,0 +1,127 @@
+package com.bookspk;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for the SPK ranking paths over synthetic catalogs.
+ * Throughput and sampled latency (p99) are reported for every path;
+ * run through SPKBenchmarkRunner to get the gc profiler's allocation rate as well.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx4g"})
+public class SPKRankingBenchmark {
+    // Rows a matrix table shows at once
+    private static final int VISIBLE_ROWS = 25;
+
+    @Param({"1000", "100000", "1000000"})
+    public int catalogSize;
+
+    @Param({"10"})
+    public int topK;
+
+    private List<Book> books;
+    private BookDAO bookDAO;
+    private NewSPKCalculator calculator;
+    private List<NewSPKCalculator.SPKResult> fullResults;
+    private final double[] sliderWeights = {0.5, 0.6, 0.6, 0.6};
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        books = SyntheticCatalog.generate(catalogSize, 42L);
+        bookDAO = new BookDAO();
+        // Fixed plan so the benchmark never reaches for the criteria table
+        calculator = new NewSPKCalculator(SPKCriteriaPlan.defaults());
+        fullResults = calculator.calculateSPK(books);
+    }
+
+    // BookDAO.getTopBooksSPK path (SPKFrame)
+
+    @Benchmark
+    public Object bookDaoTopK() {
+        return bookDAO.getTopBooksSPK(books, topK, sliderWeights);
+    }
+
+    @Benchmark
+    public Object bookDaoFullRank() {
+        return bookDAO.getRankedBooksSPK(books, sliderWeights);
+    }
+
+    // NewSPKCalculator path (NewSPKFrame)
+
+    @Benchmark
+    public Object calculatorFullRank() {
+        return calculator.calculateSPK(books);
+    }
+
+    @Benchmark
+    public Object calculatorTopK() {
+        return calculator.calculateTopSPK(books, topK);
+    }
+
+    @Benchmark
+    public Object calculatorParallelFullRank() {
+        return calculator.calculateSPKParallel(books);
+    }
+
+    @Benchmark
+    public Object calculatorParallelTopK() {
+        return calculator.calculateTopSPKParallel(books, topK);
+    }
+
+    @Benchmark
+    public void spkMatrix(Blackhole bh) {
+        // Build the view and format one screen of each matrix, as a refresh of NewSPKFrame does
+        SPKMatrixView view = calculator.getMatrixView(fullResults);
+        int rows = Math.min(VISIBLE_ROWS, view.getRowCount());
+        for (SPKMatrixView.Matrix matrix : SPKMatrixView.Matrix.values()) {
+            for (int row = 0; row < rows; row++) {
+                for (int column = 0; column < view.getColumnCount(matrix); column++) {
+                    bh.consume(view.getValueAt(matrix, row, column));
+                }
+            }
+        }
+    }
+
+    // SPKDataConverter conversions over the whole catalog
+
+    @Benchmark
+    public void convertersFromStrings(Blackhole bh) {
+        for (Book book : books) {
+            bh.consume(SPKDataConverter.convertBorrowCountToWeight(book.getBorrowerCount()));
+            bh.consume(SPKDataConverter.convertCategoryAndRatingToWeight(book.getCategory(), book.getRating()));
+            bh.consume(SPKDataConverter.convertPhysicalConditionToWeight(book.getBookCondition()));
+            bh.consume(SPKDataConverter.convertContentRelevanceToWeight(book.getContentRelevance()));
+            bh.consume(SPKDataConverter.convertBorrowDurationToWeight(book.getLoanDuration()));
+        }
+    }
+
+    @Benchmark
+    public void convertersFromCodes(Blackhole bh) {
+        for (Book book : books) {
+            bh.consume(SPKDataConverter.convertBorrowCountToWeight(book.getBorrowerCount()));
+            bh.consume(SPKDataConverter.convertCategoryAndRatingToWeight(book.getCategoryCode(), book.getRating()));
+            bh.consume(SPKDataConverter.convertPhysicalConditionToWeight(book.getConditionCode()));
+            bh.consume(SPKDataConverter.convertContentRelevanceToWeight(book.getRelevanceCode()));
+            bh.consume(SPKDataConverter.convertBorrowDurationToWeight(book.getLoanDuration()));
+        }
+    }
+}
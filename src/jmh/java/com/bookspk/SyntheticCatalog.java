@@ -0,0 +1,77 @@
+package com.bookspk;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Generates book catalogs for benchmarks without touching the database.
+ * Value distributions follow the sample data: most books are borrowed often,
+ * in good condition, relevant, and lent out for about a week.
+ */
+public final class SyntheticCatalog {
+    private static final String[] CATEGORIES = {
+        "Fiksi", "Non-Fiksi", "Komik & Manga", "Pendidikan", "Ensiklopedia",
+        "Novel", "Teknologi", "Bisnis", "Pengembangan Diri", "Sejarah"
+    };
+    private static final int[] CATEGORY_WEIGHTS = {20, 18, 10, 10, 6, 14, 8, 6, 5, 3};
+
+    private static final String[] CONDITIONS = {"Rusak Berat", "Rusak Ringan", "Sedikit Baik", "Baik", "Sangat Baik"};
+    private static final int[] CONDITION_WEIGHTS = {2, 5, 13, 35, 45};
+
+    private static final String[] RELEVANCES = {"Tidak Relevan", "Kurang Relevan", "Cukup Relevan", "Relevan", "Sangat Relevan"};
+    private static final int[] RELEVANCE_WEIGHTS = {3, 7, 15, 40, 35};
+
+    private SyntheticCatalog() {}
+
+    /**
+     * @param size number of books
+     * @param seed random seed, so runs are comparable
+     * @return generated books
+     */
+    public static List<Book> generate(int size, long seed) {
+        Random random = new Random(seed);
+        List<Book> books = new ArrayList<>(size);
+        Timestamp created = new Timestamp(1_700_000_000_000L);
+        for (int i = 0; i < size; i++) {
+            double rating = clamp(Math.round((4.3 + random.nextGaussian() * 0.5) * 10) / 10.0, 1.0, 5.0);
+            int borrowerCount = (int) clamp(Math.round(75 + random.nextGaussian() * 18), 0, 120);
+            int loanDuration = (int) clamp(Math.round(7 + random.nextGaussian() * 3.5), 1, 30);
+            books.add(new Book(
+                i + 1,
+                "Judul Buku " + i,
+                "Penulis " + (i % 5000),
+                pick(random, CATEGORIES, CATEGORY_WEIGHTS),
+                "Penerbit " + (i % 300),
+                1950 + random.nextInt(75),
+                80 + random.nextInt(900),
+                rating,
+                20000 + random.nextInt(280) * 1000,
+                String.format("978-%010d", i),
+                "Deskripsi singkat buku nomor " + i + ".",
+                created,
+                borrowerCount,
+                pick(random, CONDITIONS, CONDITION_WEIGHTS),
+                pick(random, RELEVANCES, RELEVANCE_WEIGHTS),
+                loanDuration
+            ));
+        }
+        return books;
+    }
+
+    private static String pick(Random random, String[] values, int[] weights) {
+        int total = 0;
+        for (int weight : weights) total += weight;
+        int roll = random.nextInt(total);
+        for (int i = 0; i < values.length; i++) {
+            roll -= weights[i];
+            if (roll < 0) return values[i];
+        }
+        return values[values.length - 1];
+    }
+
+    private static double clamp(double value, double min, double max) {
+        return Math.max(min, Math.min(max, value));
+    }
+}
@@ -0,0 +1,263 @@
+package com.bookspk;
+
+import javax.swing.SwingUtilities;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Runs database and SPK work on a small shared thread pool so the Swing event
+ * dispatch thread never waits on JDBC or scoring. Results, errors and progress
+ * are handed back on the EDT.
+ * <p>
+ * Work that a newer request makes obsolete (reloading a table, recalculating
+ * after the weights change) goes through a {@link Lane}: submitting to a lane
+ * cancels the task it is still running, and the result of a cancelled task is
+ * never delivered. Progress updates are coalesced, so a busy task queues at most
+ * one progress event on the EDT at a time.
+ * <p>
+ * Running tasks are not interrupted, since interrupting a thread inside a JDBC
+ * call can leave the connection unusable. Long tasks should instead check
+ * {@link Progress#isCancelled()} between steps.
+ */
+public final class BackgroundTasks {
+    // Kept below the connection pool size so background reads never starve the pool
+    private static final int THREADS = Integer.getInteger("bookspk.tasks.threads",
+            Math.max(2, Math.min(4, Runtime.getRuntime().availableProcessors())));
+    private static final int QUEUE_CAPACITY = Integer.getInteger("bookspk.tasks.queueCapacity", 256);
+
+    private static final BackgroundTasks INSTANCE = new BackgroundTasks();
+
+    /**
+     * Work to run off the EDT
+     * @param <T> result type
+     */
+    public interface Task<T> {
+        T run(Progress progress) throws Exception;
+    }
+
+    /**
+     * Passed to a running task to report progress and check for cancellation
+     */
+    public interface Progress {
+        /**
+         * @param percent completion from 0 to 100
+         * @param message short status text, may be null
+         */
+        void update(int percent, String message);
+
+        /**
+         * @return true if the task was cancelled or superseded and its result will be dropped
+         */
+        boolean isCancelled();
+    }
+
+    /**
+     * Receives the outcome of a task on the EDT. Not called for cancelled tasks.
+     * @param <T> result type
+     */
+    public interface Callback<T> {
+        void done(T result);
+
+        default void failed(Exception e) {
+            System.err.println("Background task failed: " + e.getMessage());
+        }
+
+        default void progress(int percent, String message) {
+        }
+    }
+
+    /**
+     * A submitted task
+     */
+    public static final class Handle implements Progress {
+        private final Callback<?> callback;
+        private final AtomicReference<Object[]> pendingProgress = new AtomicReference<>();
+        private volatile boolean cancelled;
+        private volatile boolean done;
+        private volatile Future<?> future;
+
+        private Handle(Callback<?> callback) {
+            this.callback = callback;
+        }
+
+        /**
+         * Cancel the task. A queued task never starts; a running task finishes
+         * but its result is dropped.
+         */
+        public void cancel() {
+            cancelled = true;
+            Future<?> f = future;
+            if (f != null) {
+                f.cancel(false);
+            }
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return cancelled;
+        }
+
+        /**
+         * @return true once the outcome has been handled on the EDT, or the task was cancelled
+         */
+        public boolean isDone() {
+            return done || cancelled;
+        }
+
+        @Override
+        public void update(int percent, String message) {
+            if (cancelled) {
+                return;
+            }
+            // Only the first update since the last delivery schedules an EDT event
+            if (pendingProgress.getAndSet(new Object[]{percent, message}) == null) {
+                SwingUtilities.invokeLater(this::deliverProgress);
+            }
+        }
+
+        private void deliverProgress() {
+            Object[] latest = pendingProgress.getAndSet(null);
+            if (latest != null && !cancelled && !done) {
+                callback.progress((Integer) latest[0], (String) latest[1]);
+            }
+        }
+    }
+
+    /**
+     * Runs one task at a time for a single purpose; a new submission supersedes
+     * the previous one
+     */
+    public static final class Lane {
+        private Handle current;
+
+        /**
+         * Cancel the task still running in this lane and start a new one
+         * @param task work to run
+         * @param callback outcome handler, called on the EDT
+         * @return handle of the new task
+         */
+        public synchronized <T> Handle submit(Task<T> task, Callback<T> callback) {
+            if (current != null) {
+                current.cancel();
+            }
+            current = INSTANCE.submit(task, callback);
+            return current;
+        }
+
+        /**
+         * Cancel the task still running in this lane, if any
+         */
+        public synchronized void cancel() {
+            if (current != null) {
+                current.cancel();
+                current = null;
+            }
+        }
+
+        /**
+         * @return true if the last submitted task has not finished yet
+         */
+        public synchronized boolean isBusy() {
+            return current != null && !current.isDone();
+        }
+    }
+
+    private final ThreadPoolExecutor executor;
+
+    private BackgroundTasks() {
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(THREADS, THREADS, 30L, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(QUEUE_CAPACITY), r -> {
+                    Thread t = new Thread(r, "bookspk-task-" + threadNumber.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                });
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * @return the shared instance
+     */
+    public static BackgroundTasks getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * @return a new lane for work that supersedes itself
+     */
+    public static Lane newLane() {
+        return new Lane();
+    }
+
+    /**
+     * Run a task in the background
+     * @param task work to run
+     * @param callback outcome handler, called on the EDT
+     * @return handle to cancel the task
+     */
+    public <T> Handle submit(Task<T> task, Callback<T> callback) {
+        Handle handle = new Handle(callback);
+        try {
+            handle.future = executor.submit(() -> run(task, callback, handle));
+        } catch (RejectedExecutionException e) {
+            System.err.println("Background task rejected: queue is full (" + QUEUE_CAPACITY + ")");
+            SwingUtilities.invokeLater(() -> finish(handle, callback, null, e));
+        }
+        return handle;
+    }
+
+    /**
+     * @return number of tasks waiting for a thread
+     */
+    public int getQueuedCount() {
+        return executor.getQueue().size();
+    }
+
+    /**
+     * @return number of tasks currently running
+     */
+    public int getActiveCount() {
+        return executor.getActiveCount();
+    }
+
+    private static <T> void run(Task<T> task, Callback<T> callback, Handle handle) {
+        if (handle.cancelled) {
+            return;
+        }
+        T result = null;
+        Exception error = null;
+        try {
+            result = task.run(handle);
+        } catch (Exception e) {
+            error = e;
+        }
+        T finalResult = result;
+        Exception finalError = error;
+        SwingUtilities.invokeLater(() -> finish(handle, callback, finalResult, finalError));
+    }
+
+    private static <T> void finish(Handle handle, Callback<T> callback, T result, Exception error) {
+        handle.done = true;
+        handle.pendingProgress.set(null);
+        if (handle.cancelled) {
+            return;
+        }
+        if (error != null) {
+            callback.failed(error);
+        } else {
+            callback.done(result);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "BackgroundTasks{threads=" + THREADS
+                + ", active=" + getActiveCount()
+                + ", queued=" + getQueuedCount() + '}';
+    }
+}
@@ -25,6 +25,11 @@ public class Book {
     private String contentRelevance; // Relevansi Isi Buku
     private int loanDuration;       // Durasi Peminjaman (dalam hari)
     
+    // Criteria codes resolved once from the strings above, used by the SPK converters
+    private SPKDataConverter.CategoryCode categoryCode = SPKDataConverter.CategoryCode.OTHER;
+    private SPKDataConverter.ConditionCode conditionCode = SPKDataConverter.ConditionCode.UNKNOWN;
+    private SPKDataConverter.RelevanceCode relevanceCode = SPKDataConverter.RelevanceCode.UNKNOWN;
+    
     public Book() {}
     
     public Book(String title, String author, String category, String publisher, 
@@ -32,6 +37,7 @@ public class Book {
         this.title = title;
         this.author = author;
         this.category = category;
+        this.categoryCode = SPKDataConverter.CategoryCode.of(category);
         this.publisher = publisher;
         this.year = year;
         this.pages = pages;
@@ -48,6 +54,7 @@ public class Book {
         this.title = title;
         this.author = author;
         this.category = category;
+        this.categoryCode = SPKDataConverter.CategoryCode.of(category);
         this.publisher = publisher;
         this.year = year;
         this.pages = pages;
@@ -67,6 +74,7 @@ public class Book {
         this.title = title;
         this.author = author;
         this.category = category;
+        this.categoryCode = SPKDataConverter.CategoryCode.of(category);
         this.publisher = publisher;
         this.year = year;
         this.pages = pages;
@@ -79,6 +87,8 @@ public class Book {
         this.bookCondition = bookCondition;
         this.contentRelevance = contentRelevance;
         this.loanDuration = loanDuration;
+        this.conditionCode = SPKDataConverter.ConditionCode.of(bookCondition);
+        this.relevanceCode = SPKDataConverter.RelevanceCode.of(contentRelevance);
     }
     
     // Getters and Setters
@@ -92,7 +102,10 @@ public class Book {
     public void setAuthor(String author) { this.author = author; }
     
     public String getCategory() { return category; }
-    public void setCategory(String category) { this.category = category; }
+    public void setCategory(String category) {
+        this.category = category;
+        this.categoryCode = SPKDataConverter.CategoryCode.of(category);
+    }
     
     public String getPublisher() { return publisher; }
     public void setPublisher(String publisher) { this.publisher = publisher; }
@@ -123,14 +136,24 @@ public class Book {
     public void setBorrowerCount(int borrowerCount) { this.borrowerCount = borrowerCount; }
     
     public String getBookCondition() { return bookCondition; }
-    public void setBookCondition(String bookCondition) { this.bookCondition = bookCondition; }
+    public void setBookCondition(String bookCondition) {
+        this.bookCondition = bookCondition;
+        this.conditionCode = SPKDataConverter.ConditionCode.of(bookCondition);
+    }
     
     public String getContentRelevance() { return contentRelevance; }
-    public void setContentRelevance(String contentRelevance) { this.contentRelevance = contentRelevance; }
+    public void setContentRelevance(String contentRelevance) {
+        this.contentRelevance = contentRelevance;
+        this.relevanceCode = SPKDataConverter.RelevanceCode.of(contentRelevance);
+    }
     
     public int getLoanDuration() { return loanDuration; }
     public void setLoanDuration(int loanDuration) { this.loanDuration = loanDuration; }
     
+    public SPKDataConverter.CategoryCode getCategoryCode() { return categoryCode; }
+    public SPKDataConverter.ConditionCode getConditionCode() { return conditionCode; }
+    public SPKDataConverter.RelevanceCode getRelevanceCode() { return relevanceCode; }
+    
     @Override
     public String toString() {
         return "Book{" +
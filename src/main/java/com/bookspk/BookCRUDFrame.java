@@ -2,7 +2,6 @@ package com.bookspk;
 
 import javax.swing.*;
 import javax.swing.border.EmptyBorder;
-import javax.swing.table.DefaultTableModel;
 import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
@@ -17,13 +16,13 @@ import java.util.List;
 public class BookCRUDFrame extends JFrame {
     private BookDAO bookDAO;
     private JTable bookTable;
-    private DefaultTableModel tableModel;
+    private BookTableModel tableModel;
     private JTextField titleField, authorField, publisherField, isbnField;
     private JTextField yearField, pagesField, ratingField, priceField;
     private JTextField borrowerCountField, loanDurationField;
     private JComboBox<String> categoryComboBox, bookConditionComboBox, contentRelevanceComboBox;
     private JTextArea descriptionArea;
-    private JButton addButton, updateButton, deleteButton, clearButton, refreshButton;
+    private JButton addButton, updateButton, deleteButton, clearButton, refreshButton, importButton;
     private JLabel statusLabel;
     private int selectedBookId = -1;
     
@@ -33,6 +32,9 @@ public class BookCRUDFrame extends JFrame {
     private JPanel formPanel;
     private boolean detailsVisible = true;
     
+    // Selecting another row supersedes the lookup still running
+    private final BackgroundTasks.Lane detailLane = BackgroundTasks.newLane();
+    
     public BookCRUDFrame() {
         this.bookDAO = new BookDAO();
         initializeUI();
@@ -155,12 +157,8 @@ public class BookCRUDFrame extends JFrame {
         
         // Table with new SPK criteria columns
         String[] columnNames = {"Judul", "Penulis", "Kategori", "Penerbit", "Tahun", "Halaman", "Rating", "Harga", "ISBN", "Jumlah Peminjam", "Kondisi Fisik", "Relevansi Isi", "Durasi Peminjaman"};
-        tableModel = new DefaultTableModel(columnNames, 0) {
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                return false;
-            }
-        };
+        tableModel = new BookTableModel(bookDAO, columnNames);
+        tableModel.setLoadListener(() -> showStatus("Buku berhasil dimuat", ColorPalette.SUCCESS));
         
         bookTable = new JTable(tableModel);
         bookTable.setFont(new Font("Segoe UI", Font.PLAIN, 12));
@@ -369,15 +367,16 @@ public class BookCRUDFrame extends JFrame {
     
     private void loadCategories() {
         categoryComboBox.removeAllItems();
-        List<String> categories = bookDAO.getAllCategories();
         
         // Add default option
         categoryComboBox.addItem("Pilih Kategori");
         
-        // Add categories from database
-        for (String category : categories) {
-            categoryComboBox.addItem(category);
-        }
+        // Add categories from database once they are read
+        BackgroundTasks.getInstance().submit(progress -> bookDAO.getAllCategories(), categories -> {
+            for (String category : categories) {
+                categoryComboBox.addItem(category);
+            }
+        });
     }
     
     private void addComboBoxField(JPanel panel, String labelText, JComboBox<String> comboBox, GridBagConstraints gbc, int row) {
@@ -424,61 +423,51 @@ public class BookCRUDFrame extends JFrame {
         updateButton = new GradientButton("Perbarui Buku", ColorPalette.PRIMARY_BLUE, ColorPalette.SECONDARY_BLUE);
         deleteButton = new GradientButton("Hapus Buku", ColorPalette.PRIMARY_RED, ColorPalette.SECONDARY_RED);
         clearButton = new GradientButton("Bersihkan Form", ColorPalette.PRIMARY_ORANGE, ColorPalette.SECONDARY_ORANGE);
+        importButton = new GradientButton("Impor CSV/JSON", ColorPalette.PRIMARY_GRAY, ColorPalette.SECONDARY_GRAY);
         
         // Customize button sizes
         addButton.setPreferredSize(new Dimension(120, 40));
         updateButton.setPreferredSize(new Dimension(120, 40));
         deleteButton.setPreferredSize(new Dimension(120, 40));
         clearButton.setPreferredSize(new Dimension(120, 40));
+        importButton.setPreferredSize(new Dimension(140, 40));
         
         // Add event listeners
         addButton.addActionListener(e -> addBook());
         updateButton.addActionListener(e -> updateBook());
         deleteButton.addActionListener(e -> deleteBook());
         clearButton.addActionListener(e -> clearForm());
+        importButton.addActionListener(e -> importBooks());
         
         panel.add(addButton);
         panel.add(updateButton);
         panel.add(deleteButton);
         panel.add(clearButton);
+        panel.add(importButton);
         
         return panel;
     }
     
     private void loadBooks() {
-        tableModel.setRowCount(0);
-        List<Book> books = bookDAO.getAllBooks();
-        
-        for (Book book : books) {
-            Object[] row = {
-                book.getTitle(),
-                book.getAuthor(),
-                book.getCategory(),
-                book.getPublisher(),
-                book.getYear(),
-                book.getPages(),
-                String.format("%.1f", book.getRating()),
-                String.format("Rp %.0f", book.getPrice()),
-                book.getIsbn(),
-                book.getBorrowerCount(),
-                book.getBookCondition(),
-                book.getContentRelevance(),
-                book.getLoanDuration() + " hari"
-            };
-            tableModel.addRow(row);
-        }
-        
         clearForm();
-        showStatus("Buku berhasil dimuat", ColorPalette.SUCCESS);
+        showStatus("Memuat buku...", ColorPalette.INFO);
+        
+        // Rows are read page by page in the background as the table scrolls
+        tableModel.loadAll();
     }
     
     private void loadBookToForm(int row) {
-        // Get book ID from database using title and author as unique identifiers
-        String title = (String) tableModel.getValueAt(row, 0);
-        String author = (String) tableModel.getValueAt(row, 1);
+        BookSummary summary = tableModel.getBookAt(bookTable.convertRowIndexToModel(row));
+        if (summary == null) {
+            // Row is still loading
+            return;
+        }
         
-        // Find book by title and author
-        Book book = bookDAO.getBookByTitleAndAuthor(title, author);
+        // Get the full book (with description) in the background
+        detailLane.submit(progress -> bookDAO.getBookById(summary.getId()), this::showBookInForm);
+    }
+    
+    private void showBookInForm(Book book) {
         if (book != null) {
             selectedBookId = book.getId();
             
@@ -509,12 +498,7 @@ public class BookCRUDFrame extends JFrame {
         }
         
         Book book = createBookFromForm();
-        if (bookDAO.addBook(book)) {
-            showStatus("Buku berhasil ditambahkan", ColorPalette.SUCCESS);
-            loadBooks();
-        } else {
-            showStatus("Error: Gagal menambahkan buku", ColorPalette.ERROR);
-        }
+        runWrite(progress -> bookDAO.addBook(book), "Buku berhasil ditambahkan", "Error: Gagal menambahkan buku");
     }
     
     private void updateBook() {
@@ -530,13 +514,7 @@ public class BookCRUDFrame extends JFrame {
         Book book = createBookFromForm();
         book.setId(selectedBookId);
         
-        if (bookDAO.updateBook(book)) {
-            showStatus("Buku berhasil diperbarui", ColorPalette.SUCCESS);
-            loadBooks();
-            selectedBookId = -1;
-        } else {
-            showStatus("Error: Gagal memperbarui buku", ColorPalette.ERROR);
-        }
+        runWrite(progress -> bookDAO.updateBook(book), "Buku berhasil diperbarui", "Error: Gagal memperbarui buku");
     }
     
     private void deleteBook() {
@@ -553,14 +531,109 @@ public class BookCRUDFrame extends JFrame {
         );
         
         if (result == JOptionPane.YES_OPTION) {
-            if (bookDAO.deleteBook(selectedBookId)) {
-                showStatus("Buku berhasil dihapus", ColorPalette.SUCCESS);
+            int bookId = selectedBookId;
+            runWrite(progress -> bookDAO.deleteBook(bookId), "Buku berhasil dihapus", "Error: Gagal menghapus buku");
+        }
+    }
+    
+    /**
+     * Run a database write in the background with the form buttons disabled,
+     * then reload the table on success
+     */
+    private void runWrite(BackgroundTasks.Task<Boolean> write, String successMessage, String failureMessage) {
+        setButtonsEnabled(false);
+        showStatus("Menyimpan...", ColorPalette.INFO);
+        BackgroundTasks.getInstance().submit(write, new BackgroundTasks.Callback<Boolean>() {
+            @Override
+            public void done(Boolean success) {
+                setButtonsEnabled(true);
+                if (success) {
+                    showStatus(successMessage, ColorPalette.SUCCESS);
+                    loadBooks();
+                } else {
+                    showStatus(failureMessage, ColorPalette.ERROR);
+                }
+            }
+            
+            @Override
+            public void failed(Exception e) {
+                setButtonsEnabled(true);
+                showStatus(failureMessage + ": " + e.getMessage(), ColorPalette.ERROR);
+            }
+        });
+    }
+    
+    private void setButtonsEnabled(boolean enabled) {
+        addButton.setEnabled(enabled);
+        updateButton.setEnabled(enabled);
+        deleteButton.setEnabled(enabled);
+    }
+    
+    private void importBooks() {
+        JFileChooser fileChooser = new JFileChooser();
+        fileChooser.setDialogTitle("Impor Buku dari CSV/JSON");
+        fileChooser.setFileFilter(new javax.swing.filechooser.FileNameExtensionFilter("CSV atau JSON", "csv", "json"));
+        if (fileChooser.showOpenDialog(this) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        java.io.File file = fileChooser.getSelectedFile();
+        
+        int choice = JOptionPane.showConfirmDialog(
+            this,
+            "Perbarui buku yang ISBN-nya sudah ada?\n(Tidak = lewati buku tersebut)",
+            "Mode Impor",
+            JOptionPane.YES_NO_CANCEL_OPTION
+        );
+        if (choice == JOptionPane.CANCEL_OPTION || choice == JOptionPane.CLOSED_OPTION) {
+            return;
+        }
+        BookImporter importer = new BookImporter(
+            choice == JOptionPane.YES_OPTION ? BookImporter.Mode.UPSERT : BookImporter.Mode.INSERT_NEW
+        );
+        
+        importButton.setEnabled(false);
+        showStatus("Mengimpor " + file.getName() + "...", ColorPalette.INFO);
+        BackgroundTasks.getInstance().submit(progress -> importer.importFile(file, progress),
+                new BackgroundTasks.Callback<BookImporter.ImportResult>() {
+            @Override
+            public void done(BookImporter.ImportResult result) {
+                importButton.setEnabled(true);
                 loadBooks();
-                selectedBookId = -1;
-            } else {
-                showStatus("Error: Gagal menghapus buku", ColorPalette.ERROR);
+                showImportResult(result);
             }
+            
+            @Override
+            public void failed(Exception e) {
+                importButton.setEnabled(true);
+                showStatus("Error: Gagal mengimpor buku: " + e.getMessage(), ColorPalette.ERROR);
+            }
+            
+            @Override
+            public void progress(int percent, String message) {
+                showStatus("Mengimpor " + percent + "%: " + message, ColorPalette.INFO);
+            }
+        });
+    }
+    
+    private void showImportResult(BookImporter.ImportResult result) {
+        StringBuilder message = new StringBuilder();
+        message.append(String.format("Ditambahkan: %d%nDiperbarui: %d%nDilewati (ISBN sudah ada): %d%nDitolak: %d%n",
+                result.getInserted(), result.getUpdated(), result.getSkipped(), result.getRejected()));
+        message.append(String.format("Kecepatan: %.0f baris/detik%n", result.getRowsPerSecond()));
+        if (result.getInputError() != null) {
+            message.append("\nFile berhenti dibaca: ").append(result.getInputError()).append('\n');
+        }
+        for (BookImporter.BatchFailure failure : result.getBatchFailures()) {
+            message.append('\n').append(failure);
+        }
+        // Only the first few row errors; the rest are summarised by the count above
+        List<String> rowErrors = result.getRowErrors();
+        for (int i = 0; i < Math.min(10, rowErrors.size()); i++) {
+            message.append('\n').append(rowErrors.get(i));
         }
+        boolean clean = result.getBatchFailures().isEmpty() && result.getRejected() == 0 && result.getInputError() == null;
+        JOptionPane.showMessageDialog(this, message.toString(), "Hasil Impor",
+                clean ? JOptionPane.INFORMATION_MESSAGE : JOptionPane.WARNING_MESSAGE);
     }
     
     private void clearForm() {
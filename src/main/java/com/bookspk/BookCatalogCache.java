@@ -0,0 +1,682 @@
+package com.bookspk;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Process-wide in-memory copy of the books table, indexed by id, ISBN,
+ * (title, author) and category.
+ * <p>
+ * Reads are served from an in-memory snapshot. Once a snapshot is older than the
+ * TTL it is still served, but a background refresh is started; once it is older
+ * than the staleness bound the next read reloads it before returning. BookDAO
+ * writes go through to the cache, so changes made in this process are visible
+ * immediately; the TTL only matters for changes made outside the application.
+ * <p>
+ * SPK rankings (SPKRankingIndex) built over the catalog are kept here as well and
+ * are updated together with the snapshot on every write.
+ * <p>
+ * Cached books hold the BookProjection.LIST_VIEW columns, i.e. no description.
+ * Book objects handed out are shared between callers and must not be modified.
+ */
+public class BookCatalogCache {
+    // Freshness, overridable with -Dbookspk.cache.* system properties
+    private static final long CACHE_TTL_MS = Long.getLong("bookspk.cache.ttlMs", 30000L);
+    private static final long CACHE_MAX_STALE_MS = Long.getLong("bookspk.cache.maxStaleMs", 120000L);
+    private static final int CACHE_MAX_RANKINGS = Integer.getInteger("bookspk.cache.maxRankings", 4);
+
+    /**
+     * Catalog order: newest first, then highest id. Ties in SPK rankings keep this order.
+     */
+    public static final Comparator<Book> CATALOG_ORDER = (a, b) -> {
+        if (a.getCreatedAt() != b.getCreatedAt()) {
+            // A book without created_at has not been read back yet, so it is the newest
+            if (a.getCreatedAt() == null) return -1;
+            if (b.getCreatedAt() == null) return 1;
+            int byTime = b.getCreatedAt().compareTo(a.getCreatedAt());
+            if (byTime != 0) return byTime;
+        }
+        return Integer.compare(b.getId(), a.getId());
+    };
+
+    private static volatile BookCatalogCache instance = null;
+
+    /**
+     * Loads the full catalog, newest first
+     */
+    public interface Loader {
+        List<Book> load() throws SQLException;
+    }
+
+    private final Loader loader;
+    private final long ttlNanos;
+    private final long maxStaleNanos;
+    private final int maxRankings;
+
+    // Guards loading and installing snapshots, so writes never race with a reload
+    private final Object lock = new Object();
+    private volatile Snapshot snapshot = null;
+    private final AtomicBoolean refreshing = new AtomicBoolean(false);
+    private volatile ExecutorService refresher = null;
+    // Rankings by key, least recently used first; guarded by lock
+    private final LinkedHashMap<Object, RankingSlot> rankings = new LinkedHashMap<>(16, 0.75f, true);
+
+    // Statistics
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+    private final AtomicLong loadCount = new AtomicLong();
+    private final AtomicLong loadFailureCount = new AtomicLong();
+    private final AtomicLong backgroundRefreshCount = new AtomicLong();
+    private final AtomicLong writeCount = new AtomicLong();
+    private final AtomicLong invalidationCount = new AtomicLong();
+    private final AtomicLong loadNanos = new AtomicLong();
+    private final AtomicLong rankingBuildCount = new AtomicLong();
+
+    /**
+     * Create a catalog cache
+     * @param loader source of the full catalog
+     * @param ttlMillis age after which the snapshot is refreshed in the background
+     * @param maxStaleMillis age after which the snapshot is no longer served; 0 disables caching
+     */
+    public BookCatalogCache(Loader loader, long ttlMillis, long maxStaleMillis) {
+        this(loader, ttlMillis, maxStaleMillis, CACHE_MAX_RANKINGS);
+    }
+
+    /**
+     * Create a catalog cache
+     * @param loader source of the full catalog
+     * @param ttlMillis age after which the snapshot is refreshed in the background
+     * @param maxStaleMillis age after which the snapshot is no longer served; 0 disables caching
+     * @param maxRankings number of SPK rankings kept up to date at the same time
+     */
+    public BookCatalogCache(Loader loader, long ttlMillis, long maxStaleMillis, int maxRankings) {
+        if (ttlMillis < 0 || maxStaleMillis < 0) {
+            throw new IllegalArgumentException("Invalid cache timeouts: ttl=" + ttlMillis + ", maxStale=" + maxStaleMillis);
+        }
+        this.loader = loader;
+        this.ttlNanos = Math.min(ttlMillis, maxStaleMillis) * 1_000_000L;
+        this.maxStaleNanos = maxStaleMillis * 1_000_000L;
+        this.maxRankings = Math.max(0, maxRankings);
+    }
+
+    /**
+     * Get the shared catalog cache, creating it on first use
+     * @return BookCatalogCache instance backed by BookDAO
+     */
+    public static BookCatalogCache getInstance() {
+        BookCatalogCache current = instance;
+        if (current == null) {
+            synchronized (BookCatalogCache.class) {
+                current = instance;
+                if (current == null) {
+                    BookDAO dao = new BookDAO();
+                    current = new BookCatalogCache(dao::loadAllBooks, CACHE_TTL_MS, CACHE_MAX_STALE_MS);
+                    instance = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    // Reads
+
+    /**
+     * @return all books, newest first
+     * @throws SQLException if the catalog had to be loaded and loading failed
+     */
+    public List<Book> getAllBooks() throws SQLException {
+        return new ArrayList<>(snapshot().books);
+    }
+
+    /**
+     * Get the catalog only if a fresh enough copy is already cached; never loads
+     * @return all books, newest first, as the snapshot's own unmodifiable list
+     *         (copy it before changing it), or null when the catalog is not cached
+     */
+    public List<Book> getCachedBooks() {
+        Snapshot current = cachedSnapshot();
+        if (current == null) {
+            return null;
+        }
+        hitCount.incrementAndGet();
+        return current.books;
+    }
+
+    /**
+     * @return true if a fresh enough catalog is cached, so reads will not load it
+     */
+    public boolean isCached() {
+        return cachedSnapshot() != null;
+    }
+
+    private Snapshot cachedSnapshot() {
+        Snapshot current = snapshot;
+        if (current == null || System.nanoTime() - current.loadedAt >= maxStaleNanos) {
+            return null;
+        }
+        return current;
+    }
+
+    /**
+     * @param category category to filter (case-insensitive, like the database collation)
+     * @return books in the category, highest rating first
+     * @throws SQLException if the catalog had to be loaded and loading failed
+     */
+    public List<Book> getBooksByCategory(String category) throws SQLException {
+        List<Book> books = snapshot().byCategory.get(key(category));
+        return books == null ? new ArrayList<>() : new ArrayList<>(books);
+    }
+
+    /**
+     * @return distinct categories, sorted
+     * @throws SQLException if the catalog had to be loaded and loading failed
+     */
+    public List<String> getAllCategories() throws SQLException {
+        return new ArrayList<>(snapshot().categories);
+    }
+
+    /**
+     * @param bookId ID of the book
+     * @return the book, or null if it does not exist
+     * @throws SQLException if the catalog had to be loaded and loading failed
+     */
+    public Book getBookById(int bookId) throws SQLException {
+        return snapshot().byId.get(bookId);
+    }
+
+    /**
+     * @param isbn ISBN of the book
+     * @return the book, or null if no book has this ISBN
+     * @throws SQLException if the catalog had to be loaded and loading failed
+     */
+    public Book getBookByIsbn(String isbn) throws SQLException {
+        return snapshot().byIsbn.get(key(isbn));
+    }
+
+    /**
+     * @param title title of the book
+     * @param author author of the book
+     * @return the book, or null if not found
+     * @throws SQLException if the catalog had to be loaded and loading failed
+     */
+    public Book getBookByTitleAndAuthor(String title, String author) throws SQLException {
+        List<Book> matches = snapshot().byTitleAuthor.get(titleAuthorKey(title, author));
+        return matches == null ? null : matches.get(0);
+    }
+
+    /**
+     * Get the SPK ranking of the catalog for one scoring configuration.
+     * The ranking is built the first time it has been asked for buildAfterRequests
+     * times and is then kept up to date by put() and remove(), so callers that only
+     * score once pay nothing extra.
+     * @param key identifies the scorer (e.g. the weights); equal keys must score identically
+     * @param scorer SPK score function
+     * @param buildAfterRequests number of requests for the key before the ranking is built
+     * @return the ranking, or null if it has not been requested often enough yet
+     * @throws SQLException if the catalog had to be loaded and loading failed
+     */
+    public SPKRankingIndex getRanking(Object key, SPKRankingIndex.Scorer scorer, int buildAfterRequests) throws SQLException {
+        Snapshot current = snapshot();
+        synchronized (lock) {
+            if (snapshot != current || maxRankings == 0) {
+                // Snapshot is not cached (or changed while we waited); rank what we loaded without keeping it
+                if (buildAfterRequests > 1) {
+                    return null;
+                }
+                rankingBuildCount.incrementAndGet();
+                return new SPKRankingIndex(current.books, scorer);
+            }
+            RankingSlot slot = rankings.get(key);
+            if (slot == null) {
+                slot = new RankingSlot(scorer);
+                rankings.put(key, slot);
+                trimRankings();
+            }
+            slot.requests++;
+            if (slot.index == null && slot.requests >= buildAfterRequests) {
+                slot.index = new SPKRankingIndex(current.books, scorer);
+                rankingBuildCount.incrementAndGet();
+            }
+            return slot.index;
+        }
+    }
+
+    // Write-through
+
+    /**
+     * Add or replace a book after it has been written to the database.
+     * The cache keeps its own copy, so the caller may keep modifying the given object.
+     * @param book book as stored in the database
+     */
+    public void put(Book book) {
+        synchronized (lock) {
+            Snapshot current = snapshot;
+            if (current == null) {
+                return; // nothing cached yet, the first read loads it
+            }
+            Book copy = copyOf(book);
+            Book existing = current.byId.get(book.getId());
+            if (existing != null && copy.getCreatedAt() == null) {
+                copy.setCreatedAt(existing.getCreatedAt());
+            }
+            snapshot = current.withPut(copy);
+            for (RankingSlot slot : rankings.values()) {
+                if (slot.index != null) {
+                    slot.index.update(copy);
+                }
+            }
+            writeCount.incrementAndGet();
+        }
+    }
+
+    /**
+     * Remove a book after it has been deleted from the database
+     * @param bookId ID of the deleted book
+     */
+    public void remove(int bookId) {
+        synchronized (lock) {
+            Snapshot current = snapshot;
+            if (current == null || !current.byId.containsKey(bookId)) {
+                return;
+            }
+            snapshot = current.withRemoved(bookId);
+            for (RankingSlot slot : rankings.values()) {
+                if (slot.index != null) {
+                    slot.index.remove(bookId);
+                }
+            }
+            writeCount.incrementAndGet();
+        }
+    }
+
+    /**
+     * Drop the snapshot so the next read reloads the catalog
+     */
+    public void invalidate() {
+        synchronized (lock) {
+            snapshot = null;
+            rankings.clear();
+            invalidationCount.incrementAndGet();
+        }
+    }
+
+    /**
+     * Stop the background refresh thread
+     */
+    public void shutdown() {
+        ExecutorService current = refresher;
+        if (current != null) {
+            current.shutdownNow();
+        }
+    }
+
+    // Statistics
+
+    public long getHitCount() { return hitCount.get(); }
+    public long getMissCount() { return missCount.get(); }
+    public long getLoadCount() { return loadCount.get(); }
+    public long getLoadFailureCount() { return loadFailureCount.get(); }
+    public long getBackgroundRefreshCount() { return backgroundRefreshCount.get(); }
+    public long getWriteCount() { return writeCount.get(); }
+    public long getInvalidationCount() { return invalidationCount.get(); }
+    public long getRankingBuildCount() { return rankingBuildCount.get(); }
+
+    public double getHitRate() {
+        long hits = hitCount.get();
+        long total = hits + missCount.get();
+        return total == 0 ? 0.0 : (double) hits / total;
+    }
+
+    public double getAverageLoadMillis() {
+        long loads = loadCount.get();
+        return loads == 0 ? 0.0 : loadNanos.get() / 1_000_000.0 / loads;
+    }
+
+    /**
+     * @return number of cached books, 0 when nothing is cached
+     */
+    public int size() {
+        Snapshot current = snapshot;
+        return current == null ? 0 : current.books.size();
+    }
+
+    /**
+     * @return age of the cached snapshot in milliseconds, -1 when nothing is cached
+     */
+    public long getAgeMillis() {
+        Snapshot current = snapshot;
+        return current == null ? -1 : (System.nanoTime() - current.loadedAt) / 1_000_000L;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("BookCatalogCache{books=%d, age=%dms, hits=%d, misses=%d, hitRate=%.1f%%, loads=%d, " +
+                        "loadFailures=%d, backgroundRefreshes=%d, writes=%d, invalidations=%d, rankingBuilds=%d, avgLoad=%.1fms}",
+                size(), getAgeMillis(), getHitCount(), getMissCount(), getHitRate() * 100, getLoadCount(),
+                getLoadFailureCount(), getBackgroundRefreshCount(), getWriteCount(), getInvalidationCount(),
+                getRankingBuildCount(), getAverageLoadMillis());
+    }
+
+    // Snapshot management
+
+    private Snapshot snapshot() throws SQLException {
+        Snapshot current = snapshot;
+        if (current != null) {
+            long age = System.nanoTime() - current.loadedAt;
+            if (age < maxStaleNanos) {
+                hitCount.incrementAndGet();
+                if (age >= ttlNanos) {
+                    refreshInBackground();
+                }
+                return current;
+            }
+        }
+        synchronized (lock) {
+            // Another thread may have reloaded while we waited for the lock
+            current = snapshot;
+            if (current != null && System.nanoTime() - current.loadedAt < maxStaleNanos) {
+                hitCount.incrementAndGet();
+                return current;
+            }
+            missCount.incrementAndGet();
+            Snapshot loaded = load();
+            // Rankings are rebuilt lazily against the new snapshot
+            rankings.clear();
+            if (maxStaleNanos > 0) {
+                snapshot = loaded;
+            }
+            return loaded;
+        }
+    }
+
+    // Caller holds the lock
+    private Snapshot load() throws SQLException {
+        long start = System.nanoTime();
+        try {
+            List<Book> books = loader.load();
+            books.sort(CATALOG_ORDER);
+            Snapshot loaded = Snapshot.build(books, start);
+            loadCount.incrementAndGet();
+            loadNanos.addAndGet(System.nanoTime() - start);
+            return loaded;
+        } catch (SQLException | RuntimeException e) {
+            loadFailureCount.incrementAndGet();
+            throw e;
+        }
+    }
+
+    private void refreshInBackground() {
+        if (!refreshing.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            refresher().execute(() -> {
+                try {
+                    synchronized (lock) {
+                        Snapshot loaded = load();
+                        // Rebuild rankings that are in use here, off the reading threads
+                        for (RankingSlot slot : rankings.values()) {
+                            if (slot.index != null) {
+                                slot.index = new SPKRankingIndex(loaded.books, slot.scorer);
+                                rankingBuildCount.incrementAndGet();
+                            }
+                        }
+                        snapshot = loaded;
+                        backgroundRefreshCount.incrementAndGet();
+                    }
+                } catch (SQLException | RuntimeException e) {
+                    // Keep serving the current snapshot until the staleness bound forces a reload
+                    System.err.println("Error refreshing book catalog: " + e.getMessage());
+                } finally {
+                    refreshing.set(false);
+                }
+            });
+        } catch (RuntimeException e) {
+            refreshing.set(false);
+        }
+    }
+
+    private ExecutorService refresher() {
+        ExecutorService current = refresher;
+        if (current == null) {
+            synchronized (this) {
+                current = refresher;
+                if (current == null) {
+                    current = Executors.newSingleThreadExecutor(r -> {
+                        Thread t = new Thread(r, "bookspk-catalog-refresh");
+                        t.setDaemon(true);
+                        return t;
+                    });
+                    refresher = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    // Caller holds the lock
+    private void trimRankings() {
+        Iterator<RankingSlot> eldest = rankings.values().iterator();
+        while (rankings.size() > maxRankings && eldest.hasNext()) {
+            eldest.next();
+            eldest.remove();
+        }
+    }
+
+    // Helpers
+
+    private static String key(String value) {
+        return value == null ? "" : value.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static String titleAuthorKey(String title, String author) {
+        return key(title) + '\u0000' + key(author);
+    }
+
+    private static String titleAuthorKey(Book book) {
+        return titleAuthorKey(book.getTitle(), book.getAuthor());
+    }
+
+    private static Book copyOf(Book book) {
+        return new Book(
+            book.getId(),
+            book.getTitle(),
+            book.getAuthor(),
+            book.getCategory(),
+            book.getPublisher(),
+            book.getYear(),
+            book.getPages(),
+            book.getRating(),
+            book.getPrice(),
+            book.getIsbn(),
+            null, // not cached, see BookProjection.LIST_VIEW
+            book.getCreatedAt(),
+            book.getBorrowerCount(),
+            book.getBookCondition(),
+            book.getContentRelevance(),
+            book.getLoanDuration()
+        );
+    }
+
+    /**
+     * Ranking for one key plus how often it has been asked for
+     */
+    private static final class RankingSlot {
+        private final SPKRankingIndex.Scorer scorer;
+        private SPKRankingIndex index;
+        private int requests;
+
+        private RankingSlot(SPKRankingIndex.Scorer scorer) {
+            this.scorer = scorer;
+        }
+    }
+
+    /**
+     * Catalog list plus its indexes, never changed once published. A write copies
+     * the list and the index maps into a new snapshot; the per-key lists in the
+     * maps are shared, and only the keys the write touches get new ones. That is
+     * a few array and table copies instead of rebuilding every index, and a reader
+     * holding an older snapshot keeps a list and indexes that agree.
+     */
+    private static final class Snapshot {
+        // Order inside a category: highest rating first, ties by id descending,
+        // the same as BookDAO's TOP_RATED keyset pages (ORDER BY rating DESC, id DESC)
+        private static final Comparator<Book> RATING_ORDER =
+                Comparator.comparingDouble(Book::getRating).reversed()
+                        .thenComparing(Comparator.comparingInt(Book::getId).reversed());
+
+        private final List<Book> books;
+        private final Map<Integer, Book> byId;
+        private final Map<String, Book> byIsbn;
+        // Title and author are not unique, so each key keeps every match in catalog order
+        private final Map<String, List<Book>> byTitleAuthor;
+        private final Map<String, List<Book>> byCategory;
+        private final List<String> categories;
+        private final long loadedAt;
+
+        private Snapshot(List<Book> books, Map<Integer, Book> byId, Map<String, Book> byIsbn,
+                         Map<String, List<Book>> byTitleAuthor, Map<String, List<Book>> byCategory,
+                         long loadedAt) {
+            this.books = Collections.unmodifiableList(books);
+            this.byId = byId;
+            this.byIsbn = byIsbn;
+            this.byTitleAuthor = byTitleAuthor;
+            this.byCategory = byCategory;
+            this.loadedAt = loadedAt;
+
+            List<String> labels = new ArrayList<>(byCategory.size());
+            for (List<Book> inCategory : byCategory.values()) {
+                String label = inCategory.get(0).getCategory();
+                if (label != null) {
+                    labels.add(label);
+                }
+            }
+            labels.sort(String.CASE_INSENSITIVE_ORDER);
+            this.categories = Collections.unmodifiableList(labels);
+        }
+
+        /**
+         * @param books books in CATALOG_ORDER
+         */
+        private static Snapshot build(List<Book> books, long loadedAt) {
+            Map<Integer, Book> byId = new HashMap<>(books.size() * 2);
+            Map<String, Book> byIsbn = new HashMap<>(books.size() * 2);
+            Map<String, List<Book>> titleAuthor = new HashMap<>(books.size() * 2);
+            Map<String, List<Book>> category = new HashMap<>();
+
+            for (Book book : books) {
+                byId.put(book.getId(), book);
+                byIsbn.putIfAbsent(key(book.getIsbn()), book);
+                titleAuthor.computeIfAbsent(titleAuthorKey(book), k -> new ArrayList<>(1)).add(book);
+                category.computeIfAbsent(key(book.getCategory()), k -> new ArrayList<>()).add(book);
+            }
+            Map<String, List<Book>> byTitleAuthor = new HashMap<>(titleAuthor.size() * 2);
+            for (Map.Entry<String, List<Book>> entry : titleAuthor.entrySet()) {
+                byTitleAuthor.put(entry.getKey(), Collections.unmodifiableList(entry.getValue()));
+            }
+            Map<String, List<Book>> byCategory = new HashMap<>();
+            for (Map.Entry<String, List<Book>> entry : category.entrySet()) {
+                entry.getValue().sort(RATING_ORDER);
+                byCategory.put(entry.getKey(), Collections.unmodifiableList(entry.getValue()));
+            }
+            return new Snapshot(new ArrayList<>(books), byId, byIsbn, byTitleAuthor, byCategory, loadedAt);
+        }
+
+        /**
+         * Add a book, or replace the book with the same id. Caller holds the cache lock.
+         * @return new snapshot; this one is left unchanged
+         */
+        private Snapshot withPut(Book book) {
+            List<Book> newBooks = new ArrayList<>(books.size() + 1);
+            newBooks.addAll(books);
+            Map<Integer, Book> newById = new HashMap<>(byId);
+            Map<String, Book> newByIsbn = new HashMap<>(byIsbn);
+            Map<String, List<Book>> newByTitleAuthor = new HashMap<>(byTitleAuthor);
+            Map<String, List<Book>> newByCategory = new HashMap<>(byCategory);
+
+            Book old = byId.get(book.getId());
+            if (old != null) {
+                newBooks.remove(Collections.binarySearch(newBooks, old, CATALOG_ORDER));
+                unindex(old, newById, newByIsbn, newByTitleAuthor, newByCategory);
+            }
+            newBooks.add(insertionPoint(newBooks, book, CATALOG_ORDER), book);
+            newById.put(book.getId(), book);
+            newByIsbn.putIfAbsent(key(book.getIsbn()), book);
+            insert(newByTitleAuthor, titleAuthorKey(book), book, CATALOG_ORDER);
+            insert(newByCategory, key(book.getCategory()), book, RATING_ORDER);
+            return new Snapshot(newBooks, newById, newByIsbn, newByTitleAuthor, newByCategory, loadedAt);
+        }
+
+        /**
+         * Remove the book with this id. Caller holds the cache lock.
+         * @return new snapshot; this one is left unchanged
+         */
+        private Snapshot withRemoved(int bookId) {
+            Book old = byId.get(bookId);
+            if (old == null) {
+                return this;
+            }
+            List<Book> newBooks = new ArrayList<>(books);
+            newBooks.remove(Collections.binarySearch(newBooks, old, CATALOG_ORDER));
+            Map<Integer, Book> newById = new HashMap<>(byId);
+            Map<String, Book> newByIsbn = new HashMap<>(byIsbn);
+            Map<String, List<Book>> newByTitleAuthor = new HashMap<>(byTitleAuthor);
+            Map<String, List<Book>> newByCategory = new HashMap<>(byCategory);
+            unindex(old, newById, newByIsbn, newByTitleAuthor, newByCategory);
+            return new Snapshot(newBooks, newById, newByIsbn, newByTitleAuthor, newByCategory, loadedAt);
+        }
+
+        // Removes a book from index copies that are not published yet
+        private static void unindex(Book old, Map<Integer, Book> byId, Map<String, Book> byIsbn,
+                                    Map<String, List<Book>> byTitleAuthor, Map<String, List<Book>> byCategory) {
+            byId.remove(old.getId(), old);
+            byIsbn.remove(key(old.getIsbn()), old);
+            delete(byTitleAuthor, titleAuthorKey(old), old, CATALOG_ORDER);
+            delete(byCategory, key(old.getCategory()), old, RATING_ORDER);
+        }
+
+        // Copy-on-write insert into a sorted list stored under the key
+        private static void insert(Map<String, List<Book>> map, String key, Book book, Comparator<Book> order) {
+            List<Book> old = map.get(key);
+            List<Book> updated = old == null ? new ArrayList<>(1) : new ArrayList<>(old);
+            updated.add(insertionPoint(updated, book, order), book);
+            map.put(key, Collections.unmodifiableList(updated));
+        }
+
+        // Copy-on-write removal from a sorted list stored under the key
+        private static void delete(Map<String, List<Book>> map, String key, Book book, Comparator<Book> order) {
+            List<Book> old = map.get(key);
+            if (old == null) {
+                return;
+            }
+            int index = Collections.binarySearch(old, book, order);
+            if (index < 0) {
+                return;
+            }
+            if (old.size() == 1) {
+                map.remove(key);
+                return;
+            }
+            List<Book> updated = new ArrayList<>(old);
+            updated.remove(index);
+            map.put(key, Collections.unmodifiableList(updated));
+        }
+
+        private static int insertionPoint(List<Book> list, Book book, Comparator<Book> order) {
+            int index = Collections.binarySearch(list, book, order);
+            return index < 0 ? -index - 1 : index;
+        }
+    }
+}
@@ -1,115 +1,243 @@
 package com.bookspk;
 
+import java.math.BigDecimal;
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
- * Data Access Object for Book operations with SPK calculations
+ * Data Access Object for Book operations with SPK calculations.
+ * Reads are served from the shared BookCatalogCache; writes go to the
+ * database first and are then applied to the cache.
  */
 public class BookDAO {
+    // Rows per round trip when streaming the catalog through a server-side cursor
+    static final int STREAM_FETCH_SIZE = Integer.getInteger("bookspk.stream.fetchSize", 1000);
+    // Rank an uncached catalog inside MySQL (SPKSqlRanking) instead of streaming it; -Dbookspk.spk.pushDown=false to stream
+    private static final boolean SPK_PUSH_DOWN = Boolean.parseBoolean(System.getProperty("bookspk.spk.pushDown", "true"));
     
     /**
-     * Get all books
+     * Get all books. Books come from the catalog cache with the list view columns
+     * only; use getBookById for the full row including the description.
      * @return List of all books
      */
     public List<Book> getAllBooks() {
+        try {
+            return BookCatalogCache.getInstance().getAllBooks();
+        } catch (SQLException e) {
+            System.err.println("Error getting books: " + e.getMessage());
+            return new ArrayList<>();
+        }
+    }
+    
+    /**
+     * Load all books for the catalog cache, bypassing it
+     * @return List of all books with the list view columns, newest first
+     * @throws SQLException if the query fails
+     */
+    List<Book> loadAllBooks() throws SQLException {
+        return loadBooks(BookProjection.LIST_VIEW);
+    }
+    
+    private List<Book> loadBooks(BookProjection projection) throws SQLException {
         List<Book> books = new ArrayList<>();
-        String sql = "SELECT * FROM books ORDER BY created_at DESC";
+        String sql = "SELECT " + projection.getSelectList() + " FROM books ORDER BY created_at DESC, id DESC";
         
         try (Connection conn = DatabaseConnection.getConnection();
-             Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
+             PreparedStatement pstmt = conn.prepareStatement(sql);
+             ResultSet rs = pstmt.executeQuery()) {
             
-            while (rs.next()) {
-                Book book = new Book(
-                    rs.getInt("id"),
-                    rs.getString("title"),
-                    rs.getString("author"),
-                    rs.getString("category"),
-                    rs.getString("publisher"),
-                    rs.getInt("year"),
-                    rs.getInt("pages"),
-                    rs.getDouble("rating"),
-                    rs.getDouble("price"),
-                    rs.getString("isbn"),
-                    rs.getString("description"),
-                    rs.getTimestamp("created_at"),
-                    rs.getInt("borrower_count"),
-                    rs.getString("book_condition"),
-                    rs.getString("content_relevance"),
-                    rs.getInt("loan_duration")
-                );
-                books.add(book);
+            books.addAll(new BookRowMapper(rs).mapAll(rs));
+        }
+        return books;
+    }
+    
+    /**
+     * Sort orders supported by the keyset-paginated listing
+     */
+    public enum ListOrder {
+        // created_at DESC, id DESC
+        NEWEST,
+        // rating DESC, id DESC
+        TOP_RATED
+    }
+    
+    /**
+     * Position in a listing: the sort key of the last row of the previous page
+     */
+    public static final class PageKey {
+        private final Timestamp createdAt;
+        private final BigDecimal rating;
+        private final int id;
+        
+        private PageKey(Timestamp createdAt, BigDecimal rating, int id) {
+            this.createdAt = createdAt;
+            this.rating = rating;
+            this.id = id;
+        }
+        
+        /**
+         * @param book last row of a page
+         * @return key to continue after that row
+         */
+        public static PageKey after(BookSummary book) {
+            return new PageKey(book.getCreatedAt(), BigDecimal.valueOf(book.getRating()), book.getId());
+        }
+    }
+    
+    /**
+     * Get one page of the book listing using keyset pagination, so the cost of a
+     * page does not depend on how deep into the listing it is.
+     * @param order sort order
+     * @param category category to filter, or null for all books
+     * @param after key of the last row of the previous page, or null for the first page
+     * @param pageSize maximum number of rows
+     * @return list view rows of the page
+     */
+    public List<BookSummary> getBookPage(ListOrder order, String category, PageKey after, int pageSize) {
+        List<BookSummary> page = new ArrayList<>(pageSize);
+        List<String> conditions = new ArrayList<>();
+        if (category != null) {
+            conditions.add("category = ?");
+        }
+        if (after != null) {
+            conditions.add(order == ListOrder.NEWEST
+                    ? "(created_at < ? OR (created_at = ? AND id < ?))"
+                    : "(rating < ? OR (rating = ? AND id < ?))");
+        }
+        StringBuilder sql = new StringBuilder("SELECT ")
+                .append(BookProjection.LIST_VIEW.getSelectList())
+                .append(" FROM books");
+        if (!conditions.isEmpty()) {
+            sql.append(" WHERE ").append(String.join(" AND ", conditions));
+        }
+        sql.append(orderBy(order)).append(" LIMIT ?");
+        
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql.toString())) {
+            
+            int index = 1;
+            if (category != null) {
+                pstmt.setString(index++, category);
+            }
+            if (after != null) {
+                if (order == ListOrder.NEWEST) {
+                    pstmt.setTimestamp(index++, after.createdAt);
+                    pstmt.setTimestamp(index++, after.createdAt);
+                } else {
+                    pstmt.setBigDecimal(index++, after.rating);
+                    pstmt.setBigDecimal(index++, after.rating);
+                }
+                pstmt.setInt(index++, after.id);
+            }
+            pstmt.setInt(index, pageSize);
+            
+            try (ResultSet rs = pstmt.executeQuery()) {
+                RowMapper<Book> mapper = new BookRowMapper(rs);
+                while (rs.next()) {
+                    page.add(new BookSummary(mapper.mapRow(rs)));
+                }
             }
         } catch (SQLException e) {
-            System.err.println("Error getting books: " + e.getMessage());
+            System.err.println("Error getting book page: " + e.getMessage());
         }
-        return books;
+        return page;
     }
     
     /**
-     * Get books by category
-     * @param category category to filter
-     * @return List of books in the category
+     * Get the key of the row at a position of the listing, for jumping to a page
+     * that does not follow a loaded one. No rows are transferred for the pages
+     * before it, but MySQL still walks rowIndex entries of the (created_at, id)
+     * or (rating, id) index to skip them, so the cost grows with the position.
+     * Pages next to a loaded page continue from its last key instead.
+     * @param order sort order
+     * @param category category to filter, or null for all books
+     * @param rowIndex 0-based position in the listing
+     * @return key to continue after that row, or null if there is no such row
      */
-    public List<Book> getBooksByCategory(String category) {
-        List<Book> books = new ArrayList<>();
-        String sql = "SELECT * FROM books WHERE category = ? ORDER BY rating DESC";
+    public PageKey getPageKey(ListOrder order, String category, int rowIndex) {
+        String sql = "SELECT created_at, rating, id FROM books" +
+                (category != null ? " WHERE category = ?" : "") +
+                orderBy(order) + " LIMIT 1 OFFSET ?";
         
         try (Connection conn = DatabaseConnection.getConnection();
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
             
-            pstmt.setString(1, category);
+            int index = 1;
+            if (category != null) {
+                pstmt.setString(index++, category);
+            }
+            pstmt.setInt(index, rowIndex);
             
             try (ResultSet rs = pstmt.executeQuery()) {
-                while (rs.next()) {
-                    Book book = new Book(
-                        rs.getInt("id"),
-                        rs.getString("title"),
-                        rs.getString("author"),
-                        rs.getString("category"),
-                        rs.getString("publisher"),
-                        rs.getInt("year"),
-                        rs.getInt("pages"),
-                        rs.getDouble("rating"),
-                        rs.getDouble("price"),
-                        rs.getString("isbn"),
-                        rs.getString("description"),
-                        rs.getTimestamp("created_at"),
-                        rs.getInt("borrower_count"),
-                        rs.getString("book_condition"),
-                        rs.getString("content_relevance"),
-                        rs.getInt("loan_duration")
-                    );
-                    books.add(book);
+                if (rs.next()) {
+                    return new PageKey(rs.getTimestamp(1), rs.getBigDecimal(2), rs.getInt(3));
                 }
             }
         } catch (SQLException e) {
-            System.err.println("Error getting books by category: " + e.getMessage());
+            System.err.println("Error getting page key: " + e.getMessage());
         }
-        return books;
+        return null;
     }
     
     /**
-     * Get all categories
-     * @return List of all categories
+     * Count books
+     * @param category category to filter, or null for all books
+     * @return number of books
      */
-    public List<String> getAllCategories() {
-        List<String> categories = new ArrayList<>();
-        String sql = "SELECT DISTINCT category FROM books ORDER BY category";
+    public int countBooks(String category) {
+        String sql = "SELECT COUNT(*) FROM books" + (category != null ? " WHERE category = ?" : "");
         
         try (Connection conn = DatabaseConnection.getConnection();
-             Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            
+            if (category != null) {
+                pstmt.setString(1, category);
+            }
             
-            while (rs.next()) {
-                categories.add(rs.getString("category"));
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (rs.next()) {
+                    return rs.getInt(1);
+                }
             }
+        } catch (SQLException e) {
+            System.err.println("Error counting books: " + e.getMessage());
+        }
+        return 0;
+    }
+    
+    private static String orderBy(ListOrder order) {
+        return order == ListOrder.NEWEST ? " ORDER BY created_at DESC, id DESC" : " ORDER BY rating DESC, id DESC";
+    }
+    
+    /**
+     * Get books by category
+     * @param category category to filter
+     * @return List of books in the category
+     */
+    public List<Book> getBooksByCategory(String category) {
+        try {
+            return BookCatalogCache.getInstance().getBooksByCategory(category);
+        } catch (SQLException e) {
+            System.err.println("Error getting books by category: " + e.getMessage());
+            return new ArrayList<>();
+        }
+    }
+    
+    /**
+     * Get all categories
+     * @return List of all categories
+     */
+    public List<String> getAllCategories() {
+        try {
+            return BookCatalogCache.getInstance().getAllCategories();
         } catch (SQLException e) {
             System.err.println("Error getting categories: " + e.getMessage());
+            return new ArrayList<>();
         }
-        return categories;
     }
     
     /**
@@ -118,10 +246,12 @@ public class BookDAO {
      * @return true if successful, false otherwise
      */
     public boolean addBook(Book book) {
-        String sql = "INSERT INTO books (title, author, category, publisher, year, pages, rating, price, isbn, description, borrower_count, book_condition, content_relevance, loan_duration) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+        SPKScoreStore.ScoreColumns scores = SPKScoreStore.columns();
+        String sql = "INSERT INTO books (title, author, category, publisher, year, pages, rating, price, isbn, description, borrower_count, book_condition, content_relevance, loan_duration" + scores.insertList() + ") VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?" + scores.placeholders() + ")";
+        int newId = -1;
         
         try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+             PreparedStatement pstmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
             
             pstmt.setString(1, book.getTitle());
             pstmt.setString(2, book.getAuthor());
@@ -137,14 +267,25 @@ public class BookDAO {
             pstmt.setString(12, book.getBookCondition());
             pstmt.setString(13, book.getContentRelevance());
             pstmt.setInt(14, book.getLoanDuration());
+            scores.bind(pstmt, 15, book);
             
             int affectedRows = pstmt.executeUpdate();
-            return affectedRows > 0;
+            if (affectedRows == 0) {
+                return false;
+            }
+            try (ResultSet keys = pstmt.getGeneratedKeys()) {
+                if (keys.next()) {
+                    newId = keys.getInt(1);
+                }
+            }
             
         } catch (SQLException e) {
             System.err.println("Error adding book: " + e.getMessage());
             return false;
         }
+        
+        cacheInsertedBook(newId);
+        return true;
     }
     
     /**
@@ -153,7 +294,8 @@ public class BookDAO {
      * @return true if successful, false otherwise
      */
     public boolean updateBook(Book book) {
-        String sql = "UPDATE books SET title = ?, author = ?, category = ?, publisher = ?, year = ?, pages = ?, rating = ?, price = ?, isbn = ?, description = ?, borrower_count = ?, book_condition = ?, content_relevance = ?, loan_duration = ? WHERE id = ?";
+        SPKScoreStore.ScoreColumns scores = SPKScoreStore.columns();
+        String sql = "UPDATE books SET title = ?, author = ?, category = ?, publisher = ?, year = ?, pages = ?, rating = ?, price = ?, isbn = ?, description = ?, borrower_count = ?, book_condition = ?, content_relevance = ?, loan_duration = ?" + scores.assignments() + " WHERE id = ?";
         
         try (Connection conn = DatabaseConnection.getConnection();
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
@@ -172,10 +314,14 @@ public class BookDAO {
             pstmt.setString(12, book.getBookCondition());
             pstmt.setString(13, book.getContentRelevance());
             pstmt.setInt(14, book.getLoanDuration());
-            pstmt.setInt(15, book.getId());
+            pstmt.setInt(scores.bind(pstmt, 15, book), book.getId());
             
             int affectedRows = pstmt.executeUpdate();
-            return affectedRows > 0;
+            if (affectedRows > 0) {
+                BookCatalogCache.getInstance().put(book);
+                return true;
+            }
+            return false;
             
         } catch (SQLException e) {
             System.err.println("Error updating book: " + e.getMessage());
@@ -197,7 +343,11 @@ public class BookDAO {
             pstmt.setInt(1, bookId);
             
             int affectedRows = pstmt.executeUpdate();
-            return affectedRows > 0;
+            if (affectedRows > 0) {
+                BookCatalogCache.getInstance().remove(bookId);
+                return true;
+            }
+            return false;
             
         } catch (SQLException e) {
             System.err.println("Error deleting book: " + e.getMessage());
@@ -206,12 +356,27 @@ public class BookDAO {
     }
     
     /**
-     * Get book by ID
+     * Get book by ID, with every column including the description
      * @param bookId ID of the book to get
      * @return Book object if found, null otherwise
      */
     public Book getBookById(int bookId) {
-        String sql = "SELECT * FROM books WHERE id = ?";
+        try {
+            return loadBookById(bookId);
+        } catch (SQLException e) {
+            System.err.println("Error getting book by ID: " + e.getMessage());
+            return null;
+        }
+    }
+    
+    /**
+     * Load one book from the database, bypassing the cache
+     * @param bookId ID of the book to load
+     * @return Book object if found, null otherwise
+     * @throws SQLException if the query fails
+     */
+    Book loadBookById(int bookId) throws SQLException {
+        String sql = "SELECT " + BookProjection.DETAIL.getSelectList() + " FROM books WHERE id = ?";
         
         try (Connection conn = DatabaseConnection.getConnection();
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
@@ -220,73 +385,42 @@ public class BookDAO {
             
             try (ResultSet rs = pstmt.executeQuery()) {
                 if (rs.next()) {
-                    return new Book(
-                        rs.getInt("id"),
-                        rs.getString("title"),
-                        rs.getString("author"),
-                        rs.getString("category"),
-                        rs.getString("publisher"),
-                        rs.getInt("year"),
-                        rs.getInt("pages"),
-                        rs.getDouble("rating"),
-                        rs.getDouble("price"),
-                        rs.getString("isbn"),
-                        rs.getString("description"),
-                        rs.getTimestamp("created_at"),
-                        rs.getInt("borrower_count"),
-                        rs.getString("book_condition"),
-                        rs.getString("content_relevance"),
-                        rs.getInt("loan_duration")
-                    );
+                    return new BookRowMapper(rs).mapRow(rs);
                 }
             }
-        } catch (SQLException e) {
-            System.err.println("Error getting book by ID: " + e.getMessage());
         }
         return null;
     }
     
     /**
-     * Get book by title and author
+     * Get book by title and author, with every column including the description
      * @param title title of the book
      * @param author author of the book
      * @return Book object if found, null otherwise
      */
     public Book getBookByTitleAndAuthor(String title, String author) {
-        String sql = "SELECT * FROM books WHERE title = ? AND author = ?";
-        
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            
-            pstmt.setString(1, title);
-            pstmt.setString(2, author);
-            
-            try (ResultSet rs = pstmt.executeQuery()) {
-                if (rs.next()) {
-                    return new Book(
-                        rs.getInt("id"),
-                        rs.getString("title"),
-                        rs.getString("author"),
-                        rs.getString("category"),
-                        rs.getString("publisher"),
-                        rs.getInt("year"),
-                        rs.getInt("pages"),
-                        rs.getDouble("rating"),
-                        rs.getDouble("price"),
-                        rs.getString("isbn"),
-                        rs.getString("description"),
-                        rs.getTimestamp("created_at"),
-                        rs.getInt("borrower_count"),
-                        rs.getString("book_condition"),
-                        rs.getString("content_relevance"),
-                        rs.getInt("loan_duration")
-                    );
-                }
-            }
+        try {
+            // The cache finds the id without a table scan; the full row is read by primary key
+            Book cached = BookCatalogCache.getInstance().getBookByTitleAndAuthor(title, author);
+            return cached == null ? null : loadBookById(cached.getId());
         } catch (SQLException e) {
             System.err.println("Error getting book by title and author: " + e.getMessage());
+            return null;
+        }
+    }
+    
+    /**
+     * Get book by ISBN
+     * @param isbn ISBN of the book
+     * @return Book object if found, null otherwise
+     */
+    public Book getBookByIsbn(String isbn) {
+        try {
+            return BookCatalogCache.getInstance().getBookByIsbn(isbn);
+        } catch (SQLException e) {
+            System.err.println("Error getting book by ISBN: " + e.getMessage());
+            return null;
         }
-        return null;
     }
     
     /**
@@ -295,22 +429,22 @@ public class BookDAO {
      * @return true if ISBN exists, false otherwise
      */
     public boolean isbnExists(String isbn) {
-        String sql = "SELECT COUNT(*) FROM books WHERE isbn = ?";
-        
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            
-            pstmt.setString(1, isbn);
-            
-            try (ResultSet rs = pstmt.executeQuery()) {
-                if (rs.next()) {
-                    return rs.getInt(1) > 0;
-                }
+        return getBookByIsbn(isbn) != null;
+    }
+    
+    // Fetch the row the database just created (id and created_at are generated there)
+    private void cacheInsertedBook(int bookId) {
+        BookCatalogCache cache = BookCatalogCache.getInstance();
+        try {
+            Book inserted = bookId > 0 ? loadBookById(bookId) : null;
+            if (inserted != null) {
+                cache.put(inserted);
+                return;
             }
         } catch (SQLException e) {
-            System.err.println("Error checking ISBN: " + e.getMessage());
+            System.err.println("Error reading added book: " + e.getMessage());
         }
-        return false;
+        cache.invalidate();
     }
     
     /**
@@ -320,128 +454,208 @@ public class BookDAO {
      * @return List of BookSPKResult objects
      */
     public List<BookSPKResult> getTopBooksSPK(int limit, double[] weights) {
-        List<BookSPKResult> results = new ArrayList<>();
-        List<Book> allBooks = getAllBooks();
-        
-        if (allBooks.isEmpty()) {
-            return results;
+        List<Book> cached = BookCatalogCache.getInstance().getCachedBooks();
+        if (cached == null) {
+            // Catalog not in memory: score rows in the database instead of loading it all
+            if (SPK_PUSH_DOWN) {
+                try {
+                    return SPKSqlRanking.top(limit, weights);
+                } catch (SQLException e) {
+                    System.err.println("Error ranking books in the database: " + e.getMessage());
+                }
+            }
+            return streamTopBooksSPK(limit, weights);
         }
-        
-        // Normalize weights
-        double totalWeight = 0;
-        for (double weight : weights) {
-            totalWeight += weight;
+        SPKRankingIndex ranking = getRanking(weights);
+        if (ranking == null) {
+            return getTopBooksSPK(cached, limit, weights);
         }
-        
-        for (int i = 0; i < weights.length; i++) {
-            weights[i] = weights[i] / totalWeight;
+        List<BookSPKResult> results = new ArrayList<>();
+        for (SPKRankingIndex.Entry entry : ranking.top(limit)) {
+            results.add(new BookSPKResult(entry.getBook(), entry.getScore()));
         }
+        return results;
+    }
+    
+    /**
+     * Get top books using SPK from an already loaded list of books
+     * @param books books to rank
+     * @param limit number of top books to return
+     * @param weights array of weights for criteria [borrowerCount, bookCondition, contentRelevance, loanDuration]
+     * @return List of BookSPKResult objects
+     */
+    public List<BookSPKResult> getTopBooksSPK(List<Book> books, int limit, double[] weights) {
+        List<BookSPKResult> results = new ArrayList<>();
         
-        // Calculate SPK scores
-        for (Book book : allBooks) {
-            double spkScore = calculateSPKScore(book, weights);
-            results.add(new BookSPKResult(book, spkScore));
+        if (books.isEmpty()) {
+            return results;
         }
         
-        // Sort by SPK score (descending)
-        results.sort((a, b) -> Double.compare(b.getSpkScore(), a.getSpkScore()));
+        // Score the whole catalog in one pass over primitive columns
+        SPKScoringEngine engine = SPKScoringEngine.fromBooks(books);
+        double[] scores = engine.score(SPKScoringEngine.normalizeWeights(weights));
         
-        // Return top results
-        return results.subList(0, Math.min(limit, results.size()));
+        // Keep only the best `limit` rows in a bounded heap instead of sorting everything
+        int[] top = TopKSelector.select(scores, limit);
+        for (int index : top) {
+            results.add(new BookSPKResult(engine.getBook(index), scores[index]));
+        }
+        return results;
     }
     
     /**
-     * Calculate SPK score for a book using new criteria
-     * @param book Book object
+     * Get top books using SPK by streaming the books table. Only id and the SPK
+     * columns are read, rows are scored as they arrive and only the best `limit`
+     * are kept, so memory does not grow with the catalog. Book objects (list view
+     * columns) are loaded for the winners only. Ties rank in catalog order, like getTopBooksSPK.
+     * @param limit number of top books to return
      * @param weights array of weights for criteria [borrowerCount, bookCondition, contentRelevance, loanDuration]
-     * @return SPK score
+     * @return List of BookSPKResult objects
      */
-    private double calculateSPKScore(Book book, double[] weights) {
-        // Calculate normalized scores for each criterion (0-1 scale)
-        
-        // 1. Jumlah Peminjam (Borrower Count) - Higher is better
-        double normalizedBorrowerCount = calculateBorrowerCountScore(book.getBorrowerCount());
-        
-        // 2. Kondisi Fisik Buku (Book Condition) - Higher is better
-        double normalizedBookCondition = calculateBookConditionScore(book.getBookCondition());
-        
-        // 3. Relevansi Isi Buku (Content Relevance) - Higher is better
-        double normalizedContentRelevance = calculateContentRelevanceScore(book.getContentRelevance());
-        
-        // 4. Durasi Peminjaman (Loan Duration) - Lower is better (shorter duration is preferred)
-        double normalizedLoanDuration = calculateLoanDurationScore(book.getLoanDuration());
+    public List<BookSPKResult> streamTopBooksSPK(int limit, double[] weights) {
+        List<BookSPKResult> results = new ArrayList<>();
+        if (limit <= 0) {
+            return results;
+        }
+        double[] normalized = SPKScoringEngine.normalizeWeights(weights);
+        TopKSelector.Running top = new TopKSelector.Running(limit);
+        // BookProjection.SPK: id, created_at, borrower_count, book_condition, content_relevance, loan_duration
+        String sql = "SELECT " + BookProjection.SPK.getSelectList() + " FROM books ORDER BY created_at DESC, id DESC";
         
-        // Calculate weighted sum
-        double score = (normalizedBorrowerCount * weights[0]) +
-                     (normalizedBookCondition * weights[1]) +
-                     (normalizedContentRelevance * weights[2]) +
-                     (normalizedLoanDuration * weights[3]);
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            try (PreparedStatement pstmt = conn.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+                pstmt.setFetchSize(STREAM_FETCH_SIZE);
+                
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) {
+                        double score = SPKScoringEngine.score(
+                            rs.getInt(3),
+                            SPKDataConverter.ConditionCode.of(rs.getString(4)).getLevel(),
+                            SPKDataConverter.RelevanceCode.of(rs.getString(5)).getLevel(),
+                            rs.getInt(6),
+                            normalized
+                        );
+                        top.offer(rs.getInt(1), score);
+                    }
+                }
+            }
+            
+            int[] ids = top.ids();
+            double[] scores = top.scores();
+            Map<Integer, Book> winners = loadBooksByIds(conn, ids);
+            for (int i = 0; i < ids.length; i++) {
+                Book book = winners.get(ids[i]);
+                if (book != null) {
+                    results.add(new BookSPKResult(book, scores[i]));
+                }
+            }
+        } catch (SQLException e) {
+            System.err.println("Error streaming SPK ranking: " + e.getMessage());
+        }
+        return results;
+    }
+    
+    // List view rows for a small set of ids, in one query
+    private Map<Integer, Book> loadBooksByIds(Connection conn, int[] ids) throws SQLException {
+        Map<Integer, Book> books = new HashMap<>();
+        if (ids.length == 0) {
+            return books;
+        }
+        StringBuilder sql = new StringBuilder("SELECT " + BookProjection.LIST_VIEW.getSelectList() + " FROM books WHERE id IN (");
+        for (int i = 0; i < ids.length; i++) {
+            sql.append(i == 0 ? "?" : ", ?");
+        }
+        sql.append(")");
         
-        return score;
+        try (PreparedStatement pstmt = conn.prepareStatement(sql.toString())) {
+            for (int i = 0; i < ids.length; i++) {
+                pstmt.setInt(i + 1, ids[i]);
+            }
+            try (ResultSet rs = pstmt.executeQuery()) {
+                RowMapper<Book> mapper = new BookRowMapper(rs);
+                while (rs.next()) {
+                    Book book = mapper.mapRow(rs);
+                    books.put(book.getId(), book);
+                }
+            }
+        }
+        return books;
     }
     
     /**
-     * Calculate borrower count score based on ranges
-     * @param borrowerCount number of borrowers
-     * @return normalized score (0-1)
+     * Rank every book using SPK. Use getTopBooksSPK when only the first few ranks are shown.
+     * @param weights array of weights for criteria [borrowerCount, bookCondition, contentRelevance, loanDuration]
+     * @return List of BookSPKResult objects for all books, best first
      */
-    private double calculateBorrowerCountScore(int borrowerCount) {
-        if (borrowerCount >= 1 && borrowerCount <= 20) return 0.2; // Bobot 1
-        else if (borrowerCount >= 21 && borrowerCount <= 40) return 0.4; // Bobot 2
-        else if (borrowerCount >= 41 && borrowerCount <= 60) return 0.6; // Bobot 3
-        else if (borrowerCount >= 61 && borrowerCount <= 80) return 0.8; // Bobot 4
-        else if (borrowerCount >= 81 && borrowerCount <= 100) return 1.0; // Bobot 5
-        else return 0.0; // Default for out of range
+    public List<BookSPKResult> getRankedBooksSPK(double[] weights) {
+        SPKRankingIndex ranking = getRanking(weights);
+        if (ranking == null) {
+            return getRankedBooksSPK(getAllBooks(), weights);
+        }
+        List<BookSPKResult> results = new ArrayList<>();
+        for (SPKRankingIndex.Entry entry : ranking.all()) {
+            results.add(new BookSPKResult(entry.getBook(), entry.getScore()));
+        }
+        return results;
     }
     
     /**
-     * Calculate book condition score
-     * @param bookCondition condition of the book
-     * @return normalized score (0-1)
+     * Get the rank of one book using SPK
+     * @param bookId ID of the book
+     * @param weights array of weights for criteria [borrowerCount, bookCondition, contentRelevance, loanDuration]
+     * @return 1-based rank, or -1 if the book does not exist
      */
-    private double calculateBookConditionScore(String bookCondition) {
-        if (bookCondition == null) return 0.0;
-        
-        switch (bookCondition.toLowerCase()) {
-            case "rusak berat": return 0.2; // Bobot 1
-            case "rusak ringan": return 0.4; // Bobot 2
-            case "sedikit baik": return 0.6; // Bobot 3
-            case "baik": return 0.8; // Bobot 4
-            case "sangat baik": return 1.0; // Bobot 5
-            default: return 0.0;
+    public int getBookRankSPK(int bookId, double[] weights) {
+        SPKRankingIndex ranking = getRanking(weights);
+        if (ranking != null) {
+            return ranking.rankOf(bookId);
         }
+        List<BookSPKResult> ranked = getRankedBooksSPK(getAllBooks(), weights);
+        for (int i = 0; i < ranked.size(); i++) {
+            if (ranked.get(i).getBook().getId() == bookId) {
+                return i + 1;
+            }
+        }
+        return -1;
     }
     
     /**
-     * Calculate content relevance score
-     * @param contentRelevance relevance of the book content
-     * @return normalized score (0-1)
+     * Get the maintained catalog ranking for these weights. A weight combination is
+     * only indexed once it has been asked for twice; one-off combinations (e.g. while
+     * moving sliders) are ranked with a single pass instead.
+     * @return ranking index, or null if the caller should rank the list itself
      */
-    private double calculateContentRelevanceScore(String contentRelevance) {
-        if (contentRelevance == null) return 0.0;
-        
-        switch (contentRelevance.toLowerCase()) {
-            case "tidak relevan": return 0.2; // Bobot 1
-            case "kurang relevan": return 0.4; // Bobot 2
-            case "cukup relevan": return 0.6; // Bobot 3
-            case "relevan": return 0.8; // Bobot 4
-            case "sangat relevan": return 1.0; // Bobot 5
-            default: return 0.0;
+    private SPKRankingIndex getRanking(double[] weights) {
+        double[] normalized = SPKScoringEngine.normalizeWeights(weights);
+        try {
+            return BookCatalogCache.getInstance().getRanking("SAW" + Arrays.toString(normalized),
+                    book -> SPKScoringEngine.score(book, normalized), 2);
+        } catch (SQLException e) {
+            System.err.println("Error getting SPK ranking: " + e.getMessage());
+            return null;
         }
     }
     
     /**
-     * Calculate loan duration score (shorter duration is better)
-     * @param loanDuration duration in days
-     * @return normalized score (0-1)
+     * Rank every book in an already loaded list using SPK
+     * @param books books to rank
+     * @param weights array of weights for criteria [borrowerCount, bookCondition, contentRelevance, loanDuration]
+     * @return List of BookSPKResult objects for all books, best first
      */
-    private double calculateLoanDurationScore(int loanDuration) {
-        if (loanDuration < 3) return 1.0; // Sangat Singkat - Bobot 5
-        else if (loanDuration >= 3 && loanDuration <= 6) return 0.8; // Singkat - Bobot 4
-        else if (loanDuration >= 7 && loanDuration <= 10) return 0.6; // Sedang - Bobot 3
-        else if (loanDuration >= 11 && loanDuration <= 14) return 0.4; // Lama - Bobot 2
-        else if (loanDuration > 14) return 0.2; // Sangat Lama - Bobot 1
-        else return 0.0; // Default
+    public List<BookSPKResult> getRankedBooksSPK(List<Book> books, double[] weights) {
+        List<BookSPKResult> results = new ArrayList<>();
+        
+        if (books.isEmpty()) {
+            return results;
+        }
+        
+        SPKScoringEngine engine = SPKScoringEngine.fromBooks(books);
+        double[] scores = engine.score(SPKScoringEngine.normalizeWeights(weights));
+        
+        for (int index : SPKScoringEngine.rankOrder(scores)) {
+            results.add(new BookSPKResult(engine.getBook(index), scores[index]));
+        }
+        return results;
     }
     
     /**
@@ -0,0 +1,828 @@
+package com.bookspk;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FilterReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Bulk import of books from CSV or JSON, e.g. a supplier catalog.
+ * <p>
+ * Existing ISBNs are read once into a set, so checking a row costs no query.
+ * Rows are then written in batches with addBatch/executeBatch, each batch in
+ * its own transaction. DatabaseConnection enables rewriteBatchedStatements,
+ * so the driver sends a batch as one multi-row INSERT. A failed batch is
+ * rolled back and reported, and the import continues with the next one.
+ * <p>
+ * CSV files need a header row. Column names follow the books table
+ * (borrower_count) or the Book properties (borrowerCount). JSON input is an
+ * array of objects with the same keys. Missing SPK criteria get the same
+ * defaults as the table.
+ */
+public class BookImporter {
+    private static final int DEFAULT_BATCH_SIZE = Integer.getInteger("bookspk.import.batchSize", 500);
+    // Row errors kept in the result; the rest are only counted
+    private static final int MAX_REPORTED_ERRORS = 100;
+
+    // Book columns; the stored SPK score columns (SPKScoreStore.ScoreColumns) follow each list
+    private static final String INSERT_COLUMNS = "INSERT INTO books (title, author, category, publisher, year, pages, rating, price, isbn, description, borrower_count, book_condition, content_relevance, loan_duration";
+    private static final String INSERT_VALUES = ") VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?";
+    private static final String UPSERT_UPDATES = " ON DUPLICATE KEY UPDATE title = VALUES(title), author = VALUES(author), category = VALUES(category), publisher = VALUES(publisher), year = VALUES(year), pages = VALUES(pages), rating = VALUES(rating), price = VALUES(price), description = VALUES(description), borrower_count = VALUES(borrower_count), book_condition = VALUES(book_condition), content_relevance = VALUES(content_relevance), loan_duration = VALUES(loan_duration)";
+
+    private static final List<String> CONDITIONS = Arrays.asList("Rusak Berat", "Rusak Ringan", "Sedikit Baik", "Baik", "Sangat Baik");
+    private static final List<String> RELEVANCES = Arrays.asList("Tidak Relevan", "Kurang Relevan", "Cukup Relevan", "Relevan", "Sangat Relevan");
+
+    /**
+     * What to do with a row whose ISBN is already in the table
+     */
+    public enum Mode {
+        // Skip it
+        INSERT_NEW,
+        // Overwrite the stored book with the imported values
+        UPSERT
+    }
+
+    /**
+     * A batch that could not be written. Rows rejected or skipped between its
+     * first and last input row were not part of it, so size can be smaller than
+     * the row range.
+     */
+    public static final class BatchFailure {
+        private final int batchNumber;
+        private final long firstRow;
+        private final long lastRow;
+        private final int size;
+        private final String message;
+
+        BatchFailure(int batchNumber, long firstRow, long lastRow, int size, String message) {
+            this.batchNumber = batchNumber;
+            this.firstRow = firstRow;
+            this.lastRow = lastRow;
+            this.size = size;
+            this.message = message;
+        }
+
+        public int getBatchNumber() { return batchNumber; }
+        public long getFirstRow() { return firstRow; }
+        public long getLastRow() { return lastRow; }
+        public int getSize() { return size; }
+        public String getMessage() { return message; }
+
+        @Override
+        public String toString() {
+            return "Batch " + batchNumber + " (baris " + firstRow + "-" + lastRow + ", " + size + " buku): " + message;
+        }
+    }
+
+    /**
+     * Outcome of an import
+     */
+    public static final class ImportResult {
+        private long rowsRead;
+        private long inserted;
+        private long updated;
+        private long skipped;
+        private long rejected;
+        private long elapsedMillis;
+        private String inputError;
+        private final List<String> rowErrors = new ArrayList<>();
+        private final List<BatchFailure> batchFailures = new ArrayList<>();
+
+        public long getRowsRead() { return rowsRead; }
+        public long getInserted() { return inserted; }
+        public long getUpdated() { return updated; }
+        // Existing or repeated ISBNs in INSERT_NEW mode
+        public long getSkipped() { return skipped; }
+        // Rows that could not be parsed or failed validation
+        public long getRejected() { return rejected; }
+        public long getElapsedMillis() { return elapsedMillis; }
+        // Set when the input could not be read to the end; rows before it were imported
+        public String getInputError() { return inputError; }
+        public List<String> getRowErrors() { return Collections.unmodifiableList(rowErrors); }
+        public List<BatchFailure> getBatchFailures() { return Collections.unmodifiableList(batchFailures); }
+
+        /**
+         * @return rows written (inserted or updated), not counting failed batches
+         */
+        public long getWritten() {
+            return inserted + updated;
+        }
+
+        /**
+         * @return input rows processed per second
+         */
+        public double getRowsPerSecond() {
+            return elapsedMillis == 0 ? rowsRead * 1000.0 : rowsRead * 1000.0 / elapsedMillis;
+        }
+
+        private void rowError(String message) {
+            rejected++;
+            if (rowErrors.size() < MAX_REPORTED_ERRORS) {
+                rowErrors.add(message);
+            }
+        }
+
+        @Override
+        public String toString() {
+            return String.format("ImportResult{read=%d, inserted=%d, updated=%d, skipped=%d, rejected=%d, failedBatches=%d, %.0f rows/s%s}",
+                    rowsRead, inserted, updated, skipped, rejected, batchFailures.size(), getRowsPerSecond(),
+                    inputError == null ? "" : ", inputError=" + inputError);
+        }
+    }
+
+    private final Mode mode;
+    private final int batchSize;
+
+    public BookImporter() {
+        this(Mode.INSERT_NEW);
+    }
+
+    /**
+     * @param mode how rows with an existing ISBN are handled
+     */
+    public BookImporter(Mode mode) {
+        this(mode, DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * @param mode how rows with an existing ISBN are handled
+     * @param batchSize rows per batch and transaction
+     */
+    public BookImporter(Mode mode, int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("Invalid batch size: " + batchSize);
+        }
+        this.mode = mode;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Import a .csv or .json file
+     * @param file file to import; the format is chosen by extension
+     * @param progress progress sink, e.g. from BackgroundTasks; may be null
+     * @return import outcome
+     * @throws IOException if the file cannot be read
+     * @throws SQLException if the existing ISBNs cannot be read
+     */
+    public ImportResult importFile(File file, BackgroundTasks.Progress progress) throws IOException, SQLException {
+        long length = Math.max(1, file.length());
+        try (CountingReader reader = new CountingReader(new BufferedReader(
+                new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8)))) {
+            Iterator<Book> books = file.getName().toLowerCase(Locale.ROOT).endsWith(".json")
+                    ? readJson(reader)
+                    : readCsv(reader);
+            return importBooks(books, progress, () -> (int) Math.min(99, reader.count * 100 / length));
+        }
+    }
+
+    /**
+     * Import a stream of books
+     * @param books books to import; next() may throw IllegalArgumentException
+     *              for a row that cannot be parsed, which is then counted as rejected
+     * @param progress progress sink, e.g. from BackgroundTasks; may be null
+     * @return import outcome
+     * @throws SQLException if the existing ISBNs cannot be read
+     */
+    public ImportResult importBooks(Iterator<Book> books, BackgroundTasks.Progress progress) throws SQLException {
+        return importBooks(books, progress, () -> 0);
+    }
+
+    private interface PercentDone {
+        int get();
+    }
+
+    private ImportResult importBooks(Iterator<Book> books, BackgroundTasks.Progress progress,
+                                     PercentDone percentDone) throws SQLException {
+        ImportResult result = new ImportResult();
+        long start = System.nanoTime();
+
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            Set<String> knownIsbns = loadIsbns(conn);
+            conn.setAutoCommit(false);
+
+            SPKScoreStore.ScoreColumns scores = SPKScoreStore.columns();
+            try (PreparedStatement pstmt = conn.prepareStatement(sql(mode, scores))) {
+                List<String> batchNewIsbns = new ArrayList<>();
+                int batchRows = 0;
+                int batchUpdates = 0;
+                int batchNumber = 0;
+                long batchFirstRow = 1;
+                long batchLastRow = 1;
+
+                while (true) {
+                    if (progress != null && progress.isCancelled()) {
+                        break;
+                    }
+                    Book book;
+                    try {
+                        if (!books.hasNext()) {
+                            break;
+                        }
+                        result.rowsRead++;
+                        book = books.next();
+                    } catch (IllegalArgumentException e) {
+                        result.rowError("Baris " + result.rowsRead + ": " + e.getMessage());
+                        continue;
+                    } catch (UncheckedIOException e) {
+                        // Broken input: keep what was imported so far and stop
+                        result.inputError = e.getCause().getMessage();
+                        break;
+                    }
+                    String error = validate(book);
+                    if (error != null) {
+                        result.rowError("Baris " + result.rowsRead + " (ISBN " + book.getIsbn() + "): " + error);
+                        continue;
+                    }
+
+                    boolean isNew = knownIsbns.add(book.getIsbn());
+                    if (!isNew && mode == Mode.INSERT_NEW) {
+                        result.skipped++;
+                        continue;
+                    }
+                    if (isNew) {
+                        batchNewIsbns.add(book.getIsbn());
+                    } else {
+                        batchUpdates++;
+                    }
+                    if (batchRows == 0) {
+                        batchFirstRow = result.rowsRead;
+                    }
+                    batchLastRow = result.rowsRead;
+                    bind(pstmt, book, scores);
+                    pstmt.addBatch();
+                    batchRows++;
+
+                    if (batchRows == batchSize) {
+                        flush(conn, pstmt, ++batchNumber, batchFirstRow, batchLastRow, batchRows, batchNewIsbns, batchUpdates, knownIsbns, result);
+                        batchRows = 0;
+                        batchUpdates = 0;
+                        batchNewIsbns.clear();
+                        report(progress, percentDone.get(), result, start);
+                    }
+                }
+                if (batchRows > 0) {
+                    flush(conn, pstmt, ++batchNumber, batchFirstRow, batchLastRow, batchRows, batchNewIsbns, batchUpdates, knownIsbns, result);
+                }
+            }
+        } finally {
+            result.elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+            if (result.getWritten() > 0) {
+                // Cheaper to reload once than to apply thousands of single-book updates
+                BookCatalogCache.getInstance().invalidate();
+            }
+        }
+        report(progress, 100, result, start);
+        return result;
+    }
+
+    private void flush(Connection conn, PreparedStatement pstmt, int batchNumber, long firstRow, long lastRow, int rows,
+                       List<String> newIsbns, int updates, Set<String> knownIsbns, ImportResult result) {
+        try {
+            pstmt.executeBatch();
+            conn.commit();
+            result.inserted += newIsbns.size();
+            result.updated += updates;
+        } catch (SQLException e) {
+            try {
+                conn.rollback();
+            } catch (SQLException rollbackError) {
+                System.err.println("Error rolling back import batch: " + rollbackError.getMessage());
+            }
+            try {
+                pstmt.clearBatch();
+            } catch (SQLException ignored) {
+                // Statement is reused for the next batch either way
+            }
+            // The batch's new ISBNs were not written, so a later row with one of them is new again
+            knownIsbns.removeAll(newIsbns);
+            result.batchFailures.add(new BatchFailure(batchNumber, firstRow, lastRow, rows, e.getMessage()));
+            System.err.println("Error importing books, batch " + batchNumber + ": " + e.getMessage());
+        }
+    }
+
+    private static void report(BackgroundTasks.Progress progress, int percent, ImportResult result, long start) {
+        if (progress == null) {
+            return;
+        }
+        double seconds = Math.max(1e-3, (System.nanoTime() - start) / 1e9);
+        progress.update(percent, String.format("%d baris diproses (%.0f baris/detik)",
+                result.rowsRead, result.rowsRead / seconds));
+    }
+
+    private static Set<String> loadIsbns(Connection conn) throws SQLException {
+        Set<String> isbns = new HashSet<>();
+        try (PreparedStatement pstmt = conn.prepareStatement("SELECT isbn FROM books")) {
+            pstmt.setFetchSize(BookDAO.STREAM_FETCH_SIZE);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    isbns.add(rs.getString(1));
+                }
+            }
+        }
+        return isbns;
+    }
+
+    private static String sql(Mode mode, SPKScoreStore.ScoreColumns scores) {
+        String insert = INSERT_COLUMNS + scores.insertList() + INSERT_VALUES + scores.placeholders() + ")";
+        return mode == Mode.UPSERT ? insert + UPSERT_UPDATES + scores.upsertAssignments() : insert;
+    }
+
+    private static void bind(PreparedStatement pstmt, Book book, SPKScoreStore.ScoreColumns scores) throws SQLException {
+        pstmt.setString(1, book.getTitle());
+        pstmt.setString(2, book.getAuthor());
+        pstmt.setString(3, book.getCategory());
+        pstmt.setString(4, book.getPublisher());
+        pstmt.setInt(5, book.getYear());
+        pstmt.setInt(6, book.getPages());
+        pstmt.setDouble(7, book.getRating());
+        pstmt.setDouble(8, book.getPrice());
+        pstmt.setString(9, book.getIsbn());
+        pstmt.setString(10, book.getDescription());
+        pstmt.setInt(11, book.getBorrowerCount());
+        pstmt.setString(12, book.getBookCondition());
+        pstmt.setString(13, book.getContentRelevance());
+        pstmt.setInt(14, book.getLoanDuration());
+        scores.bind(pstmt, 15, book);
+    }
+
+    /**
+     * Check a book against the books table constraints, so one bad row does
+     * not fail its whole batch
+     * @param book book to check
+     * @return error message, or null if the book can be written
+     */
+    static String validate(Book book) {
+        if (isBlank(book.getTitle()) || isBlank(book.getAuthor()) || isBlank(book.getCategory()) || isBlank(book.getPublisher())) {
+            return "judul, penulis, kategori dan penerbit wajib diisi";
+        }
+        if (book.getIsbn() == null || book.getIsbn().length() < 10 || book.getIsbn().length() > 20) {
+            return "ISBN harus 10-20 karakter";
+        }
+        if (book.getYear() < 1900 || book.getYear() > 2024) {
+            return "tahun harus antara 1900 dan 2024";
+        }
+        if (book.getPages() <= 0 || book.getPages() > 5000) {
+            return "halaman harus antara 1 dan 5000";
+        }
+        if (book.getRating() < 0.0 || book.getRating() > 5.0) {
+            return "rating harus antara 0.0 dan 5.0";
+        }
+        if (book.getPrice() < 0.0) {
+            return "harga tidak boleh negatif";
+        }
+        if (book.getBorrowerCount() < 0 || book.getBorrowerCount() > 1000) {
+            return "jumlah peminjam harus antara 0 dan 1000";
+        }
+        if (book.getLoanDuration() < 1 || book.getLoanDuration() > 30) {
+            return "durasi peminjaman harus antara 1 dan 30 hari";
+        }
+        if (!CONDITIONS.contains(book.getBookCondition())) {
+            return "kondisi fisik buku tidak dikenal: " + book.getBookCondition();
+        }
+        if (!RELEVANCES.contains(book.getContentRelevance())) {
+            return "relevansi isi buku tidak dikenal: " + book.getContentRelevance();
+        }
+        return null;
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.trim().isEmpty();
+    }
+
+    // Readers
+
+    /**
+     * Read books from CSV with a header row. Fields may be quoted ("a, b"),
+     * with "" for a quote inside a quoted field. The separator is ',' or, when
+     * the header has no comma, ';'.
+     * @param reader CSV text
+     * @return books in file order; next() throws IllegalArgumentException for a bad row
+     */
+    public static Iterator<Book> readCsv(Reader reader) {
+        return new Iterator<Book>() {
+            private List<String> header;
+            private char separator = ',';
+            private List<String> next;
+            private long line = 1;
+
+            @Override
+            public boolean hasNext() {
+                if (next == null) {
+                    try {
+                        if (header == null) {
+                            header = readHeader();
+                        }
+                        next = header == null ? null : readRecord(reader, separator);
+                        // Skip blank lines
+                        while (next != null && next.size() == 1 && next.get(0).isEmpty()) {
+                            line++;
+                            next = readRecord(reader, separator);
+                        }
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }
+                return next != null;
+            }
+
+            @Override
+            public Book next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                List<String> record = next;
+                next = null;
+                line++;
+                if (record.size() != header.size()) {
+                    throw new IllegalArgumentException("baris CSV " + line + " punya " + record.size()
+                            + " kolom, header punya " + header.size());
+                }
+                Map<String, String> fields = new HashMap<>();
+                for (int i = 0; i < header.size(); i++) {
+                    fields.put(header.get(i), record.get(i));
+                }
+                return toBook(fields);
+            }
+
+            private List<String> readHeader() throws IOException {
+                StringBuilder first = new StringBuilder();
+                int c;
+                while ((c = reader.read()) != -1 && c != '\n') {
+                    first.append((char) c);
+                }
+                if (first.length() == 0 && c == -1) {
+                    return null;
+                }
+                String text = first.toString();
+                if (!text.isEmpty() && text.charAt(0) == '\uFEFF') {
+                    text = text.substring(1);
+                }
+                if (text.indexOf(',') < 0 && text.indexOf(';') >= 0) {
+                    separator = ';';
+                }
+                List<String> names = new ArrayList<>();
+                for (String name : readRecord(new java.io.StringReader(text), separator)) {
+                    names.add(normalizeKey(name));
+                }
+                return names;
+            }
+        };
+    }
+
+    // One CSV record, or null at end of input
+    private static List<String> readRecord(Reader reader, char separator) throws IOException {
+        int c = reader.read();
+        if (c == -1) {
+            return null;
+        }
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        boolean afterQuote = false;
+        while (c != -1) {
+            if (afterQuote) {
+                afterQuote = false;
+                if (c == '"') {
+                    // "" inside a quoted field
+                    field.append('"');
+                    c = reader.read();
+                    continue;
+                }
+                quoted = false;
+            }
+            if (quoted) {
+                if (c == '"') {
+                    afterQuote = true;
+                } else {
+                    field.append((char) c);
+                }
+            } else if (c == '"' && field.length() == 0) {
+                quoted = true;
+            } else if (c == separator) {
+                fields.add(field.toString().trim());
+                field.setLength(0);
+            } else if (c == '\n') {
+                break;
+            } else if (c != '\r') {
+                field.append((char) c);
+            }
+            c = reader.read();
+        }
+        fields.add(field.toString().trim());
+        return fields;
+    }
+
+    /**
+     * Read books from a JSON array of objects, one object at a time. Nested
+     * values are skipped.
+     * @param reader JSON text
+     * @return books in file order; next() throws IllegalArgumentException for a bad object
+     */
+    public static Iterator<Book> readJson(Reader reader) {
+        return new Iterator<Book>() {
+            private final JsonScanner scanner = new JsonScanner(reader);
+            private boolean started;
+            private Boolean hasNext;
+
+            @Override
+            public boolean hasNext() {
+                if (hasNext == null) {
+                    try {
+                        int c;
+                        if (!started) {
+                            started = true;
+                            c = scanner.skipWhitespace();
+                            if (c == -1) {
+                                return hasNext = false;
+                            }
+                            scanner.expect('[');
+                            c = scanner.skipWhitespace();
+                            if (c == ']') {
+                                scanner.read();
+                                return hasNext = false;
+                            }
+                        } else {
+                            c = scanner.skipWhitespace();
+                            if (c == ',') {
+                                scanner.read();
+                            } else {
+                                scanner.expect(']');
+                                return hasNext = false;
+                            }
+                        }
+                        hasNext = true;
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }
+                return hasNext;
+            }
+
+            @Override
+            public Book next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                hasNext = null;
+                try {
+                    return toBook(scanner.readObject());
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        };
+    }
+
+    // Minimal pull scanner for flat JSON objects
+    private static final class JsonScanner {
+        private final Reader reader;
+        private int peeked = -2;
+
+        JsonScanner(Reader reader) {
+            this.reader = reader;
+        }
+
+        int read() throws IOException {
+            if (peeked != -2) {
+                int c = peeked;
+                peeked = -2;
+                return c;
+            }
+            return reader.read();
+        }
+
+        int skipWhitespace() throws IOException {
+            int c = read();
+            while (c == ' ' || c == '\n' || c == '\r' || c == '\t' || c == '\uFEFF') {
+                c = read();
+            }
+            peeked = c;
+            return c;
+        }
+
+        void expect(char expected) throws IOException {
+            int c = skipWhitespace();
+            read();
+            if (c != expected) {
+                // Malformed structure cannot be skipped safely, so it ends the import
+                throw new IOException("JSON tidak valid: diharapkan '" + expected + "'"
+                        + (c == -1 ? " sebelum akhir file" : ", ditemukan '" + (char) c + "'"));
+            }
+        }
+
+        Map<String, String> readObject() throws IOException {
+            Map<String, String> fields = new HashMap<>();
+            expect('{');
+            if (skipWhitespace() == '}') {
+                read();
+                return fields;
+            }
+            while (true) {
+                skipWhitespace();
+                expect('"');
+                String key = readString();
+                expect(':');
+                String value = readValue();
+                fields.put(normalizeKey(key), value);
+                int c = skipWhitespace();
+                read();
+                if (c == '}') {
+                    return fields;
+                }
+                if (c != ',') {
+                    throw new IOException("JSON tidak valid: diharapkan ',' atau '}'");
+                }
+            }
+        }
+
+        // Scalar as text (null for JSON null); objects and arrays are skipped and read as null
+        private String readValue() throws IOException {
+            int c = skipWhitespace();
+            if (c == '"') {
+                read();
+                return readString();
+            }
+            if (c == '{' || c == '[') {
+                skipNested();
+                return null;
+            }
+            StringBuilder literal = new StringBuilder();
+            while (c != -1 && c != ',' && c != '}' && c != ']' && !Character.isWhitespace(c)) {
+                literal.append((char) read());
+                c = peek();
+            }
+            String text = literal.toString();
+            return "null".equals(text) ? null : text;
+        }
+
+        private int peek() throws IOException {
+            if (peeked == -2) {
+                peeked = reader.read();
+            }
+            return peeked;
+        }
+
+        private String readString() throws IOException {
+            StringBuilder text = new StringBuilder();
+            int c;
+            while ((c = read()) != '"') {
+                if (c == -1) {
+                    throw new IOException("JSON tidak valid: string tidak ditutup");
+                }
+                if (c == '\\') {
+                    int escaped = read();
+                    switch (escaped) {
+                        case 'n': text.append('\n'); break;
+                        case 't': text.append('\t'); break;
+                        case 'r': text.append('\r'); break;
+                        case 'b': text.append('\b'); break;
+                        case 'f': text.append('\f'); break;
+                        case 'u':
+                            char[] hex = new char[4];
+                            for (int i = 0; i < 4; i++) {
+                                hex[i] = (char) read();
+                            }
+                            text.append((char) Integer.parseInt(new String(hex), 16));
+                            break;
+                        default: text.append((char) escaped);
+                    }
+                } else {
+                    text.append((char) c);
+                }
+            }
+            return text.toString();
+        }
+
+        private void skipNested() throws IOException {
+            int depth = 0;
+            do {
+                int c = read();
+                if (c == -1) {
+                    throw new IOException("JSON tidak valid: akhir file di dalam nilai bersarang");
+                }
+                if (c == '"') {
+                    readString();
+                } else if (c == '{' || c == '[') {
+                    depth++;
+                } else if (c == '}' || c == ']') {
+                    depth--;
+                }
+            } while (depth > 0);
+        }
+    }
+
+    // "Borrower Count", "borrower_count" and "borrowerCount" all map to "borrowercount"
+    private static String normalizeKey(String key) {
+        StringBuilder normalized = new StringBuilder(key.length());
+        for (int i = 0; i < key.length(); i++) {
+            char c = key.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                normalized.append(Character.toLowerCase(c));
+            }
+        }
+        return normalized.toString();
+    }
+
+    private static Book toBook(Map<String, String> fields) {
+        Book book = new Book();
+        book.setTitle(text(fields, "title"));
+        book.setAuthor(text(fields, "author"));
+        book.setCategory(text(fields, "category"));
+        book.setPublisher(text(fields, "publisher"));
+        book.setYear(intValue(fields, "year", 0));
+        book.setPages(intValue(fields, "pages", 0));
+        book.setRating(doubleValue(fields, "rating", 0.0));
+        book.setPrice(doubleValue(fields, "price", 0.0));
+        book.setIsbn(text(fields, "isbn"));
+        book.setDescription(text(fields, "description"));
+        // Same defaults as the books table
+        book.setBorrowerCount(intValue(fields, "borrowercount", 0));
+        String condition = text(fields, "bookcondition");
+        book.setBookCondition(condition == null ? "Baik" : condition);
+        String relevance = text(fields, "contentrelevance");
+        book.setContentRelevance(relevance == null ? "Relevan" : relevance);
+        book.setLoanDuration(intValue(fields, "loanduration", 7));
+        return book;
+    }
+
+    private static String text(Map<String, String> fields, String key) {
+        String value = fields.get(key);
+        if (value == null) {
+            return null;
+        }
+        value = value.trim();
+        return value.isEmpty() ? null : value;
+    }
+
+    private static int intValue(Map<String, String> fields, String key, int defaultValue) {
+        String value = text(fields, key);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(key + " bukan angka bulat: " + value);
+        }
+    }
+
+    private static double doubleValue(Map<String, String> fields, String key, double defaultValue) {
+        String value = text(fields, key);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Double.parseDouble(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(key + " bukan angka: " + value);
+        }
+    }
+
+    // Counts characters read, for progress on file imports
+    private static final class CountingReader extends FilterReader {
+        private long count;
+
+        CountingReader(Reader in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int c = super.read();
+            if (c != -1) {
+                count++;
+            }
+            return c;
+        }
+
+        @Override
+        public int read(char[] buffer, int offset, int length) throws IOException {
+            int n = super.read(buffer, offset, length);
+            if (n > 0) {
+                count += n;
+            }
+            return n;
+        }
+
+    }
+}
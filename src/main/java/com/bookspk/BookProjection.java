@@ -0,0 +1,80 @@
+package com.bookspk;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Column sets for reading the books table, so each screen only transfers and
+ * decodes what it shows. Columns outside the projection are left at their
+ * default value in the Book that is read.
+ */
+public enum BookProjection {
+    // Table grids: everything except the description TEXT
+    LIST_VIEW(Column.ID, Column.TITLE, Column.AUTHOR, Column.CATEGORY, Column.PUBLISHER, Column.YEAR,
+              Column.PAGES, Column.RATING, Column.PRICE, Column.ISBN, Column.CREATED_AT,
+              Column.BORROWER_COUNT, Column.BOOK_CONDITION, Column.CONTENT_RELEVANCE, Column.LOAN_DURATION),
+    // SPK ranking: id, catalog order and the criteria columns
+    SPK(Column.ID, Column.CREATED_AT, Column.BORROWER_COUNT, Column.BOOK_CONDITION,
+        Column.CONTENT_RELEVANCE, Column.LOAN_DURATION),
+    // Detail view and edit form: the full row
+    DETAIL(Column.values());
+
+    /**
+     * Columns of the books table
+     */
+    public enum Column {
+        ID("id"),
+        TITLE("title"),
+        AUTHOR("author"),
+        CATEGORY("category"),
+        PUBLISHER("publisher"),
+        YEAR("year"),
+        PAGES("pages"),
+        RATING("rating"),
+        PRICE("price"),
+        ISBN("isbn"),
+        DESCRIPTION("description"),
+        CREATED_AT("created_at"),
+        BORROWER_COUNT("borrower_count"),
+        BOOK_CONDITION("book_condition"),
+        CONTENT_RELEVANCE("content_relevance"),
+        LOAN_DURATION("loan_duration");
+
+        private final String name;
+
+        Column(String name) {
+            this.name = name;
+        }
+
+        public String getName() { return name; }
+    }
+
+    private final Set<Column> columns;
+    private final String selectList;
+
+    BookProjection(Column... columns) {
+        this.columns = EnumSet.noneOf(Column.class);
+        StringBuilder select = new StringBuilder();
+        for (Column column : columns) {
+            this.columns.add(column);
+            if (select.length() > 0) select.append(", ");
+            select.append(column.name);
+        }
+        this.selectList = select.toString();
+    }
+
+    /**
+     * @return comma separated column list for a SELECT clause
+     */
+    public String getSelectList() {
+        return selectList;
+    }
+
+    /**
+     * @param column column to check
+     * @return true if the projection reads the column
+     */
+    public boolean includes(Column column) {
+        return columns.contains(column);
+    }
+}
@@ -0,0 +1,61 @@
+package com.bookspk;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+
+/**
+ * Reads books from a SELECT on the books table. Whichever BookProjection
+ * columns the query selected are read; the rest keep their default value.
+ * Column positions are taken from the result set metadata when the mapper is
+ * created, so each row costs one getter per selected column and no name lookups.
+ */
+public class BookRowMapper implements RowMapper<Book> {
+    private static final BookProjection.Column[] COLUMNS = BookProjection.Column.values();
+
+    // 1-based result set index per Column ordinal, 0 if the column was not selected
+    private final int[] index = new int[COLUMNS.length];
+
+    /**
+     * @param rs result set to read; only its metadata is used here
+     * @throws SQLException if the metadata cannot be read
+     */
+    public BookRowMapper(ResultSet rs) throws SQLException {
+        ResultSetMetaData meta = rs.getMetaData();
+        for (int i = 1, n = meta.getColumnCount(); i <= n; i++) {
+            String label = meta.getColumnLabel(i);
+            for (BookProjection.Column column : COLUMNS) {
+                if (column.getName().equalsIgnoreCase(label)) {
+                    index[column.ordinal()] = i;
+                    break;
+                }
+            }
+        }
+        if (index[BookProjection.Column.ID.ordinal()] == 0) {
+            throw new SQLException("Result set has no id column");
+        }
+    }
+
+    @Override
+    public Book mapRow(ResultSet rs) throws SQLException {
+        Book book = new Book();
+        int i;
+        book.setId(rs.getInt(index[BookProjection.Column.ID.ordinal()]));
+        if ((i = index[BookProjection.Column.TITLE.ordinal()]) > 0) book.setTitle(rs.getString(i));
+        if ((i = index[BookProjection.Column.AUTHOR.ordinal()]) > 0) book.setAuthor(rs.getString(i));
+        if ((i = index[BookProjection.Column.CATEGORY.ordinal()]) > 0) book.setCategory(rs.getString(i));
+        if ((i = index[BookProjection.Column.PUBLISHER.ordinal()]) > 0) book.setPublisher(rs.getString(i));
+        if ((i = index[BookProjection.Column.YEAR.ordinal()]) > 0) book.setYear(rs.getInt(i));
+        if ((i = index[BookProjection.Column.PAGES.ordinal()]) > 0) book.setPages(rs.getInt(i));
+        if ((i = index[BookProjection.Column.RATING.ordinal()]) > 0) book.setRating(rs.getDouble(i));
+        if ((i = index[BookProjection.Column.PRICE.ordinal()]) > 0) book.setPrice(rs.getDouble(i));
+        if ((i = index[BookProjection.Column.ISBN.ordinal()]) > 0) book.setIsbn(rs.getString(i));
+        if ((i = index[BookProjection.Column.DESCRIPTION.ordinal()]) > 0) book.setDescription(rs.getString(i));
+        if ((i = index[BookProjection.Column.CREATED_AT.ordinal()]) > 0) book.setCreatedAt(rs.getTimestamp(i));
+        if ((i = index[BookProjection.Column.BORROWER_COUNT.ordinal()]) > 0) book.setBorrowerCount(rs.getInt(i));
+        if ((i = index[BookProjection.Column.BOOK_CONDITION.ordinal()]) > 0) book.setBookCondition(rs.getString(i));
+        if ((i = index[BookProjection.Column.CONTENT_RELEVANCE.ordinal()]) > 0) book.setContentRelevance(rs.getString(i));
+        if ((i = index[BookProjection.Column.LOAN_DURATION.ordinal()]) > 0) book.setLoanDuration(rs.getInt(i));
+        return book;
+    }
+}
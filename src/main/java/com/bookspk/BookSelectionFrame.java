@@ -2,13 +2,11 @@ package com.bookspk;
 
 import javax.swing.*;
 import javax.swing.border.EmptyBorder;
-import javax.swing.table.DefaultTableModel;
 import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
-import java.util.List;
 
 /**
  * Main Book Selection Frame with SPK Analysis
@@ -18,13 +16,19 @@ public class BookSelectionFrame extends JFrame {
     private User currentUser;
     private BookDAO bookDAO;
     private JTable bookTable;
-    private DefaultTableModel tableModel;
+    private BookTableModel tableModel;
     private JComboBox<String> categoryComboBox;
     private JButton spkButton;
     private JButton crudButton;
     private JButton editProfileButton;
     private JButton logoutButton;
     private JLabel welcomeLabel;
+    private JButton printPDFButton;
+    // Follows the exports started from this window on the export button
+    private ExportTracker exports;
+    
+    // Opening another book's details supersedes the lookup still running
+    private final BackgroundTasks.Lane detailLane = BackgroundTasks.newLane();
     
     public BookSelectionFrame(User user) {
         this.currentUser = user;
@@ -146,10 +150,11 @@ public class BookSelectionFrame extends JFrame {
         
         categoryComboBox = new JComboBox<>();
         categoryComboBox.addItem("Semua Kategori");
-        List<String> categories = bookDAO.getAllCategories();
-        for (String category : categories) {
-            categoryComboBox.addItem(category);
-        }
+        BackgroundTasks.getInstance().submit(progress -> bookDAO.getAllCategories(), categories -> {
+            for (String category : categories) {
+                categoryComboBox.addItem(category);
+            }
+        });
         categoryComboBox.setFont(new Font("Segoe UI", Font.PLAIN, 14));
         categoryComboBox.setPreferredSize(new Dimension(150, 30));
         
@@ -158,23 +163,10 @@ public class BookSelectionFrame extends JFrame {
         refreshButton.addActionListener(e -> loadBooks());
         
         // Print to PDF button
-        JButton printPDFButton = new GradientButton("Ekspor ke PDF", ColorPalette.PRIMARY_GREEN, ColorPalette.SECONDARY_GREEN);
+        printPDFButton = new GradientButton("Ekspor ke PDF", ColorPalette.PRIMARY_GREEN, ColorPalette.SECONDARY_GREEN);
         printPDFButton.setPreferredSize(new Dimension(130, 30));
-        printPDFButton.addActionListener(e -> {
-            JFileChooser fileChooser = new JFileChooser();
-            fileChooser.setDialogTitle("Simpan Semua Buku ke PDF");
-            fileChooser.setSelectedFile(new java.io.File("Semua_Buku.pdf"));
-            int userSelection = fileChooser.showSaveDialog(this);
-            if (userSelection == JFileChooser.APPROVE_OPTION) {
-                java.io.File fileToSave = fileChooser.getSelectedFile();
-                try {
-                    PDFExportUtil.exportTableToPDF(bookTable, "All Books", fileToSave);
-                    JOptionPane.showMessageDialog(this, "PDF berhasil diekspor!", "Berhasil", JOptionPane.INFORMATION_MESSAGE);
-                } catch (Exception ex) {
-                    JOptionPane.showMessageDialog(this, "Gagal mengekspor PDF: " + ex.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
-                }
-            }
-        });
+        printPDFButton.addActionListener(e -> exportToPDF());
+        exports = new ExportTracker(this, printPDFButton, "Ekspor ");
         
         filterPanel.add(categoryLabel);
         filterPanel.add(categoryComboBox);
@@ -183,12 +175,7 @@ public class BookSelectionFrame extends JFrame {
         
         // Table with new SPK criteria columns
         String[] columnNames = {"Judul", "Penulis", "Kategori", "Penerbit", "Tahun", "Halaman", "Rating", "Harga", "ISBN", "Jumlah Peminjam", "Kondisi Fisik Buku", "Relevansi Isi Buku", "Durasi Peminjaman"};
-        tableModel = new DefaultTableModel(columnNames, 0) {
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                return false;
-            }
-        };
+        tableModel = new BookTableModel(bookDAO, columnNames);
         
         bookTable = new JTable(tableModel);
         bookTable.setFont(new Font("Segoe UI", Font.PLAIN, 12));
@@ -223,17 +210,23 @@ public class BookSelectionFrame extends JFrame {
     }
     
     private void showBookDetailsModal(int row) {
-        // Get book data from table
-        String title = (String) tableModel.getValueAt(row, 0);
-        String author = (String) tableModel.getValueAt(row, 1);
-        
-        // Find book by title and author
-        Book book = bookDAO.getBookByTitleAndAuthor(title, author);
-        if (book == null) {
-            JOptionPane.showMessageDialog(this, "Tidak dapat menemukan detail buku", "Error", JOptionPane.ERROR_MESSAGE);
+        BookSummary summary = tableModel.getBookAt(bookTable.convertRowIndexToModel(row));
+        if (summary == null) {
+            // Row is still loading
             return;
         }
         
+        // Get the full book (with description) in the background
+        detailLane.submit(progress -> bookDAO.getBookById(summary.getId()), book -> {
+            if (book == null) {
+                JOptionPane.showMessageDialog(this, "Tidak dapat menemukan detail buku", "Error", JOptionPane.ERROR_MESSAGE);
+                return;
+            }
+            showBookDetailsModal(book);
+        });
+    }
+    
+    private void showBookDetailsModal(Book book) {
         // Create modal dialog
         JDialog modal = new JDialog(this, "Detail Buku", true);
         modal.setLayout(new BorderLayout());
@@ -422,35 +415,31 @@ public class BookSelectionFrame extends JFrame {
         panel.add(valueComponent, gbc);
     }
     
+    private void exportToPDF() {
+        if (!exports.confirmNewExport()) {
+            return;
+        }
+        JFileChooser fileChooser = new JFileChooser();
+        fileChooser.setDialogTitle("Simpan Semua Buku ke PDF");
+        fileChooser.setSelectedFile(new java.io.File("Semua_Buku.pdf"));
+        int userSelection = fileChooser.showSaveDialog(this);
+        if (userSelection == JFileChooser.APPROVE_OPTION) {
+            java.io.File fileToSave = fileChooser.getSelectedFile();
+            // The grid only holds the pages on screen, so the export reads its own copy in the background
+            BackgroundTasks.Task<ReportSnapshot> snapshot = tableModel.snapshotTask();
+            exports.submit("Semua Buku", fileToSave,
+                    (file, progress) -> PDFExportUtil.exportTableToPDF(snapshot.run(progress), "All Books", file, progress));
+        }
+    }
+    
     private void loadBooks() {
-        tableModel.setRowCount(0);
-        
         String selectedCategory = (String) categoryComboBox.getSelectedItem();
-        List<Book> books;
         
+        // Rows are read page by page as the table scrolls
         if ("Semua Kategori".equals(selectedCategory)) {
-            books = bookDAO.getAllBooks();
+            tableModel.loadAll();
         } else {
-            books = bookDAO.getBooksByCategory(selectedCategory);
-        }
-        
-        for (Book book : books) {
-            Object[] row = {
-                book.getTitle(),
-                book.getAuthor(),
-                book.getCategory(),
-                book.getPublisher(),
-                book.getYear(),
-                book.getPages(),
-                String.format("%.1f", book.getRating()),
-                String.format("Rp %.0f", book.getPrice()),
-                book.getIsbn(),
-                book.getBorrowerCount(),
-                book.getBookCondition(),
-                book.getContentRelevance(),
-                book.getLoanDuration() + " hari"
-            };
-            tableModel.addRow(row);
+            tableModel.loadCategory(selectedCategory);
         }
     }
     
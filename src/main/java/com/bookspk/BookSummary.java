@@ -0,0 +1,72 @@
+package com.bookspk;
+
+import java.sql.Timestamp;
+
+/**
+ * Read-only book row for the paged grids, read with BookProjection.LIST_VIEW.
+ * It has no description; screens that show one load the full row by id.
+ */
+public class BookSummary {
+    private final int id;
+    private final String title;
+    private final String author;
+    private final String category;
+    private final String publisher;
+    private final int year;
+    private final int pages;
+    private final double rating;
+    private final double price;
+    private final String isbn;
+    private final Timestamp createdAt;
+    private final int borrowerCount;
+    private final String bookCondition;
+    private final String contentRelevance;
+    private final int loanDuration;
+
+    /**
+     * @param book book read with BookProjection.LIST_VIEW or DETAIL
+     */
+    public BookSummary(Book book) {
+        this.id = book.getId();
+        this.title = book.getTitle();
+        this.author = book.getAuthor();
+        this.category = book.getCategory();
+        this.publisher = book.getPublisher();
+        this.year = book.getYear();
+        this.pages = book.getPages();
+        this.rating = book.getRating();
+        this.price = book.getPrice();
+        this.isbn = book.getIsbn();
+        this.createdAt = book.getCreatedAt();
+        this.borrowerCount = book.getBorrowerCount();
+        this.bookCondition = book.getBookCondition();
+        this.contentRelevance = book.getContentRelevance();
+        this.loanDuration = book.getLoanDuration();
+    }
+
+    public int getId() { return id; }
+    public String getTitle() { return title; }
+    public String getAuthor() { return author; }
+    public String getCategory() { return category; }
+    public String getPublisher() { return publisher; }
+    public int getYear() { return year; }
+    public int getPages() { return pages; }
+    public double getRating() { return rating; }
+    public double getPrice() { return price; }
+    public String getIsbn() { return isbn; }
+    public Timestamp getCreatedAt() { return createdAt; }
+    public int getBorrowerCount() { return borrowerCount; }
+    public String getBookCondition() { return bookCondition; }
+    public String getContentRelevance() { return contentRelevance; }
+    public int getLoanDuration() { return loanDuration; }
+
+    @Override
+    public String toString() {
+        return "BookSummary{" +
+                "id=" + id +
+                ", title='" + title + '\'' +
+                ", author='" + author + '\'' +
+                ", category='" + category + '\'' +
+                '}';
+    }
+}
@@ -0,0 +1,308 @@
+package com.bookspk;
+
+import javax.swing.table.AbstractTableModel;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Table model for the book grids that loads rows page by page as the table
+ * asks for them, instead of adding every book up front. Only the most recently
+ * used pages are kept, so memory stays the same however large the catalog is.
+ * <p>
+ * Pages are read with BookDAO keyset pagination. Sequential scrolling continues
+ * from the last row of the neighbouring page; jumping far ahead looks up the
+ * page's starting key first. Starting keys already seen are remembered (one
+ * small key per page) so revisiting a page needs a single query.
+ * <p>
+ * All reads run on BackgroundTasks. Rows whose page is still loading show a
+ * placeholder and are repainted when it arrives. A reload keeps the old rows
+ * on screen until the new count and first page are in.
+ */
+public class BookTableModel extends AbstractTableModel {
+    private static final int DEFAULT_PAGE_SIZE = 100;
+    private static final int DEFAULT_MAX_PAGES = 20;
+    private static final String LOADING = "Memuat...";
+
+    private final BookDAO bookDAO;
+    private final String[] columnNames;
+    private final int pageSize;
+    private final int maxPages;
+
+    private BookDAO.ListOrder order = BookDAO.ListOrder.NEWEST;
+    private String category = null;
+    private int rowCount = 0;
+
+    // Loaded pages, least recently used first
+    private final LinkedHashMap<Integer, List<BookSummary>> pages;
+    // Key of the last row before each page whose start is known
+    private final Map<Integer, BookDAO.PageKey> pageStarts = new HashMap<>();
+    // Page reads in flight
+    private final Map<Integer, BackgroundTasks.Handle> pendingPages = new HashMap<>();
+    private final BackgroundTasks.Lane loadLane = BackgroundTasks.newLane();
+    private Runnable loadListener;
+
+    /**
+     * @param bookDAO data access object used to read pages
+     * @param columnNames column headers, in the order of getValueAt
+     */
+    public BookTableModel(BookDAO bookDAO, String[] columnNames) {
+        this(bookDAO, columnNames, DEFAULT_PAGE_SIZE, DEFAULT_MAX_PAGES);
+    }
+
+    /**
+     * @param bookDAO data access object used to read pages
+     * @param columnNames column headers, in the order of getValueAt
+     * @param pageSize rows per page
+     * @param maxPages number of pages kept in memory
+     */
+    public BookTableModel(BookDAO bookDAO, String[] columnNames, int pageSize, int maxPages) {
+        this.bookDAO = bookDAO;
+        this.columnNames = columnNames.clone();
+        this.pageSize = pageSize;
+        this.maxPages = maxPages;
+        this.pages = new LinkedHashMap<Integer, List<BookSummary>>(maxPages * 2, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, List<BookSummary>> eldest) {
+                return size() > BookTableModel.this.maxPages;
+            }
+        };
+    }
+
+    /**
+     * Show all books, newest first
+     */
+    public void loadAll() {
+        load(BookDAO.ListOrder.NEWEST, null);
+    }
+
+    /**
+     * Show the books of one category, highest rating first
+     * @param category category to show
+     */
+    public void loadCategory(String category) {
+        load(BookDAO.ListOrder.TOP_RATED, category);
+    }
+
+    /**
+     * Reload with the current order and filter, e.g. after an edit
+     */
+    public void refresh() {
+        load(order, category);
+    }
+
+    /**
+     * @param listener called on the EDT each time a load or refresh has been applied
+     */
+    public void setLoadListener(Runnable listener) {
+        this.loadListener = listener;
+    }
+
+    /**
+     * @return true while a load or refresh is still running
+     */
+    public boolean isLoading() {
+        return loadLane.isBusy();
+    }
+
+    private void load(BookDAO.ListOrder order, String category) {
+        BookDAO dao = bookDAO;
+        int size = pageSize;
+        loadLane.submit(progress -> {
+            int count = dao.countBooks(category);
+            List<BookSummary> first = progress.isCancelled() || count == 0
+                    ? Collections.<BookSummary>emptyList()
+                    : dao.getBookPage(order, category, null, size);
+            return new PageResult(count, null, first);
+        }, result -> {
+            for (BackgroundTasks.Handle pending : pendingPages.values()) {
+                pending.cancel();
+            }
+            pendingPages.clear();
+            this.order = order;
+            this.category = category;
+            this.pages.clear();
+            this.pageStarts.clear();
+            this.rowCount = result.rowCount;
+            if (!result.books.isEmpty()) {
+                storePage(0, null, result.books);
+            }
+            fireTableDataChanged();
+            if (loadListener != null) {
+                loadListener.run();
+            }
+        });
+    }
+
+    /**
+     * @param row table row (model index)
+     * @return the book shown in that row, or null while its page is loading
+     */
+    public BookSummary getBookAt(int row) {
+        if (row < 0 || row >= rowCount) {
+            return null;
+        }
+        int pageIndex = row / pageSize;
+        List<BookSummary> page = pages.get(pageIndex);
+        if (page == null) {
+            requestPage(pageIndex);
+            return null;
+        }
+        int offset = row % pageSize;
+        return offset < page.size() ? page.get(offset) : null;
+    }
+
+    @Override
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    @Override
+    public int getColumnCount() {
+        return columnNames.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return columnNames[column];
+    }
+
+    @Override
+    public boolean isCellEditable(int row, int column) {
+        return false;
+    }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+        BookSummary book = getBookAt(row);
+        if (book == null) {
+            return column == 0 ? LOADING : "";
+        }
+        return cellValue(book, column);
+    }
+
+    private static Object cellValue(BookSummary book, int column) {
+        switch (column) {
+            case 0: return book.getTitle();
+            case 1: return book.getAuthor();
+            case 2: return book.getCategory();
+            case 3: return book.getPublisher();
+            case 4: return book.getYear();
+            case 5: return book.getPages();
+            case 6: return String.format("%.1f", book.getRating());
+            case 7: return String.format("Rp %.0f", book.getPrice());
+            case 8: return book.getIsbn();
+            case 9: return book.getBorrowerCount();
+            case 10: return book.getBookCondition();
+            case 11: return book.getContentRelevance();
+            case 12: return book.getLoanDuration() + " hari";
+            default: return "";
+        }
+    }
+
+    /**
+     * @return number of pages currently held in memory
+     */
+    public int getLoadedPageCount() {
+        return pages.size();
+    }
+
+    /**
+     * Background task that reads every book of the current view, in display
+     * order, into a report snapshot (e.g. for export). The view is captured
+     * when this is called.
+     * @return task producing the snapshot
+     */
+    public BackgroundTasks.Task<ReportSnapshot> snapshotTask() {
+        BookDAO dao = bookDAO;
+        String viewCategory = category;
+        return progress -> {
+            // The cache keeps the catalog newest first and each category by rating, then id,
+            // both descending, so the export has the order of the keyset pages on screen
+            List<Book> books = viewCategory == null
+                    ? dao.getAllBooks()
+                    : dao.getBooksByCategory(viewCategory);
+            return ReportSnapshot.ofBooks(books);
+        };
+    }
+
+    private void requestPage(int pageIndex) {
+        if (pendingPages.containsKey(pageIndex)) {
+            return;
+        }
+
+        // Resolve what we can from pages already on the EDT; the rest is looked up in the task
+        BookDAO.PageKey known = null;
+        if (pageIndex > 0) {
+            known = pageStarts.get(pageIndex);
+            if (known == null) {
+                List<BookSummary> previous = pages.get(pageIndex - 1);
+                if (previous != null && previous.size() == pageSize) {
+                    known = BookDAO.PageKey.after(previous.get(pageSize - 1));
+                }
+            }
+        }
+
+        BookDAO dao = bookDAO;
+        BookDAO.ListOrder viewOrder = order;
+        String viewCategory = category;
+        int size = pageSize;
+        BookDAO.PageKey knownStart = known;
+        BackgroundTasks.Handle handle = BackgroundTasks.getInstance().submit(progress -> {
+            BookDAO.PageKey after = pageIndex == 0 || knownStart != null
+                    ? knownStart
+                    : dao.getPageKey(viewOrder, viewCategory, pageIndex * size - 1);
+            List<BookSummary> page = pageIndex > 0 && after == null
+                    ? Collections.<BookSummary>emptyList()
+                    : dao.getBookPage(viewOrder, viewCategory, after, size);
+            return new PageResult(-1, after, page);
+        }, new BackgroundTasks.Callback<PageResult>() {
+            @Override
+            public void done(PageResult result) {
+                pendingPages.remove(pageIndex);
+                // An empty page is not kept or repainted, so a failed read is retried on the next scroll
+                if (result.books.isEmpty()) {
+                    return;
+                }
+                storePage(pageIndex, result.after, result.books);
+                int first = pageIndex * pageSize;
+                int last = Math.min(first + result.books.size(), rowCount) - 1;
+                if (first <= last) {
+                    fireTableRowsUpdated(first, last);
+                }
+            }
+
+            @Override
+            public void failed(Exception e) {
+                pendingPages.remove(pageIndex);
+                System.err.println("Error loading book page: " + e.getMessage());
+            }
+        });
+        pendingPages.put(pageIndex, handle);
+    }
+
+    private void storePage(int pageIndex, BookDAO.PageKey after, List<BookSummary> page) {
+        pages.put(pageIndex, page);
+        if (after != null) {
+            pageStarts.put(pageIndex, after);
+        }
+        if (page.size() == pageSize) {
+            pageStarts.put(pageIndex + 1, BookDAO.PageKey.after(page.get(pageSize - 1)));
+        }
+    }
+
+    // Outcome of a background read: a page and, for a reload, the new row count
+    private static final class PageResult {
+        final int rowCount;
+        final BookDAO.PageKey after;
+        final List<BookSummary> books;
+
+        PageResult(int rowCount, BookDAO.PageKey after, List<BookSummary> books) {
+            this.rowCount = rowCount;
+            this.after = after;
+            this.books = books;
+        }
+    }
+}
@@ -0,0 +1,394 @@
+package com.bookspk;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded, thread-safe JDBC connection pool.
+ * Connections handed out are proxies: calling close() returns the physical
+ * connection to the pool instead of closing it, so DAOs can keep using
+ * try-with-resources unchanged.
+ */
+public class ConnectionPool {
+    private final String url;
+    private final String username;
+    private final String password;
+    private final int minSize;
+    private final int maxSize;
+    private final long borrowTimeoutMillis;
+    private final long idleTimeoutMillis;
+    private final long leakThresholdMillis;
+    private final int validationTimeoutSeconds;
+
+    // One permit per connection that may be checked out at the same time
+    private final Semaphore permits;
+    // Idle connections, most recently returned first (LIFO keeps the hot set small)
+    private final LinkedBlockingDeque<PooledEntry> idle = new LinkedBlockingDeque<>();
+    private final Set<PooledEntry> inUse = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger totalConnections = new AtomicInteger();
+    private final ScheduledExecutorService housekeeper;
+    private volatile boolean shutdown = false;
+
+    // Statistics
+    private final AtomicLong borrowCount = new AtomicLong();
+    private final AtomicLong borrowNanos = new AtomicLong();
+    private final AtomicLong maxBorrowNanos = new AtomicLong();
+    private final AtomicLong returnCount = new AtomicLong();
+    private final AtomicLong returnNanos = new AtomicLong();
+    private final AtomicLong holdNanosTotal = new AtomicLong();
+    private final AtomicLong timeoutCount = new AtomicLong();
+    private final AtomicLong createdCount = new AtomicLong();
+    private final AtomicLong evictedCount = new AtomicLong();
+    private final AtomicLong leakCount = new AtomicLong();
+
+    /**
+     * Create a new connection pool
+     * @param url JDBC URL
+     * @param username database user
+     * @param password database password
+     * @param minSize number of idle connections kept warm
+     * @param maxSize maximum number of open connections
+     * @param borrowTimeoutMillis how long getConnection() waits for a free connection
+     * @param idleTimeoutMillis idle time after which surplus connections are closed
+     * @param leakThresholdMillis hold time after which a borrowed connection is reported as leaked;
+     *                            0 or less disables leak detection and the borrow-site stack traces it needs
+     */
+    public ConnectionPool(String url, String username, String password,
+                          int minSize, int maxSize, long borrowTimeoutMillis,
+                          long idleTimeoutMillis, long leakThresholdMillis) {
+        if (minSize < 0 || maxSize < 1 || minSize > maxSize) {
+            throw new IllegalArgumentException("Invalid pool size: min=" + minSize + ", max=" + maxSize);
+        }
+        this.url = url;
+        this.username = username;
+        this.password = password;
+        this.minSize = minSize;
+        this.maxSize = maxSize;
+        this.borrowTimeoutMillis = borrowTimeoutMillis;
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        this.leakThresholdMillis = leakThresholdMillis;
+        this.validationTimeoutSeconds = 2;
+        this.permits = new Semaphore(maxSize, true);
+
+        this.housekeeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "bookspk-pool-housekeeper");
+            t.setDaemon(true);
+            return t;
+        });
+        long period = Math.max(1000, (isLeakDetectionEnabled()
+                ? Math.min(idleTimeoutMillis, leakThresholdMillis) : idleTimeoutMillis) / 2);
+        housekeeper.scheduleWithFixedDelay(this::housekeep, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Borrow a connection from the pool
+     * @return Connection proxy; close it to return it to the pool
+     * @throws SQLException if no connection becomes available within the borrow timeout
+     */
+    public Connection getConnection() throws SQLException {
+        if (shutdown) {
+            throw new SQLException("Connection pool has been shut down");
+        }
+        long start = System.nanoTime();
+        try {
+            if (!permits.tryAcquire(borrowTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                timeoutCount.incrementAndGet();
+                throw new SQLException("Timed out after " + borrowTimeoutMillis
+                        + " ms waiting for a database connection (max " + maxSize + ")");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a database connection", e);
+        }
+
+        PooledEntry entry;
+        try {
+            entry = takeValidIdle();
+            if (entry == null) {
+                entry = new PooledEntry(openPhysical());
+            }
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+
+        entry.borrowedAt = System.currentTimeMillis();
+        entry.borrowedNanos = System.nanoTime();
+        // A stack trace per borrow is only worth its cost when leaks are being looked for
+        entry.borrowSite = isLeakDetectionEnabled() ? new Throwable("Connection borrowed here") : null;
+        entry.leakReported = false;
+        inUse.add(entry);
+
+        long elapsed = System.nanoTime() - start;
+        borrowCount.incrementAndGet();
+        borrowNanos.addAndGet(elapsed);
+        maxBorrowNanos.accumulateAndGet(elapsed, Math::max);
+        return entry.newProxy();
+    }
+
+    /**
+     * Close all connections and stop the housekeeping thread
+     */
+    public void shutdown() {
+        shutdown = true;
+        housekeeper.shutdownNow();
+        PooledEntry entry;
+        while ((entry = idle.pollFirst()) != null) {
+            closePhysical(entry);
+        }
+        // Borrowed connections are closed under their borrowers; release() then finds them closed
+        for (PooledEntry busy : inUse) {
+            closePhysical(busy);
+        }
+        inUse.clear();
+    }
+
+    private PooledEntry takeValidIdle() {
+        PooledEntry entry;
+        while ((entry = idle.pollFirst()) != null) {
+            if (isUsable(entry.physical)) {
+                return entry;
+            }
+            closePhysical(entry);
+        }
+        return null;
+    }
+
+    private boolean isUsable(Connection connection) {
+        try {
+            return !connection.isClosed() && connection.isValid(validationTimeoutSeconds);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private Connection openPhysical() throws SQLException {
+        try {
+            Class.forName("com.mysql.cj.jdbc.Driver");
+        } catch (ClassNotFoundException e) {
+            throw new SQLException("MySQL JDBC Driver not found", e);
+        }
+        Connection connection = DriverManager.getConnection(url, username, password);
+        totalConnections.incrementAndGet();
+        createdCount.incrementAndGet();
+        return connection;
+    }
+
+    // Counted once per entry, however many paths try to close it (shutdown, then release)
+    private void closePhysical(PooledEntry entry) {
+        if (!entry.closed.compareAndSet(false, true)) {
+            return;
+        }
+        totalConnections.decrementAndGet();
+        try {
+            entry.physical.close();
+        } catch (SQLException e) {
+            System.err.println("Error closing pooled connection: " + e.getMessage());
+        }
+    }
+
+    private void release(PooledEntry entry) {
+        long start = System.nanoTime();
+        inUse.remove(entry);
+        try {
+            if (shutdown || entry.physical.isClosed()) {
+                closePhysical(entry);
+                return;
+            }
+            // Undo per-borrow state so the next borrower gets a clean connection
+            if (!entry.physical.getAutoCommit()) {
+                entry.physical.rollback();
+                entry.physical.setAutoCommit(true);
+            }
+            entry.lastUsed = System.currentTimeMillis();
+            entry.borrowSite = null;
+            idle.offerFirst(entry);
+        } catch (SQLException e) {
+            closePhysical(entry);
+        } finally {
+            permits.release();
+            returnCount.incrementAndGet();
+            returnNanos.addAndGet(System.nanoTime() - start);
+            holdNanosTotal.addAndGet(System.nanoTime() - entry.borrowedNanos);
+        }
+    }
+
+    private void housekeep() {
+        long now = System.currentTimeMillis();
+
+        // Idle eviction: close connections idle too long, but keep minSize around
+        Iterator<PooledEntry> it = idle.descendingIterator();
+        while (it.hasNext() && totalConnections.get() > minSize) {
+            PooledEntry entry = it.next();
+            if (now - entry.lastUsed > idleTimeoutMillis && idle.remove(entry)) {
+                closePhysical(entry);
+                evictedCount.incrementAndGet();
+            }
+        }
+
+        // Leak detection: report connections held longer than the threshold once
+        if (isLeakDetectionEnabled()) {
+            for (PooledEntry entry : inUse) {
+                if (!entry.leakReported && now - entry.borrowedAt > leakThresholdMillis) {
+                    entry.leakReported = true;
+                    leakCount.incrementAndGet();
+                    System.err.println("Possible connection leak: connection held for "
+                            + (now - entry.borrowedAt) + " ms");
+                    Throwable site = entry.borrowSite;
+                    if (site != null) {
+                        site.printStackTrace();
+                    }
+                }
+            }
+        }
+
+        // Keep the pool warm up to minSize
+        while (!shutdown && totalConnections.get() < minSize) {
+            try {
+                PooledEntry entry = new PooledEntry(openPhysical());
+                entry.lastUsed = now;
+                idle.offerLast(entry);
+            } catch (SQLException e) {
+                break;
+            }
+        }
+    }
+
+    /**
+     * @return true if connections held past the leak threshold are reported
+     */
+    public boolean isLeakDetectionEnabled() {
+        return leakThresholdMillis > 0;
+    }
+
+    // Statistics
+
+    public long getBorrowCount() { return borrowCount.get(); }
+    public long getTimeoutCount() { return timeoutCount.get(); }
+    public long getCreatedCount() { return createdCount.get(); }
+    public long getEvictedCount() { return evictedCount.get(); }
+    public long getLeakCount() { return leakCount.get(); }
+    public int getActiveCount() { return inUse.size(); }
+    public int getIdleCount() { return idle.size(); }
+    public int getTotalCount() { return totalConnections.get(); }
+
+    /**
+     * @return average time spent in getConnection(), in microseconds
+     */
+    public double getAverageBorrowMicros() {
+        long count = borrowCount.get();
+        return count == 0 ? 0.0 : borrowNanos.get() / 1000.0 / count;
+    }
+
+    /**
+     * @return slowest getConnection() call so far, in microseconds
+     */
+    public double getMaxBorrowMicros() {
+        return maxBorrowNanos.get() / 1000.0;
+    }
+
+    /**
+     * @return average time spent returning a connection on close(), in microseconds
+     */
+    public double getAverageReturnMicros() {
+        long count = returnCount.get();
+        return count == 0 ? 0.0 : returnNanos.get() / 1000.0 / count;
+    }
+
+    /**
+     * @return average time a connection is held by a caller, in milliseconds
+     */
+    public double getAverageHoldMillis() {
+        long count = returnCount.get();
+        return count == 0 ? 0.0 : holdNanosTotal.get() / 1_000_000.0 / count;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("ConnectionPool{active=%d, idle=%d, total=%d/%d, borrows=%d, timeouts=%d, " +
+                        "created=%d, evicted=%d, leaks=%d, avgBorrow=%.1fus, maxBorrow=%.1fus, avgReturn=%.1fus, avgHold=%.2fms}",
+                getActiveCount(), getIdleCount(), getTotalCount(), maxSize, getBorrowCount(), getTimeoutCount(),
+                getCreatedCount(), getEvictedCount(), getLeakCount(), getAverageBorrowMicros(),
+                getMaxBorrowMicros(), getAverageReturnMicros(), getAverageHoldMillis());
+    }
+
+    /**
+     * Physical connection plus its bookkeeping
+     */
+    private class PooledEntry {
+        private final Connection physical;
+        private volatile long lastUsed = System.currentTimeMillis();
+        private volatile long borrowedAt;
+        private volatile long borrowedNanos;
+        private volatile Throwable borrowSite;
+        private volatile boolean leakReported;
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        PooledEntry(Connection physical) {
+            this.physical = physical;
+        }
+
+        Connection newProxy() {
+            return (Connection) Proxy.newProxyInstance(
+                    Connection.class.getClassLoader(),
+                    new Class<?>[]{Connection.class},
+                    new LogicalConnection(this));
+        }
+    }
+
+    /**
+     * Per-borrow view of a pooled connection; close() hands it back to the pool
+     */
+    private class LogicalConnection implements InvocationHandler {
+        private final PooledEntry entry;
+        private final AtomicInteger closed = new AtomicInteger();
+
+        LogicalConnection(PooledEntry entry) {
+            this.entry = entry;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (closed.compareAndSet(0, 1)) {
+                        release(entry);
+                    }
+                    return null;
+                case "isClosed":
+                    return closed.get() != 0 || entry.physical.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "Pooled" + entry.physical;
+                default:
+                    if (closed.get() != 0) {
+                        throw new SQLException("Connection has already been returned to the pool");
+                    }
+                    try {
+                        return method.invoke(entry.physical, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+            }
+        }
+    }
+}
@@ -6,12 +6,13 @@ import javax.swing.table.DefaultTableModel;
 import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
-import java.util.List;
 
 public class CriteriaCRUDFrame extends JFrame {
     private CriteriaDAO criteriaDAO = new CriteriaDAO();
     private JTable table;
     private DefaultTableModel tableModel;
+    // A refresh supersedes the one still running
+    private final BackgroundTasks.Lane loadLane = BackgroundTasks.newLane();
 
     public CriteriaCRUDFrame() {
         setTitle("CRUD Criteria SPK");
@@ -120,11 +121,34 @@ public class CriteriaCRUDFrame extends JFrame {
     }
 
     private void loadCriteria() {
-        tableModel.setRowCount(0);
-        List<Criteria> list = criteriaDAO.getAllCriteria();
-        for (Criteria c : list) {
-            tableModel.addRow(new Object[]{c.getId(), c.getCode(), c.getName(), c.getBobot()});
-        }
+        loadLane.submit(progress -> criteriaDAO.getAllCriteria(), list -> {
+            tableModel.setRowCount(0);
+            for (Criteria c : list) {
+                tableModel.addRow(new Object[]{c.getId(), c.getCode(), c.getName(), c.getBobot()});
+            }
+        });
+    }
+    
+    /**
+     * Run a criteria write in the background, then reload the table and report the outcome
+     */
+    private void runWrite(BackgroundTasks.Task<Boolean> write, String successMessage, String failureMessage) {
+        BackgroundTasks.getInstance().submit(write, new BackgroundTasks.Callback<Boolean>() {
+            @Override
+            public void done(Boolean success) {
+                if (success) {
+                    loadCriteria();
+                    JOptionPane.showMessageDialog(CriteriaCRUDFrame.this, successMessage, "Sukses", JOptionPane.INFORMATION_MESSAGE);
+                } else {
+                    JOptionPane.showMessageDialog(CriteriaCRUDFrame.this, failureMessage, "Error", JOptionPane.ERROR_MESSAGE);
+                }
+            }
+            
+            @Override
+            public void failed(Exception e) {
+                JOptionPane.showMessageDialog(CriteriaCRUDFrame.this, "Terjadi kesalahan: " + e.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+            }
+        });
     }
 
     private void addCriteria() {
@@ -151,12 +175,7 @@ public class CriteriaCRUDFrame extends JFrame {
                 }
                 
                 Criteria c = new Criteria(0, code, name, bobot);
-                if (criteriaDAO.addCriteria(c)) {
-                    loadCriteria();
-                    JOptionPane.showMessageDialog(this, "Kriteria berhasil ditambahkan!", "Sukses", JOptionPane.INFORMATION_MESSAGE);
-                } else {
-                    JOptionPane.showMessageDialog(this, "Gagal menambahkan kriteria!", "Error", JOptionPane.ERROR_MESSAGE);
-                }
+                runWrite(progress -> criteriaDAO.addCriteria(c), "Kriteria berhasil ditambahkan!", "Gagal menambahkan kriteria!");
             } catch (NumberFormatException ex) {
                 JOptionPane.showMessageDialog(this, "Bobot harus berupa angka!", "Error", JOptionPane.ERROR_MESSAGE);
             } catch (Exception ex) {
@@ -200,12 +219,7 @@ public class CriteriaCRUDFrame extends JFrame {
                 }
                 
                 Criteria c = new Criteria(id, newCode, newName, newBobot);
-                if (criteriaDAO.updateCriteria(c)) {
-                    loadCriteria();
-                    JOptionPane.showMessageDialog(this, "Kriteria berhasil diupdate!", "Sukses", JOptionPane.INFORMATION_MESSAGE);
-                } else {
-                    JOptionPane.showMessageDialog(this, "Gagal mengupdate kriteria!", "Error", JOptionPane.ERROR_MESSAGE);
-                }
+                runWrite(progress -> criteriaDAO.updateCriteria(c), "Kriteria berhasil diupdate!", "Gagal mengupdate kriteria!");
             } catch (NumberFormatException ex) {
                 JOptionPane.showMessageDialog(this, "Bobot harus berupa angka!", "Error", JOptionPane.ERROR_MESSAGE);
             } catch (Exception ex) {
@@ -230,12 +244,7 @@ public class CriteriaCRUDFrame extends JFrame {
             JOptionPane.YES_NO_OPTION);
             
         if (opt == JOptionPane.YES_OPTION) {
-            if (criteriaDAO.deleteCriteria(id)) {
-                loadCriteria();
-                JOptionPane.showMessageDialog(this, "Kriteria berhasil dihapus!", "Sukses", JOptionPane.INFORMATION_MESSAGE);
-            } else {
-                JOptionPane.showMessageDialog(this, "Gagal menghapus kriteria!", "Error", JOptionPane.ERROR_MESSAGE);
-            }
+            runWrite(progress -> criteriaDAO.deleteCriteria(id), "Kriteria berhasil dihapus!", "Gagal menghapus kriteria!");
         }
     }
     
@@ -6,41 +6,46 @@ import java.util.List;
 
 public class CriteriaDAO {
     public List<Criteria> getAllCriteria() {
-        List<Criteria> list = new ArrayList<>();
-        String sql = "SELECT * FROM criteria ORDER BY id";
-        try (Connection conn = DatabaseConnection.getConnection();
-             Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
-            while (rs.next()) {
-                Criteria c = new Criteria(
-                    rs.getInt("id"),
-                    rs.getString("code"),
-                    rs.getString("name"),
-                    rs.getFloat("bobot")
-                );
-                list.add(c);
-            }
+        try {
+            return loadAllCriteria();
         } catch (SQLException e) {
             System.err.println("Error getAllCriteria: " + e.getMessage());
+            return new ArrayList<>();
+        }
+    }
+
+    /**
+     * Read the criteria table, reporting failures instead of returning an empty list
+     * @return all criteria rows ordered by id
+     * @throws SQLException if the table cannot be read
+     */
+    public List<Criteria> loadAllCriteria() throws SQLException {
+        String sql = "SELECT * FROM criteria ORDER BY id";
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql);
+             ResultSet rs = ps.executeQuery()) {
+            return criteriaMapper(rs).mapAll(rs);
         }
-        return list;
     }
 
     public boolean addCriteria(Criteria c) {
+        boolean changed;
         String sql = "INSERT INTO criteria (code, name, bobot) VALUES (?, ?, ?)";
         try (Connection conn = DatabaseConnection.getConnection();
              PreparedStatement ps = conn.prepareStatement(sql)) {
             ps.setString(1, c.getCode());
             ps.setString(2, c.getName());
             ps.setFloat(3, c.getBobot());
-            return ps.executeUpdate() > 0;
+            changed = ps.executeUpdate() > 0;
         } catch (SQLException e) {
             System.err.println("Error addCriteria: " + e.getMessage());
             return false;
         }
+        return refreshPlanIfChanged(changed);
     }
 
     public boolean updateCriteria(Criteria c) {
+        boolean changed;
         String sql = "UPDATE criteria SET code=?, name=?, bobot=? WHERE id=?";
         try (Connection conn = DatabaseConnection.getConnection();
              PreparedStatement ps = conn.prepareStatement(sql)) {
@@ -48,22 +53,50 @@ public class CriteriaDAO {
             ps.setString(2, c.getName());
             ps.setFloat(3, c.getBobot());
             ps.setInt(4, c.getId());
-            return ps.executeUpdate() > 0;
+            changed = ps.executeUpdate() > 0;
         } catch (SQLException e) {
             System.err.println("Error updateCriteria: " + e.getMessage());
             return false;
         }
+        return refreshPlanIfChanged(changed);
     }
 
     public boolean deleteCriteria(int id) {
+        boolean changed;
         String sql = "DELETE FROM criteria WHERE id=?";
         try (Connection conn = DatabaseConnection.getConnection();
              PreparedStatement ps = conn.prepareStatement(sql)) {
             ps.setInt(1, id);
-            return ps.executeUpdate() > 0;
+            changed = ps.executeUpdate() > 0;
         } catch (SQLException e) {
             System.err.println("Error deleteCriteria: " + e.getMessage());
             return false;
         }
+        return refreshPlanIfChanged(changed);
+    }
+
+    // Column positions are looked up once per result set, not once per row
+    private static RowMapper<Criteria> criteriaMapper(ResultSet rs) throws SQLException {
+        int id = rs.findColumn("id");
+        int code = rs.findColumn("code");
+        int name = rs.findColumn("name");
+        int bobot = rs.findColumn("bobot");
+        return row -> new Criteria(row.getInt(id), row.getString(code), row.getString(name), row.getFloat(bobot));
+    }
+
+    // Swap in a recompiled scoring plan so the SPK ranking picks up the change,
+    // and rescore the stored spk_score column with the new weights
+    private boolean refreshPlanIfChanged(boolean changed) {
+        if (changed) {
+            try {
+                SPKScoreStore.recompute(SPKCriteriaPlan.reload());
+            } catch (SQLException e) {
+                // The cached plan is stale now; the next use reloads it and the next
+                // stored-score read retries the recompute
+                SPKCriteriaPlan.invalidate();
+                System.err.println("Error recomputing SPK scores: " + e.getMessage());
+            }
+        }
+        return changed;
     }
-} 
\ No newline at end of file
+}
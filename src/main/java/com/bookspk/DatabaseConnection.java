@@ -1,46 +1,75 @@
 package com.bookspk;
 
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.SQLException;
 
 /**
  * Database connection utility class for MySQL
  */
 public class DatabaseConnection {
-    private static final String URL = "jdbc:mysql://localhost:3306/tugas_java";
+    // useCursorFetch lets statements with a positive fetch size stream rows instead of buffering the result;
+    // rewriteBatchedStatements sends an INSERT batch as one multi-row statement (BookImporter).
+    // The DAOs prepare the same few SQL strings over and over, so prepared statements are server-side
+    // and cached per pooled connection: prepareStatement() on a known string reuses the parsed statement
+    // instead of a new prepare round trip, and close() returns it to the cache.
+    private static final String URL = "jdbc:mysql://localhost:3306/tugas_java"
+            + "?useCursorFetch=true&rewriteBatchedStatements=true"
+            + "&useServerPrepStmts=true&cachePrepStmts=true"
+            + "&prepStmtCacheSize=" + Integer.getInteger("bookspk.db.prepStmtCacheSize", 250)
+            + "&prepStmtCacheSqlLimit=2048";
     private static final String USERNAME = "root";
     private static final String PASSWORD = ""; // Try empty password first
 
-    private static Connection connection = null;
+    // Pool sizing and timeouts, overridable with -Dbookspk.pool.* system properties
+    private static final int POOL_MIN_SIZE = Integer.getInteger("bookspk.pool.minSize", 2);
+    private static final int POOL_MAX_SIZE = Integer.getInteger("bookspk.pool.maxSize", 10);
+    private static final long POOL_BORROW_TIMEOUT_MS = Long.getLong("bookspk.pool.borrowTimeoutMs", 5000L);
+    private static final long POOL_IDLE_TIMEOUT_MS = Long.getLong("bookspk.pool.idleTimeoutMs", 300000L);
+    // Connections held longer than this are reported as leaked; 0 turns detection (and its per-borrow stack trace) off
+    private static final long POOL_LEAK_THRESHOLD_MS = Long.getLong("bookspk.pool.leakThresholdMs", 60000L);
+
+    private static volatile ConnectionPool pool = null;
 
     /**
-     * Get database connection
+     * Get database connection from the shared pool.
+     * Closing the returned connection hands it back to the pool.
      * 
      * @return Connection object
-     * @throws SQLException if connection fails
+     * @throws SQLException if connection fails or the pool is exhausted
      */
     public static Connection getConnection() throws SQLException {
-        if (connection == null || connection.isClosed()) {
-            try {
-                Class.forName("com.mysql.cj.jdbc.Driver");
-                connection = DriverManager.getConnection(URL, USERNAME, PASSWORD);
-            } catch (ClassNotFoundException e) {
-                throw new SQLException("MySQL JDBC Driver not found", e);
+        return getPool().getConnection();
+    }
+
+    /**
+     * Get the shared connection pool, creating it on first use
+     * 
+     * @return ConnectionPool instance
+     */
+    public static ConnectionPool getPool() {
+        ConnectionPool current = pool;
+        if (current == null) {
+            synchronized (DatabaseConnection.class) {
+                current = pool;
+                if (current == null) {
+                    current = new ConnectionPool(URL, USERNAME, PASSWORD,
+                            POOL_MIN_SIZE, POOL_MAX_SIZE, POOL_BORROW_TIMEOUT_MS,
+                            POOL_IDLE_TIMEOUT_MS, POOL_LEAK_THRESHOLD_MS);
+                    pool = current;
+                }
             }
         }
-        return connection;
+        return current;
     }
 
     /**
-     * Close database connection
+     * Close all pooled database connections
      */
     public static void closeConnection() {
-        if (connection != null) {
-            try {
-                connection.close();
-            } catch (SQLException e) {
-                System.err.println("Error closing connection: " + e.getMessage());
+        synchronized (DatabaseConnection.class) {
+            if (pool != null) {
+                pool.shutdown();
+                pool = null;
             }
         }
     }
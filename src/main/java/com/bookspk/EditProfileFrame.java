@@ -332,11 +332,7 @@ public class EditProfileFrame extends JFrame {
         currentUser.setEmail(email);
         
         // Save to database
-        if (userDAO.updateUser(currentUser)) {
-            showStatus("Profil berhasil diperbarui!", ColorPalette.SUCCESS);
-        } else {
-            showStatus("Gagal memperbarui profil", ColorPalette.ERROR);
-        }
+        runUpdate("Profil berhasil diperbarui!", "Gagal memperbarui profil", null);
     }
     
     private void changePassword() {
@@ -367,12 +363,33 @@ public class EditProfileFrame extends JFrame {
         // Update password
         currentUser.setPassword(newPassword);
         
-        if (userDAO.updateUser(currentUser)) {
-            showStatus("Password berhasil diubah!", ColorPalette.SUCCESS);
-            clearPasswordFields();
-        } else {
-            showStatus("Gagal mengubah password", ColorPalette.ERROR);
-        }
+        runUpdate("Password berhasil diubah!", "Gagal mengubah password", this::clearPasswordFields);
+    }
+    
+    /**
+     * Save currentUser in the background and report the outcome
+     * @param onSuccess extra step on the EDT after a successful save, may be null
+     */
+    private void runUpdate(String successMessage, String failureMessage, Runnable onSuccess) {
+        User user = currentUser;
+        BackgroundTasks.getInstance().submit(progress -> userDAO.updateUser(user), new BackgroundTasks.Callback<Boolean>() {
+            @Override
+            public void done(Boolean success) {
+                if (success) {
+                    showStatus(successMessage, ColorPalette.SUCCESS);
+                    if (onSuccess != null) {
+                        onSuccess.run();
+                    }
+                } else {
+                    showStatus(failureMessage, ColorPalette.ERROR);
+                }
+            }
+            
+            @Override
+            public void failed(Exception e) {
+                showStatus(failureMessage + ": " + e.getMessage(), ColorPalette.ERROR);
+            }
+        });
     }
     
     private void clearPasswordFields() {
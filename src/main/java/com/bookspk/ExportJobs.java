@@ -0,0 +1,327 @@
+package com.bookspk;
+
+import javax.swing.SwingUtilities;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs report exports (PDF files) as background jobs, so the user can keep
+ * working and start several exports while earlier ones are still writing.
+ * <p>
+ * Exports get a small pool of their own instead of sharing BackgroundTasks:
+ * a large report can take minutes and would otherwise hold the threads that
+ * load tables and rankings. Jobs beyond the pool wait in a bounded queue.
+ * <p>
+ * A job writes to a temporary file next to its target and renames it over the
+ * target only once the export has succeeded, so the target is either the
+ * previous file or the complete new one, never a partial report. Cancellation
+ * is cooperative: exporters check {@link BackgroundTasks.Progress#isCancelled()}
+ * between rows or pages. Outcomes and coalesced progress are delivered on the
+ * EDT to a {@link Listener}; a cancelled job calls nothing. ExportTracker wires
+ * a window's export button to its jobs.
+ */
+public final class ExportJobs {
+    // Exports are CPU and memory heavy (the card export is parallel by itself), so a few at a time
+    private static final int THREADS = Integer.getInteger("bookspk.export.threads", 2);
+    private static final int QUEUE_CAPACITY = Integer.getInteger("bookspk.export.queueCapacity", 16);
+
+    private static final ExportJobs INSTANCE = new ExportJobs();
+
+    /**
+     * Writes one report
+     */
+    public interface Exporter {
+        /**
+         * @param file file to write, a temporary file in the target's directory
+         * @param progress receives progress and is checked for cancellation
+         * @throws Exception if the report cannot be written
+         */
+        void export(File file, BackgroundTasks.Progress progress) throws Exception;
+    }
+
+    /**
+     * Receives the outcome and progress of a job on the EDT. Not called for cancelled jobs.
+     */
+    public interface Listener {
+        /**
+         * @param job finished job; its target holds the report
+         */
+        void done(Job job);
+
+        /**
+         * @param job failed job; the target was left as it was
+         * @param e why the export failed
+         */
+        void failed(Job job, Exception e);
+
+        /**
+         * @param job running job, with its latest percent and message
+         */
+        default void progress(Job job) {
+        }
+    }
+
+    public enum Status {
+        QUEUED, RUNNING, DONE, FAILED, CANCELLED
+    }
+
+    /**
+     * A submitted export
+     */
+    public static final class Job implements BackgroundTasks.Progress {
+        private final int id;
+        private final String title;
+        private final File target;
+        private final Listener listener;
+        private final AtomicBoolean progressPending = new AtomicBoolean();
+        // Set by whichever comes first: a worker starting the job, or cancel() while queued
+        private final AtomicBoolean started = new AtomicBoolean();
+        private volatile Status status = Status.QUEUED;
+        private volatile int percent;
+        private volatile String message;
+        private volatile Exception error;
+        private volatile boolean cancelled;
+        private volatile Future<?> future;
+
+        private Job(int id, String title, File target, Listener listener) {
+            this.id = id;
+            this.title = title;
+            this.target = target;
+            this.listener = listener;
+        }
+
+        /**
+         * Cancel the job. A queued job never starts; a running job stops at its
+         * next progress check and its temporary file is removed.
+         */
+        public void cancel() {
+            cancelled = true;
+            if (started.compareAndSet(false, true)) {
+                // Still queued: drop it here, the worker will skip it
+                Future<?> f = future;
+                if (f != null) {
+                    f.cancel(false);
+                }
+                finish(Status.CANCELLED, null);
+            }
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return cancelled;
+        }
+
+        @Override
+        public void update(int percent, String message) {
+            if (cancelled) {
+                return;
+            }
+            this.percent = percent;
+            this.message = message;
+            // Only the first update since the last delivery schedules an EDT event
+            if (progressPending.compareAndSet(false, true)) {
+                SwingUtilities.invokeLater(this::deliverProgress);
+            }
+        }
+
+        private void deliverProgress() {
+            if (progressPending.getAndSet(false) && !cancelled && !isFinished()) {
+                listener.progress(this);
+            }
+        }
+
+        private void finish(Status finalStatus, Exception failure) {
+            if (finalStatus == Status.DONE) {
+                percent = 100;
+            }
+            error = failure;
+            status = finalStatus;
+            INSTANCE.jobs.remove(this);
+            progressPending.set(false);
+            if (finalStatus == Status.CANCELLED) {
+                return;
+            }
+            SwingUtilities.invokeLater(() -> {
+                if (finalStatus == Status.DONE) {
+                    listener.done(this);
+                } else {
+                    listener.failed(this, failure);
+                }
+            });
+        }
+
+        public int getId() {
+            return id;
+        }
+
+        public String getTitle() {
+            return title;
+        }
+
+        public File getTarget() {
+            return target;
+        }
+
+        public Status getStatus() {
+            return status;
+        }
+
+        /**
+         * @return completion from 0 to 100, as last reported by the exporter
+         */
+        public int getPercent() {
+            return percent;
+        }
+
+        /**
+         * @return last status text reported by the exporter, may be null
+         */
+        public String getMessage() {
+            return message;
+        }
+
+        /**
+         * @return why the job failed, null unless the status is FAILED
+         */
+        public Exception getError() {
+            return error;
+        }
+
+        /**
+         * @return true once the job is done, failed or cancelled
+         */
+        public boolean isFinished() {
+            Status s = status;
+            return s == Status.DONE || s == Status.FAILED || s == Status.CANCELLED;
+        }
+
+        @Override
+        public String toString() {
+            return "Job#" + id + "{" + title + ", " + status + ", " + percent + "%}";
+        }
+    }
+
+    private final ThreadPoolExecutor executor;
+    private final AtomicInteger jobNumber = new AtomicInteger();
+    // Queued and running jobs, in submission order
+    private final List<Job> jobs = new CopyOnWriteArrayList<>();
+
+    private ExportJobs() {
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(THREADS, THREADS, 30L, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(QUEUE_CAPACITY), r -> {
+                    Thread t = new Thread(r, "bookspk-export-" + threadNumber.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                });
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * @return the shared instance
+     */
+    public static ExportJobs getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Queue an export
+     * @param title short description of the report, for status displays
+     * @param target file the report ends up in
+     * @param exporter writes the report
+     * @param listener outcome and progress handler, called on the EDT
+     * @return the job, to follow or cancel it
+     */
+    public Job submit(String title, File target, Exporter exporter, Listener listener) {
+        Job job = new Job(jobNumber.incrementAndGet(), title, target.getAbsoluteFile(), listener);
+        jobs.add(job);
+        try {
+            job.future = executor.submit(() -> run(job, exporter));
+        } catch (RejectedExecutionException e) {
+            System.err.println("Export rejected: queue is full (" + QUEUE_CAPACITY + ")");
+            job.started.set(true);
+            job.finish(Status.FAILED, new IOException("Terlalu banyak ekspor dalam antrean", e));
+        }
+        return job;
+    }
+
+    /**
+     * @return queued and running jobs, in submission order
+     */
+    public List<Job> getJobs() {
+        return new ArrayList<>(jobs);
+    }
+
+    /**
+     * @return number of jobs waiting for a thread
+     */
+    public int getQueuedCount() {
+        return executor.getQueue().size();
+    }
+
+    /**
+     * @return number of jobs currently writing
+     */
+    public int getRunningCount() {
+        return executor.getActiveCount();
+    }
+
+    private static void run(Job job, Exporter exporter) {
+        if (!job.started.compareAndSet(false, true)) {
+            // Cancelled while queued
+            return;
+        }
+        job.status = Status.RUNNING;
+        File temp = null;
+        try {
+            File dir = job.target.getParentFile();
+            temp = File.createTempFile("." + job.target.getName() + "-", ".part", dir);
+            exporter.export(temp, job);
+            if (job.cancelled) {
+                throw new CancellationException();
+            }
+            moveIntoPlace(temp, job.target);
+            temp = null;
+            job.finish(Status.DONE, null);
+        } catch (CancellationException e) {
+            job.finish(Status.CANCELLED, null);
+        } catch (Exception e) {
+            job.finish(job.cancelled ? Status.CANCELLED : Status.FAILED, e);
+        } finally {
+            if (temp != null && temp.exists() && !temp.delete()) {
+                System.err.println("Could not remove temporary export file: " + temp);
+            }
+        }
+    }
+
+    // Rename over the target; a plain replace where the file system cannot rename atomically
+    private static void moveIntoPlace(File temp, File target) throws IOException {
+        try {
+            Files.move(temp.toPath(), target.toPath(), StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "ExportJobs{threads=" + THREADS
+                + ", running=" + getRunningCount()
+                + ", queued=" + getQueuedCount()
+                + ", jobs=" + jobs.size() + '}';
+    }
+}
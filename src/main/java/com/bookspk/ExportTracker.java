@@ -0,0 +1,109 @@
+package com.bookspk;
+
+import javax.swing.AbstractButton;
+import javax.swing.JOptionPane;
+import java.awt.Component;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Follows the export jobs a window started and shows them on its export
+ * button: while jobs run, the button reads "Ekspor 42% (2)" and a click asks
+ * whether to start another export or cancel the running ones. Outcomes are
+ * reported to the user with a message dialog.
+ * <p>
+ * One tracker per window; it is only used on the EDT.
+ */
+public final class ExportTracker implements ExportJobs.Listener {
+    private final Component owner;
+    private final AbstractButton button;
+    private final String idleText;
+    private final String runningText;
+    // Jobs started here that have not finished yet
+    private final List<ExportJobs.Job> jobs = new ArrayList<>();
+
+    /**
+     * @param owner window the dialogs are shown over
+     * @param button export button; its current text is restored when no job is running
+     * @param runningText button text before the percentage of a running export
+     */
+    public ExportTracker(Component owner, AbstractButton button, String runningText) {
+        this.owner = owner;
+        this.button = button;
+        this.idleText = button.getText();
+        this.runningText = runningText;
+    }
+
+    /**
+     * Asks what to do when exports from this window are still running; returns
+     * true at once when none are. Choosing to cancel stops every running export.
+     * @return true if a new export should start
+     */
+    public boolean confirmNewExport() {
+        if (jobs.isEmpty()) {
+            return true;
+        }
+        StringBuilder running = new StringBuilder("Ekspor PDF masih berjalan:");
+        for (ExportJobs.Job job : jobs) {
+            running.append("\n- ").append(job.getTarget().getName()).append(" (")
+                   .append(job.getStatus() == ExportJobs.Status.QUEUED ? "menunggu" : job.getPercent() + "%").append(")");
+        }
+        Object[] options = {"Ekspor Baru", "Batalkan Ekspor", "Tutup"};
+        int choice = JOptionPane.showOptionDialog(owner, running.toString(), "Ekspor PDF",
+                JOptionPane.DEFAULT_OPTION, JOptionPane.INFORMATION_MESSAGE, null, options, options[0]);
+        if (choice == 1) {
+            // Cancelled jobs report nothing back, so they are dropped here
+            for (ExportJobs.Job job : jobs) {
+                job.cancel();
+            }
+            jobs.clear();
+            updateButton();
+        }
+        return choice == 0;
+    }
+
+    /**
+     * Submits an export job and follows it on the button
+     * @param title short description used in the worker thread name
+     * @param target file the report is written to
+     * @param exporter writes the report
+     * @return the submitted job
+     */
+    public ExportJobs.Job submit(String title, File target, ExportJobs.Exporter exporter) {
+        ExportJobs.Job job = ExportJobs.getInstance().submit(title, target, exporter, this);
+        jobs.add(job);
+        updateButton();
+        return job;
+    }
+
+    @Override
+    public void done(ExportJobs.Job job) {
+        jobs.remove(job);
+        updateButton();
+        JOptionPane.showMessageDialog(owner, "PDF berhasil diekspor ke: " + job.getTarget().getAbsolutePath(), "Sukses", JOptionPane.INFORMATION_MESSAGE);
+    }
+
+    @Override
+    public void failed(ExportJobs.Job job, Exception e) {
+        jobs.remove(job);
+        updateButton();
+        JOptionPane.showMessageDialog(owner, "Gagal mengekspor PDF: " + e.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+    }
+
+    @Override
+    public void progress(ExportJobs.Job job) {
+        updateButton();
+    }
+
+    private void updateButton() {
+        if (jobs.isEmpty()) {
+            button.setText(idleText);
+            button.setToolTipText(null);
+            return;
+        }
+        ExportJobs.Job latest = jobs.get(jobs.size() - 1);
+        button.setText(runningText + latest.getPercent() + "%" + (jobs.size() > 1 ? " (" + jobs.size() + ")" : ""));
+        button.setToolTipText(jobs.size() + " ekspor berjalan; klik untuk ekspor baru atau membatalkan");
+    }
+}
@@ -14,6 +14,9 @@ public class LoginApplication {
             System.err.println("Error setting system look and feel: " + e.getMessage());
         }
         
+        // Upgrade the books table (stored SPK score columns) before the first write needs it
+        BackgroundTasks.getInstance().submit(progress -> SPKScoreStore.isAvailable(), available -> { });
+        
         // Start the application on EDT
         SwingUtilities.invokeLater(() -> {
             LoginFrame loginFrame = new LoginFrame();
@@ -197,38 +197,34 @@ public class LoginFrame extends JFrame {
         statusLabel.setText("");
         
         // Perform authentication in background
-        SwingWorker<User, Void> worker = new SwingWorker<User, Void>() {
+        BackgroundTasks.getInstance().submit(progress -> userDAO.authenticate(username, password),
+                new BackgroundTasks.Callback<User>() {
             @Override
-            protected User doInBackground() throws Exception {
-                return userDAO.authenticate(username, password);
+            public void done(User user) {
+                loginButton.setText("Masuk");
+                loginButton.setEnabled(true);
+                if (user != null) {
+                    statusLabel.setText("Login berhasil!");
+                    statusLabel.setForeground(ColorPalette.SUCCESS);
+                    
+                    // Open main application window
+                    SwingUtilities.invokeLater(() -> {
+                        openMainApplication(user);
+                    });
+                } else {
+                    statusLabel.setText("Username atau password tidak valid");
+                    statusLabel.setForeground(ColorPalette.ERROR);
+                }
             }
             
             @Override
-            protected void done() {
-                try {
-                    User user = get();
-                    if (user != null) {
-                        statusLabel.setText("Login berhasil!");
-                        statusLabel.setForeground(ColorPalette.SUCCESS);
-                        
-                        // Open main application window
-                        SwingUtilities.invokeLater(() -> {
-                            openMainApplication(user);
-                        });
-                    } else {
-                        statusLabel.setText("Username atau password tidak valid");
-                        statusLabel.setForeground(ColorPalette.ERROR);
-                    }
-                } catch (Exception e) {
-                    statusLabel.setText("Error: " + e.getMessage());
-                    statusLabel.setForeground(ColorPalette.ERROR);
-                } finally {
-                    loginButton.setText("Masuk");
-                    loginButton.setEnabled(true);
-                }
+            public void failed(Exception e) {
+                loginButton.setText("Masuk");
+                loginButton.setEnabled(true);
+                statusLabel.setText("Error: " + e.getMessage());
+                statusLabel.setForeground(ColorPalette.ERROR);
             }
-        };
-        worker.execute();
+        });
     }
     
     private void openRegisterFrame() {
@@ -1,93 +1,116 @@
 package com.bookspk;
 
+import java.sql.SQLException;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
 
 public class NewSPKCalculator {
+    // Books per fork-join leaf; below this splitting costs more than it saves
+    private static final int PARALLEL_THRESHOLD = 2048;
+    
+    static final int MAX_SCORE = 5;
+    
+    // Fixed plan, or null to use the cached plan from the criteria table
+    private final SPKCriteriaPlan fixedPlan;
+    
+    public NewSPKCalculator() {
+        this(null);
+    }
+    
+    /**
+     * @param plan scoring plan to use for every calculation, or null for SPKCriteriaPlan.current()
+     */
+    public NewSPKCalculator(SPKCriteriaPlan plan) {
+        this.fixedPlan = plan;
+    }
     
     public static class SPKResult {
         private Book book;
-        private Map<String, Integer> criteriaScores;
-        private Map<String, Double> normalizedScores;
+        private final SPKCriteriaPlan plan;
+        // Criteria scores (1-5) indexed by plan ordinal; normalized scores are derived from them
+        private final byte[] criteriaScores;
         private double finalScore;
         private int rank;
         
         public SPKResult(Book book) {
+            this(book, SPKCriteriaPlan.defaults());
+        }
+        
+        public SPKResult(Book book, SPKCriteriaPlan plan) {
             this.book = book;
-            this.criteriaScores = new HashMap<>();
-            this.normalizedScores = new HashMap<>();
+            this.plan = plan;
+            this.criteriaScores = new byte[plan.size()];
         }
         
         public Book getBook() { return book; }
-        public Map<String, Integer> getCriteriaScores() { return criteriaScores; }
-        public Map<String, Double> getNormalizedScores() { return normalizedScores; }
+        public SPKCriteriaPlan getPlan() { return plan; }
         public double getFinalScore() { return finalScore; }
         public int getRank() { return rank; }
         
+        public int getCriteriaScore(int ordinal) { return criteriaScores[ordinal]; }
+        public double getNormalizedScore(int ordinal) { return (double) criteriaScores[ordinal] / MAX_SCORE; }
+        public double getWeightedScore(int ordinal) { return getNormalizedScore(ordinal) * plan.getWeight(ordinal); }
+        
+        public void setCriteriaScore(int ordinal, int score) { this.criteriaScores[ordinal] = (byte) score; }
         public void setFinalScore(double finalScore) { this.finalScore = finalScore; }
         public void setRank(int rank) { this.rank = rank; }
+        
+        /**
+         * Read-only code-keyed view over the criteria scores, built on demand
+         */
+        public Map<String, Integer> getCriteriaScores() {
+            Map<String, Integer> view = new LinkedHashMap<>();
+            for (int i = 0; i < criteriaScores.length; i++) {
+                view.put(plan.getCode(i), getCriteriaScore(i));
+            }
+            return Collections.unmodifiableMap(view);
+        }
+        
+        /**
+         * Read-only code-keyed view over the normalized scores, built on demand
+         */
+        public Map<String, Double> getNormalizedScores() {
+            Map<String, Double> view = new LinkedHashMap<>();
+            for (int i = 0; i < criteriaScores.length; i++) {
+                view.put(plan.getCode(i), getNormalizedScore(i));
+            }
+            return Collections.unmodifiableMap(view);
+        }
     }
     
+    /**
+     * Calculate and rank every book (full-rank mode). Use calculateTopSPK when only
+     * the first k ranks are needed.
+     * @param books books to analyse
+     * @return all results sorted by final score, ranks 1..n
+     */
     public List<SPKResult> calculateSPK(List<Book> books) {
         if (books == null || books.isEmpty()) {
             return new ArrayList<>();
         }
         
-        List<SPKResult> results = new ArrayList<>();
+        SPKCriteriaPlan plan = plan();
+        double[] weights = plan.getWeights();
+        List<SPKResult> results = new ArrayList<>(books.size());
         
         // Step 1: Calculate criteria scores for each book
         for (Book book : books) {
-            SPKResult result = new SPKResult(book);
-            
-            // C1: Jumlah Peminjam
-            int c1Score = SPKDataConverter.convertBorrowCountToWeight(book.getBorrowerCount());
-            result.getCriteriaScores().put("C1", c1Score);
-            
-            // C2: Kategori dan Rating
-            int c2Score = SPKDataConverter.convertCategoryAndRatingToWeight(book.getCategory(), book.getRating());
-            result.getCriteriaScores().put("C2", c2Score);
-            
-            // C3: Kondisi Fisik
-            int c3Score = SPKDataConverter.convertPhysicalConditionToWeight(book.getBookCondition());
-            result.getCriteriaScores().put("C3", c3Score);
-            
-            // C4: Relevansi Isi
-            int c4Score = SPKDataConverter.convertContentRelevanceToWeight(book.getContentRelevance());
-            result.getCriteriaScores().put("C4", c4Score);
-            
-            // C5: Durasi Peminjaman
-            int c5Score = SPKDataConverter.convertBorrowDurationToWeight(book.getLoanDuration());
-            result.getCriteriaScores().put("C5", c5Score);
-            
+            SPKResult result = new SPKResult(book, plan);
+            for (int c = 0; c < weights.length; c++) {
+                result.setCriteriaScore(c, convertCriteria(plan.getConverter(c), book));
+            }
             results.add(result);
         }
         
-        // Step 2: Normalize scores
-        Map<String, Integer> maxScores = new HashMap<>();
-        maxScores.put("C1", 5);
-        maxScores.put("C2", 5);
-        maxScores.put("C3", 5);
-        maxScores.put("C4", 5);
-        maxScores.put("C5", 5);
-        
-        for (SPKResult result : results) {
-            for (String criteria : Arrays.asList("C1", "C2", "C3", "C4", "C5")) {
-                int score = result.getCriteriaScores().get(criteria);
-                int maxScore = maxScores.get(criteria);
-                double normalizedScore = (double) score / maxScore;
-                result.getNormalizedScores().put(criteria, normalizedScore);
-            }
-        }
+        // Step 2: Normalize scores - derived on read as score / MAX_SCORE
         
         // Step 3: Calculate final scores with weights
         for (SPKResult result : results) {
             double finalScore = 0.0;
-            
-            finalScore += result.getNormalizedScores().get("C1") * SPKDataConverter.getCriteriaWeight("C1");
-            finalScore += result.getNormalizedScores().get("C2") * SPKDataConverter.getCriteriaWeight("C2");
-            finalScore += result.getNormalizedScores().get("C3") * SPKDataConverter.getCriteriaWeight("C3");
-            finalScore += result.getNormalizedScores().get("C4") * SPKDataConverter.getCriteriaWeight("C4");
-            finalScore += result.getNormalizedScores().get("C5") * SPKDataConverter.getCriteriaWeight("C5");
-            
+            for (int c = 0; c < weights.length; c++) {
+                finalScore += result.getNormalizedScore(c) * weights[c];
+            }
             result.setFinalScore(finalScore);
         }
         
@@ -102,85 +125,254 @@ public class NewSPKCalculator {
         return results;
     }
     
-    public Map<String, Object> getSPKMatrix(List<SPKResult> results) {
-        Map<String, Object> matrix = new HashMap<>();
-        
-        // Decision Matrix
-        List<List<Object>> decisionMatrix = new ArrayList<>();
-        List<Object> headers = new ArrayList<>();
-        headers.add("Judul Buku");
-        headers.add("C1");
-        headers.add("C2");
-        headers.add("C3");
-        headers.add("C4");
-        headers.add("C5");
-        decisionMatrix.add(headers);
+    /**
+     * Calculate only the top k results. Books outside the top k are scored but never
+     * turned into SPKResult objects; ranks and tie order match calculateSPK.
+     * @param books books to analyse
+     * @param k number of results to return
+     * @return top k results with ranks 1..k
+     */
+    public List<SPKResult> calculateTopSPK(List<Book> books, int k) {
+        if (books == null || books.isEmpty() || k <= 0) {
+            return new ArrayList<>();
+        }
         
-        for (SPKResult result : results) {
-            List<Object> row = new ArrayList<>();
-            row.add(result.getBook().getTitle());
-            row.add(result.getCriteriaScores().get("C1"));
-            row.add(result.getCriteriaScores().get("C2"));
-            row.add(result.getCriteriaScores().get("C3"));
-            row.add(result.getCriteriaScores().get("C4"));
-            row.add(result.getCriteriaScores().get("C5"));
-            decisionMatrix.add(row);
-        }
-        
-        // Normalized Matrix
-        List<List<Object>> normalizedMatrix = new ArrayList<>();
-        List<Object> normHeaders = new ArrayList<>();
-        normHeaders.add("Judul Buku");
-        normHeaders.add("C1");
-        normHeaders.add("C2");
-        normHeaders.add("C3");
-        normHeaders.add("C4");
-        normHeaders.add("C5");
-        normHeaders.add("Nilai Akhir");
-        normalizedMatrix.add(normHeaders);
+        SPKCriteriaPlan plan = plan();
+        double[] weights = plan.getWeights();
+        double[] scores = new double[books.size()];
+        for (int i = 0; i < scores.length; i++) {
+            scores[i] = calculateFinalScore(books.get(i), plan, weights);
+        }
         
-        for (SPKResult result : results) {
-            List<Object> row = new ArrayList<>();
-            row.add(result.getBook().getTitle());
-            row.add(String.format("%.4f", result.getNormalizedScores().get("C1")));
-            row.add(String.format("%.4f", result.getNormalizedScores().get("C2")));
-            row.add(String.format("%.4f", result.getNormalizedScores().get("C3")));
-            row.add(String.format("%.4f", result.getNormalizedScores().get("C4")));
-            row.add(String.format("%.4f", result.getNormalizedScores().get("C5")));
-            row.add(String.format("%.4f", result.getFinalScore()));
-            normalizedMatrix.add(row);
-        }
-        
-        // Final Results with Ranking
-        List<List<Object>> finalResults = new ArrayList<>();
-        List<Object> finalHeaders = new ArrayList<>();
-        finalHeaders.add("Ranking");
-        finalHeaders.add("Judul Buku");
-        finalHeaders.add("C1 (30%)");
-        finalHeaders.add("C2 (20%)");
-        finalHeaders.add("C3 (15%)");
-        finalHeaders.add("C4 (25%)");
-        finalHeaders.add("C5 (10%)");
-        finalHeaders.add("Nilai Akhir");
-        finalResults.add(finalHeaders);
+        return materialize(books, TopKSelector.select(scores, k), plan, weights);
+    }
+    
+    /**
+     * Parallel full-rank mode. Conversion, normalization and weighting are fused into
+     * one pass per chunk on a ForkJoinPool, and per-chunk rankings are merged.
+     * Scores, ranks and tie order are identical to calculateSPK.
+     * @param books books to analyse
+     * @return all results sorted by final score, ranks 1..n
+     */
+    public List<SPKResult> calculateSPKParallel(List<Book> books) {
+        if (books == null || books.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Book[] bookArray = books.toArray(new Book[0]);
+        SPKResult[] built = new SPKResult[bookArray.length];
+        double[] scores = new double[bookArray.length];
+        int[] order = ForkJoinPool.commonPool().invoke(
+                new ScoreTask(plan(), bookArray, scores, built, 0, bookArray.length, bookArray.length));
         
-        for (SPKResult result : results) {
-            List<Object> row = new ArrayList<>();
-            row.add(result.getRank());
-            row.add(result.getBook().getTitle());
-            row.add(String.format("%.4f", result.getNormalizedScores().get("C1") * SPKDataConverter.getCriteriaWeight("C1")));
-            row.add(String.format("%.4f", result.getNormalizedScores().get("C2") * SPKDataConverter.getCriteriaWeight("C2")));
-            row.add(String.format("%.4f", result.getNormalizedScores().get("C3") * SPKDataConverter.getCriteriaWeight("C3")));
-            row.add(String.format("%.4f", result.getNormalizedScores().get("C4") * SPKDataConverter.getCriteriaWeight("C4")));
-            row.add(String.format("%.4f", result.getNormalizedScores().get("C5") * SPKDataConverter.getCriteriaWeight("C5")));
-            row.add(String.format("%.4f", result.getFinalScore()));
-            finalResults.add(row);
+        List<SPKResult> results = new ArrayList<>(order.length);
+        for (int i = 0; i < order.length; i++) {
+            SPKResult result = built[order[i]];
+            result.setRank(i + 1);
+            results.add(result);
+        }
+        return results;
+    }
+    
+    /**
+     * Parallel top-k mode. Each chunk scores its books and keeps a bounded heap of
+     * its best k; the heaps are merged pairwise and only the winners become SPKResults.
+     * @param books books to analyse
+     * @param k number of results to return
+     * @return top k results with ranks 1..k
+     */
+    public List<SPKResult> calculateTopSPKParallel(List<Book> books, int k) {
+        if (books == null || books.isEmpty() || k <= 0) {
+            return new ArrayList<>();
         }
+        Book[] bookArray = books.toArray(new Book[0]);
+        double[] scores = new double[bookArray.length];
+        SPKCriteriaPlan plan = plan();
+        int[] top = ForkJoinPool.commonPool().invoke(
+                new ScoreTask(plan, bookArray, scores, null, 0, bookArray.length, k));
+        return materialize(books, top, plan, plan.getWeights());
+    }
+    
+    /**
+     * Rank the whole catalog from the maintained ranking index. After the first
+     * call the catalog is not rescored; BookDAO writes update the index in place.
+     * @return all results sorted by final score, ranks 1..n
+     */
+    public List<SPKResult> calculateSPK() {
+        SPKCriteriaPlan plan = plan();
+        return materialize(catalogRanking(plan), plan, Integer.MAX_VALUE);
+    }
+    
+    /**
+     * Top k of the whole catalog, read from the maintained ranking index. When
+     * the catalog is not in memory the k rows are read by their stored score
+     * (SPKScoreStore) instead of loading every book.
+     * @param k number of results to return
+     * @return top k results with ranks 1..k
+     */
+    public List<SPKResult> calculateTopSPK(int k) {
+        SPKCriteriaPlan plan = plan();
+        if (fixedPlan == null && !BookCatalogCache.getInstance().isCached()) {
+            // Catalog not in memory: read the top k rows by their stored score instead of loading it all
+            try {
+                // The stored scores may follow criteria changed by another process since the plan was cached
+                SPKCriteriaPlan scored = SPKScoreStore.ensureSynced(plan);
+                List<BookDAO.BookSPKResult> stored = SPKScoreStore.top(k);
+                List<SPKResult> results = new ArrayList<>(stored.size());
+                for (int i = 0; i < stored.size(); i++) {
+                    SPKResult result = buildResult(stored.get(i).getBook(), scored, scored.getWeights());
+                    result.setRank(i + 1);
+                    results.add(result);
+                }
+                return results;
+            } catch (SQLException e) {
+                System.err.println("Error reading stored SPK scores: " + e.getMessage());
+            }
+        }
+        return materialize(catalogRanking(plan), plan, k);
+    }
+    
+    /**
+     * Result at a given rank of the whole catalog, read from the maintained ranking index
+     * @param rank 1-based rank
+     * @return result at that rank, or null when out of range
+     */
+    public SPKResult getResultAtRank(int rank) {
+        SPKCriteriaPlan plan = plan();
+        SPKRankingIndex ranking = catalogRanking(plan);
+        SPKRankingIndex.Entry entry = ranking == null ? null : ranking.get(rank);
+        if (entry == null) {
+            return null;
+        }
+        SPKResult result = buildResult(entry.getBook(), plan, plan.getWeights());
+        result.setRank(rank);
+        return result;
+    }
+    
+    // Ranking of the cached catalog for the current plan, or null if the catalog cannot be loaded
+    private SPKRankingIndex catalogRanking(SPKCriteriaPlan plan) {
+        double[] weights = plan.getWeights();
+        try {
+            // The plan instance is the key: a criteria change installs a new plan and a new ranking
+            return BookCatalogCache.getInstance().getRanking(plan,
+                    book -> calculateFinalScore(book, plan, weights), 1);
+        } catch (SQLException e) {
+            System.err.println("Error getting SPK ranking: " + e.getMessage());
+            return null;
+        }
+    }
+    
+    private List<SPKResult> materialize(SPKRankingIndex ranking, SPKCriteriaPlan plan, int k) {
+        if (ranking == null) {
+            return new ArrayList<>();
+        }
+        double[] weights = plan.getWeights();
+        List<SPKRankingIndex.Entry> entries = ranking.top(k);
+        List<SPKResult> results = new ArrayList<>(entries.size());
+        for (int i = 0; i < entries.size(); i++) {
+            SPKResult result = buildResult(entries.get(i).getBook(), plan, weights);
+            result.setRank(i + 1);
+            results.add(result);
+        }
+        return results;
+    }
+    
+    private List<SPKResult> materialize(List<Book> books, int[] order, SPKCriteriaPlan plan, double[] weights) {
+        List<SPKResult> results = new ArrayList<>(order.length);
+        for (int i = 0; i < order.length; i++) {
+            SPKResult result = buildResult(books.get(order[i]), plan, weights);
+            result.setRank(i + 1);
+            results.add(result);
+        }
+        return results;
+    }
+    
+    private SPKCriteriaPlan plan() {
+        return fixedPlan != null ? fixedPlan : SPKCriteriaPlan.current();
+    }
+    
+    // Steps 1-3 of calculateSPK fused for a single book
+    private SPKResult buildResult(Book book, SPKCriteriaPlan plan, double[] weights) {
+        SPKResult result = new SPKResult(book, plan);
+        for (int c = 0; c < weights.length; c++) {
+            result.setCriteriaScore(c, convertCriteria(plan.getConverter(c), book));
+        }
+        result.setFinalScore(calculateFinalScore(book, plan, weights));
+        return result;
+    }
+    
+    // Same arithmetic (and order of additions) as steps 1-3 of calculateSPK
+    private double calculateFinalScore(Book book, SPKCriteriaPlan plan, double[] weights) {
+        double finalScore = 0.0;
+        for (int c = 0; c < weights.length; c++) {
+            finalScore += (double) convertCriteria(plan.getConverter(c), book) / MAX_SCORE * weights[c];
+        }
+        return finalScore;
+    }
+    
+    // Level of one criterion for a book; SPKScoreStore stores these per row
+    static int convertCriteria(int converter, Book book) {
+        switch (converter) {
+            case SPKCriteriaPlan.BORROW_COUNT: return SPKDataConverter.convertBorrowCountToWeight(book.getBorrowerCount());
+            case SPKCriteriaPlan.CATEGORY_RATING: return SPKDataConverter.convertCategoryAndRatingToWeight(book.getCategoryCode(), book.getRating());
+            case SPKCriteriaPlan.CONDITION: return SPKDataConverter.convertPhysicalConditionToWeight(book.getConditionCode());
+            case SPKCriteriaPlan.RELEVANCE: return SPKDataConverter.convertContentRelevanceToWeight(book.getRelevanceCode());
+            case SPKCriteriaPlan.DURATION: return SPKDataConverter.convertBorrowDurationToWeight(book.getLoanDuration());
+            default: return 0;
+        }
+    }
+    
+    /**
+     * Scores a slice of the book array and returns its ranked top-k row indexes
+     */
+    private class ScoreTask extends RecursiveTask<int[]> {
+        private final SPKCriteriaPlan plan;
+        private final double[] weights;
+        private final Book[] books;
+        private final double[] scores;
+        private final SPKResult[] built;
+        private final int from;
+        private final int to;
+        private final int k;
         
-        matrix.put("decisionMatrix", decisionMatrix);
-        matrix.put("normalizedMatrix", normalizedMatrix);
-        matrix.put("finalResults", finalResults);
+        ScoreTask(SPKCriteriaPlan plan, Book[] books, double[] scores, SPKResult[] built, int from, int to, int k) {
+            this.plan = plan;
+            this.weights = plan.getWeights();
+            this.books = books;
+            this.scores = scores;
+            this.built = built;
+            this.from = from;
+            this.to = to;
+            this.k = k;
+        }
         
-        return matrix;
+        @Override
+        protected int[] compute() {
+            if (to - from <= PARALLEL_THRESHOLD) {
+                for (int i = from; i < to; i++) {
+                    if (built != null) {
+                        built[i] = buildResult(books[i], plan, weights);
+                        scores[i] = built[i].getFinalScore();
+                    } else {
+                        scores[i] = calculateFinalScore(books[i], plan, weights);
+                    }
+                }
+                return TopKSelector.select(scores, from, to, k);
+            }
+            int mid = (from + to) >>> 1;
+            ScoreTask left = new ScoreTask(plan, books, scores, built, from, mid, k);
+            ScoreTask right = new ScoreTask(plan, books, scores, built, mid, to, k);
+            left.fork();
+            int[] rightTop = right.compute();
+            return TopKSelector.merge(left.join(), rightTop, scores, k);
+        }
+    }
+    
+    /**
+     * Matrices of the SAW method over ranked results, read and formatted lazily
+     * @param results ranked results, best first
+     * @return view of the decision, normalized and final matrices
+     */
+    public SPKMatrixView getMatrixView(List<SPKResult> results) {
+        return new SPKMatrixView(results, plan());
     }
-} 
\ No newline at end of file
+}
@@ -2,18 +2,23 @@ package com.bookspk;
 
 import javax.swing.*;
 import javax.swing.border.EmptyBorder;
-import javax.swing.table.DefaultTableModel;
 import javax.swing.table.DefaultTableCellRenderer;
 import java.awt.*;
 import java.awt.Component;
 import java.util.List;
-import java.util.Map;
 
 public class NewSPKFrame extends JFrame {
+    private static final String ALL_RESULTS = "Semua";
+    
     private BookDAO bookDAO;
     private NewSPKCalculator calculator;
     private JTabbedPane tabbedPane;
     private List<NewSPKCalculator.SPKResult> currentResults;
+    private final BackgroundTasks.Lane spkLane = BackgroundTasks.newLane();
+    private JButton exportButton;
+    private JComboBox<String> resultCountCombo;
+    // Follows the exports started from this window on the export button
+    private ExportTracker exports;
     
     public NewSPKFrame() {
         bookDAO = new BookDAO();
@@ -75,12 +80,21 @@ public class NewSPKFrame extends JFrame {
         JPanel buttonPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT, 10, 0));
         buttonPanel.setOpaque(false);
         
+        // Every book is ranked by default; a top N is read by the stored score index when the catalog is not in memory
+        String[] resultCountOptions = {ALL_RESULTS, "10", "25", "50", "100", "250", "500"};
+        resultCountCombo = new JComboBox<>(resultCountOptions);
+        resultCountCombo.setSelectedItem(ALL_RESULTS);
+        resultCountCombo.setFont(new Font("Segoe UI", Font.PLAIN, 14));
+        resultCountCombo.setPreferredSize(new Dimension(90, 35));
+        resultCountCombo.setToolTipText("Jumlah buku teratas yang ditampilkan");
+        
         JButton refreshButton = new GradientButton("Refresh", ColorPalette.PRIMARY_BLUE, ColorPalette.SECONDARY_BLUE);
-        JButton exportButton = new GradientButton("Export PDF", ColorPalette.PRIMARY_GREEN, ColorPalette.SECONDARY_GREEN);
+        exportButton = new GradientButton("Export PDF", ColorPalette.PRIMARY_GREEN, ColorPalette.SECONDARY_GREEN);
         
         refreshButton.setPreferredSize(new Dimension(100, 35));
         exportButton.setPreferredSize(new Dimension(120, 35));
         
+        buttonPanel.add(resultCountCombo);
         buttonPanel.add(refreshButton);
         buttonPanel.add(exportButton);
         
@@ -88,7 +102,9 @@ public class NewSPKFrame extends JFrame {
         headerPanel.add(buttonPanel, BorderLayout.EAST);
         
         refreshButton.addActionListener(e -> calculateSPK());
+        resultCountCombo.addActionListener(e -> calculateSPK());
         exportButton.addActionListener(e -> exportToPDF());
+        exports = new ExportTracker(this, exportButton, "Export ");
         
         return headerPanel;
     }
@@ -175,42 +191,51 @@ public class NewSPKFrame extends JFrame {
     }
     
     private void calculateSPK() {
-        List<Book> books = bookDAO.getAllBooks();
-        if (books.isEmpty()) {
+        setCursor(Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR));
+        int limit = getResultLimit();
+        
+        // Ranking and matrix building run off the EDT; a refresh supersedes one still running
+        spkLane.submit(progress -> {
+            // Ranked from the maintained catalog index, or from stored scores when the catalog is not loaded
+            List<NewSPKCalculator.SPKResult> results = limit > 0
+                    ? calculator.calculateTopSPK(limit) : calculator.calculateSPK();
+            SPKMatrixView matrix = calculator.getMatrixView(results);
+            return new Analysis(results, matrix);
+        }, new BackgroundTasks.Callback<Analysis>() {
+            @Override
+            public void done(Analysis analysis) {
+                setCursor(Cursor.getDefaultCursor());
+                showResults(analysis.results, analysis.matrix);
+            }
+            
+            @Override
+            public void failed(Exception e) {
+                setCursor(Cursor.getDefaultCursor());
+                JOptionPane.showMessageDialog(NewSPKFrame.this, "Gagal menghitung SPK: " + e.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+            }
+        });
+    }
+    
+    private void showResults(List<NewSPKCalculator.SPKResult> results, SPKMatrixView matrix) {
+        currentResults = results;
+        if (currentResults.isEmpty()) {
             JOptionPane.showMessageDialog(this, "Tidak ada data buku untuk dianalisis!", "Peringatan", JOptionPane.WARNING_MESSAGE);
             return;
         }
         
-        currentResults = calculator.calculateSPK(books);
-        Map<String, Object> matrix = calculator.getSPKMatrix(currentResults);
-        
-        // Update tables
-        updateDecisionMatrixTable((List<List<Object>>) matrix.get("decisionMatrix"));
-        updateNormalizedMatrixTable((List<List<Object>>) matrix.get("normalizedMatrix"));
-        updateFinalResultsTable((List<List<Object>>) matrix.get("finalResults"));
+        // Update tables; the models read the view, so only rows on screen get formatted
+        updateDecisionMatrixTable(matrix);
+        updateNormalizedMatrixTable(matrix);
+        updateFinalResultsTable(matrix);
         
         JOptionPane.showMessageDialog(this, "Analisis SPK berhasil dihitung!", "Sukses", JOptionPane.INFORMATION_MESSAGE);
     }
     
-    private void updateDecisionMatrixTable(List<List<Object>> data) {
-        if (data.isEmpty()) return;
-        
+    private void updateDecisionMatrixTable(SPKMatrixView matrix) {
         JTable table = getTableFromTab(0);
         if (table == null) return;
         
-        DefaultTableModel model = new DefaultTableModel();
-        
-        // Add columns
-        for (Object header : data.get(0)) {
-            model.addColumn(header);
-        }
-        
-        // Add data rows
-        for (int i = 1; i < data.size(); i++) {
-            model.addRow(data.get(i).toArray());
-        }
-        
-        table.setModel(model);
+        table.setModel(matrix.tableModel(SPKMatrixView.Matrix.DECISION));
         
         // Set column alignment
         table.getColumnModel().getColumn(0).setCellRenderer(new CenterAlignedRenderer()); // Title - left aligned
@@ -219,25 +244,11 @@ public class NewSPKFrame extends JFrame {
         }
     }
     
-    private void updateNormalizedMatrixTable(List<List<Object>> data) {
-        if (data.isEmpty()) return;
-        
+    private void updateNormalizedMatrixTable(SPKMatrixView matrix) {
         JTable table = getTableFromTab(1);
         if (table == null) return;
         
-        DefaultTableModel model = new DefaultTableModel();
-        
-        // Add columns
-        for (Object header : data.get(0)) {
-            model.addColumn(header);
-        }
-        
-        // Add data rows
-        for (int i = 1; i < data.size(); i++) {
-            model.addRow(data.get(i).toArray());
-        }
-        
-        table.setModel(model);
+        table.setModel(matrix.tableModel(SPKMatrixView.Matrix.NORMALIZED));
         
         // Set column alignment
         table.getColumnModel().getColumn(0).setCellRenderer(new LeftAlignedRenderer()); // Title - left aligned
@@ -246,25 +257,11 @@ public class NewSPKFrame extends JFrame {
         }
     }
     
-    private void updateFinalResultsTable(List<List<Object>> data) {
-        if (data.isEmpty()) return;
-        
+    private void updateFinalResultsTable(SPKMatrixView matrix) {
         JTable table = getTableFromTab(2);
         if (table == null) return;
         
-        DefaultTableModel model = new DefaultTableModel();
-        
-        // Add columns
-        for (Object header : data.get(0)) {
-            model.addColumn(header);
-        }
-        
-        // Add data rows
-        for (int i = 1; i < data.size(); i++) {
-            model.addRow(data.get(i).toArray());
-        }
-        
-        table.setModel(model);
+        table.setModel(matrix.tableModel(SPKMatrixView.Matrix.FINAL));
         
         // Set column alignment
         table.getColumnModel().getColumn(0).setCellRenderer(new CenterAlignedRenderer()); // Ranking - center aligned
@@ -274,6 +271,12 @@ public class NewSPKFrame extends JFrame {
         }
     }
     
+    // Number of top books to show, 0 for the whole catalog
+    private int getResultLimit() {
+        Object selected = resultCountCombo.getSelectedItem();
+        return selected == null || ALL_RESULTS.equals(selected) ? 0 : Integer.parseInt(selected.toString());
+    }
+    
     private JTable getTableFromTab(int tabIndex) {
         if (tabIndex >= tabbedPane.getTabCount()) return null;
         
@@ -296,6 +299,10 @@ public class NewSPKFrame extends JFrame {
             return;
         }
         
+        if (!exports.confirmNewExport()) {
+            return;
+        }
+        
         JFileChooser fileChooser = new JFileChooser();
         fileChooser.setDialogTitle("Export SPK Analysis to PDF");
         fileChooser.setSelectedFile(new java.io.File("SPK_Analysis.pdf"));
@@ -303,12 +310,22 @@ public class NewSPKFrame extends JFrame {
         int userSelection = fileChooser.showSaveDialog(this);
         if (userSelection == JFileChooser.APPROVE_OPTION) {
             java.io.File fileToSave = fileChooser.getSelectedFile();
-            try {
-                SPKPDFExporter.exportSPKAnalysis(currentResults, fileToSave);
-                JOptionPane.showMessageDialog(this, "PDF berhasil diekspor ke: " + fileToSave.getAbsolutePath(), "Sukses", JOptionPane.INFORMATION_MESSAGE);
-            } catch (Exception ex) {
-                JOptionPane.showMessageDialog(this, "Gagal mengekspor PDF: " + ex.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
-            }
+            List<NewSPKCalculator.SPKResult> results = currentResults;
+            
+            // Large reports take a while; the PDF is written as an export job and the button shows progress
+            exports.submit("Analisis SPK", fileToSave,
+                    (file, progress) -> SPKPDFExporter.exportSPKAnalysis(results, file, progress));
+        }
+    }
+    
+    // Ranking and matrix computed in the background
+    private static class Analysis {
+        final List<NewSPKCalculator.SPKResult> results;
+        final SPKMatrixView matrix;
+        
+        Analysis(List<NewSPKCalculator.SPKResult> results, SPKMatrixView matrix) {
+            this.results = results;
+            this.matrix = matrix;
         }
     }
     
@@ -20,158 +20,343 @@ public class PDFExportUtil {
      * @throws IOException if PDF writing fails
      */
     public static void exportTableToPDF(JTable table, String title, File file) throws IOException {
-        PDDocument document = new PDDocument();
-        PDRectangle landscape = new PDRectangle(PDRectangle.LETTER.getHeight(), PDRectangle.LETTER.getWidth());
-        PDPage page = new PDPage(landscape);
-        document.addPage(page);
+        exportTableToPDF(table.getModel(), title, file);
+    }
 
-        int pageNumber = 1;
-        java.util.List<PDPage> pages = new java.util.ArrayList<>();
-        pages.add(page);
+    /**
+     * Exports the given table model to a PDF file. The cells are copied on the
+     * calling thread, which must be allowed to read the model.
+     * @param model table data to export
+     * @param title Title for the PDF document
+     * @param file Destination PDF file
+     * @throws IOException if PDF writing fails
+     */
+    public static void exportTableToPDF(TableModel model, String title, File file) throws IOException {
+        exportTableToPDF(ReportSnapshot.of(model), title, file, null);
+    }
 
-        PDPageContentStream contentStream = new PDPageContentStream(document, page);
-        float margin = 40;
-        float yStart = page.getMediaBox().getHeight() - margin;
-        int fontSize = 9; // Reduced font size
-        int cardsPerRow = 2; // 2 cards per row
-        float cardSpacing = 18; // Slightly reduced spacing
-        float lineSpacing = 13; // Reduced line spacing
-        float cellMargin = 7; // Reduced padding inside card
-        float cardWidth = (page.getMediaBox().getWidth() - 2 * margin - (cardsPerRow - 1) * cardSpacing) / cardsPerRow;
-        float cardHeightEstimate = 0;
-        java.awt.Color cardBgColor = new java.awt.Color(245, 245, 255); // Subtle blueish background
-        float cardCornerRadius = 8f; // Slightly smaller corner radius
-        float tableColGap = 10; // Gap between field name and value in card
-        float cardTitleTopPadding = 8; // Extra top padding for first field
-        float labelColPercent = 0.3f; // 30% for field name
-        float valueColPercent = 0.7f; // 70% for value
+    /**
+     * Exports a report snapshot to a PDF file, one card per row. Safe to call
+     * from any thread.
+     * <p>
+     * The export runs in two parallel phases on the common ForkJoinPool. The
+     * layout phase wraps every value and sizes every card, then page breaks are
+     * placed in one quick sequential pass. The render phase writes each page's
+     * content stream on its own, and the pages are added to the document in
+     * order. Widths and wrapped lines come from the shared TextLayoutCache, so
+     * values that repeat (category, condition, ...) are not measured again,
+     * within an export or across exports.
+     * @param snapshot rows to export
+     * @param title Title for the PDF document
+     * @param file Destination PDF file
+     * @param progress receives progress and is checked for cancellation between cards and pages; may be null
+     * @throws java.util.concurrent.CancellationException if progress reports the export as cancelled
+     * @throws IOException if PDF writing fails
+     */
+    public static void exportTableToPDF(ReportSnapshot snapshot, String title, File file,
+                                        BackgroundTasks.Progress progress) throws IOException {
+        ExportProgress tracker = new ExportProgress(progress);
+        int cols = snapshot.getColumnCount();
+        int rows = snapshot.getRowCount();
+
+        String[] keys = new String[cols];
+        for (int col = 0; col < cols; col++) {
+            String colName = snapshot.getColumnName(col);
+            keys[col] = LABELS.getOrDefault(colName, colName) + ": ";
+        }
 
         java.text.SimpleDateFormat sdf = new java.text.SimpleDateFormat("dd MMMM yyyy HH:mm", new java.util.Locale("id"));
         String dateStr = sdf.format(new java.util.Date());
-        float headerHeight = 60;
-        float footerHeight = 30;
-        float headerY = page.getMediaBox().getHeight() - margin;
-        float footerY = margin / 2;
-        float pageWidth = page.getMediaBox().getWidth();
-        float pageHeight = page.getMediaBox().getHeight();
-
-        // Mapping English column names to Indonesian labels
-        java.util.Map<String, String> labelMap = new java.util.HashMap<>();
-        labelMap.put("Title", "Judul");
-        labelMap.put("Author", "Penulis");
-        labelMap.put("Category", "Kategori");
-        labelMap.put("Publisher", "Penerbit");
-        labelMap.put("Year", "Tahun");
-        labelMap.put("Pages", "Halaman");
-        labelMap.put("Rating", "Rating");
-        labelMap.put("Price", "Harga");
-        labelMap.put("ISBN", "ISBN");
-        labelMap.put("Borrower Count", "Jumlah Peminjam");
-        labelMap.put("Book Condition", "Kondisi Fisik Buku");
-        labelMap.put("Content Relevance", "Relevansi Isi Buku");
-        labelMap.put("Loan Duration", "Durasi Peminjaman");
-        labelMap.put("Rank", "Peringkat");
-        labelMap.put("SPK Score", "Nilai SPK");
 
-        TableModel model = table.getModel();
-        int cols = model.getColumnCount();
-        int rows = model.getRowCount();
+        // Phase 1: wrap values and size cards in parallel, then place page breaks
+        CardLayout[] cards = new CardLayout[rows];
+        tracker.phase(0, 30, rows, "Menata kartu");
+        inParallel(rows, row -> {
+            cards[row] = layoutCard(snapshot, row);
+            tracker.advance();
+        });
+        java.util.List<Integer> pageStarts = placeCards(cards);
 
-        int cardIndex = 0;
-        float xCard = margin;
-        float yCard = yStart - headerHeight;
-        float maxCardHeightInRow = 0;
+        // Phase 2: render pages in parallel, each away from the export document
+        int pageCount = pageStarts.size();
+        RenderedPage[] rendered = new RenderedPage[pageCount];
+        tracker.phase(30, 95, pageCount, "Menggambar halaman");
+        inParallel(pageCount, p -> {
+            int from = pageStarts.get(p);
+            int to = p + 1 < pageCount ? pageStarts.get(p + 1) : rows;
+            rendered[p] = renderCardPage(keys, cards, from, to, p + 1, title, dateStr);
+            tracker.advance();
+        });
+        tracker.phase(95, 100, 0, "Menyimpan PDF");
 
-        drawHeader(contentStream, title, dateStr, margin, headerY, pageWidth);
-        drawFooter(contentStream, pageNumber, pageWidth, footerY);
-
-        for (int row = 0; row < rows; row++) {
-            float labelColWidth = cardWidth * labelColPercent;
-            float valueColWidth = cardWidth * valueColPercent - 2 * cellMargin;
-            float cardHeight = (cols * lineSpacing) + (2 * cellMargin) + cardTitleTopPadding;
-            for (int col = 0; col < cols; col++) {
-                String colName = model.getColumnName(col);
-                String key = labelMap.getOrDefault(colName, colName) + ": ";
-                Object value = model.getValueAt(row, col);
-                String text = value == null ? "" : value.toString();
-                float keyWidth = labelColWidth;
-                float maxValueWidth = valueColWidth;
-                String[] lines = wrapText(text, PDType1Font.HELVETICA, fontSize, maxValueWidth);
-                if (lines.length > 1) {
-                    cardHeight += (lines.length - 1) * lineSpacing;
-                }
+        // Assemble in page order
+        try (PDDocument document = new PDDocument()) {
+            for (RenderedPage page : rendered) {
+                document.addPage(page.toPage(document));
             }
-            cardHeightEstimate = cardHeight;
+            document.save(file);
+        }
+    }
 
-            if (yCard - cardHeightEstimate < margin + footerHeight) {
-                contentStream.close();
-                page = new PDPage(landscape);
-                document.addPage(page);
-                contentStream = new PDPageContentStream(document, page);
-                pages.add(page);
-                pageNumber++;
-                yCard = yStart - headerHeight;
-                xCard = margin;
+    // Card page geometry (landscape letter)
+    private static final PDRectangle LANDSCAPE = new PDRectangle(PDRectangle.LETTER.getHeight(), PDRectangle.LETTER.getWidth());
+    private static final float MARGIN = 40;
+    private static final float PAGE_WIDTH = LANDSCAPE.getWidth();
+    private static final float PAGE_HEIGHT = LANDSCAPE.getHeight();
+    private static final float Y_START = PAGE_HEIGHT - MARGIN;
+    private static final int FONT_SIZE = 9; // Reduced font size
+    private static final int CARDS_PER_ROW = 2; // 2 cards per row
+    private static final float CARD_SPACING = 18; // Slightly reduced spacing
+    private static final float LINE_SPACING = 13; // Reduced line spacing
+    private static final float CELL_MARGIN = 7; // Reduced padding inside card
+    private static final float CARD_WIDTH = (PAGE_WIDTH - 2 * MARGIN - (CARDS_PER_ROW - 1) * CARD_SPACING) / CARDS_PER_ROW;
+    private static final java.awt.Color CARD_BG_COLOR = new java.awt.Color(245, 245, 255); // Subtle blueish background
+    private static final float CARD_CORNER_RADIUS = 8f; // Slightly smaller corner radius
+    private static final float CARD_TITLE_TOP_PADDING = 8; // Extra top padding for first field
+    private static final float LABEL_COL_WIDTH = CARD_WIDTH * 0.3f; // 30% for field name
+    private static final float VALUE_COL_WIDTH = CARD_WIDTH * 0.7f - 2 * CELL_MARGIN; // 70% for value
+    private static final float HEADER_HEIGHT = 60;
+    private static final float FOOTER_HEIGHT = 30;
+    private static final float HEADER_Y = PAGE_HEIGHT - MARGIN;
+    private static final float FOOTER_Y = MARGIN / 2;
+
+    // Mapping English column names to Indonesian labels
+    private static final java.util.Map<String, String> LABELS = new java.util.HashMap<>();
+    static {
+        LABELS.put("Title", "Judul");
+        LABELS.put("Author", "Penulis");
+        LABELS.put("Category", "Kategori");
+        LABELS.put("Publisher", "Penerbit");
+        LABELS.put("Year", "Tahun");
+        LABELS.put("Pages", "Halaman");
+        LABELS.put("Rating", "Rating");
+        LABELS.put("Price", "Harga");
+        LABELS.put("ISBN", "ISBN");
+        LABELS.put("Borrower Count", "Jumlah Peminjam");
+        LABELS.put("Book Condition", "Kondisi Fisik Buku");
+        LABELS.put("Content Relevance", "Relevansi Isi Buku");
+        LABELS.put("Loan Duration", "Durasi Peminjaman");
+        LABELS.put("Rank", "Peringkat");
+        LABELS.put("SPK Score", "Nilai SPK");
+    }
+
+    private static final TextLayoutCache LAYOUT_CACHE = TextLayoutCache.getInstance();
+
+    // Wrapped value lines and height of one card
+    private static final class CardLayout {
+        final String[][] lines;
+        final float height;
+        float x;
+        float y;
+
+        CardLayout(String[][] lines, float height) {
+            this.lines = lines;
+            this.height = height;
+        }
+    }
+
+    private static CardLayout layoutCard(ReportSnapshot snapshot, int row) throws IOException {
+        int cols = snapshot.getColumnCount();
+        float cardHeight = (cols * LINE_SPACING) + (2 * CELL_MARGIN) + CARD_TITLE_TOP_PADDING;
+        String[][] lines = new String[cols][];
+        for (int col = 0; col < cols; col++) {
+            String[] valueLines = LAYOUT_CACHE.wrap(PDType1Font.HELVETICA, FONT_SIZE, VALUE_COL_WIDTH, snapshot.getText(row, col));
+            lines[col] = valueLines;
+            if (valueLines.length > 1) {
+                cardHeight += (valueLines.length - 1) * LINE_SPACING;
+            }
+        }
+        return new CardLayout(lines, cardHeight);
+    }
+
+    // Give every card its position; returns the index of the first card on each page
+    private static java.util.List<Integer> placeCards(CardLayout[] cards) {
+        java.util.List<Integer> pageStarts = new java.util.ArrayList<>();
+        pageStarts.add(0);
+        int cardIndex = 0;
+        float xCard = MARGIN;
+        float yCard = Y_START - HEADER_HEIGHT;
+        float maxCardHeightInRow = 0;
+
+        for (int row = 0; row < cards.length; row++) {
+            CardLayout card = cards[row];
+            if (yCard - card.height < MARGIN + FOOTER_HEIGHT) {
+                pageStarts.add(row);
+                yCard = Y_START - HEADER_HEIGHT;
+                xCard = MARGIN;
                 cardIndex = 0;
                 maxCardHeightInRow = 0;
-                drawHeader(contentStream, title, dateStr, margin, headerY, pageWidth);
-                drawFooter(contentStream, pageNumber, pageWidth, footerY);
             }
+            card.x = xCard;
+            card.y = yCard;
 
-            drawRoundedRect(contentStream, xCard, yCard - cardHeightEstimate + cellMargin, cardWidth, cardHeightEstimate - cellMargin, cardCornerRadius, cardBgColor);
-            contentStream.setStrokingColor(120, 120, 180);
-            contentStream.addRect(xCard, yCard - cardHeightEstimate + cellMargin, cardWidth, cardHeightEstimate - cellMargin);
-            contentStream.stroke();
+            if (card.height > maxCardHeightInRow) {
+                maxCardHeightInRow = card.height;
+            }
+
+            cardIndex++;
+            if (cardIndex % CARDS_PER_ROW == 0) {
+                yCard -= maxCardHeightInRow + CARD_SPACING;
+                xCard = MARGIN;
+                maxCardHeightInRow = 0;
+            } else {
+                xCard += CARD_WIDTH + CARD_SPACING;
+            }
+        }
+        return pageStarts;
+    }
 
-            float xText = xCard + cellMargin;
-            float yText = yCard - cellMargin - cardTitleTopPadding;
+    private static RenderedPage renderCardPage(String[] keys, CardLayout[] cards, int from, int to,
+                                               int pageNumber, String title, String dateStr) throws IOException {
+        RenderedPage page = new RenderedPage();
+        page.render(contentStream -> {
+            drawHeader(contentStream, title, dateStr, MARGIN, HEADER_Y, PAGE_WIDTH);
+            drawFooter(contentStream, pageNumber, PAGE_WIDTH, FOOTER_Y);
 
-            for (int col = 0; col < cols; col++) {
-                String colName = model.getColumnName(col);
-                String key = labelMap.getOrDefault(colName, colName) + ": ";
-                Object value = model.getValueAt(row, col);
-                String text = value == null ? "" : value.toString();
+            for (int row = from; row < to; row++) {
+                CardLayout card = cards[row];
+                drawRoundedRect(contentStream, card.x, card.y - card.height + CELL_MARGIN, CARD_WIDTH, card.height - CELL_MARGIN, CARD_CORNER_RADIUS, CARD_BG_COLOR);
+                contentStream.setStrokingColor(120, 120, 180);
+                contentStream.addRect(card.x, card.y - card.height + CELL_MARGIN, CARD_WIDTH, card.height - CELL_MARGIN);
+                contentStream.stroke();
 
-                // Draw key (bold, left column, fixed width)
-                contentStream.setNonStrokingColor(0, 32, 96);
-                contentStream.setFont(PDType1Font.HELVETICA_BOLD, fontSize);
-                contentStream.beginText();
-                contentStream.newLineAtOffset(xText, yText);
-                contentStream.showText(key);
-                contentStream.endText();
+                float xText = card.x + CELL_MARGIN;
+                float yText = card.y - CELL_MARGIN - CARD_TITLE_TOP_PADDING;
 
-                // Draw value (right column, wrap if needed, fixed width)
-                contentStream.setNonStrokingColor(30, 30, 30);
-                contentStream.setFont(PDType1Font.HELVETICA, fontSize);
-                float xValue = xText + labelColWidth;
-                float yValue = yText;
-                String[] lines = wrapText(text, PDType1Font.HELVETICA, fontSize, valueColWidth);
-                for (String line : lines) {
+                for (int col = 0; col < keys.length; col++) {
+                    // Draw key (bold, left column, fixed width)
+                    contentStream.setNonStrokingColor(0, 32, 96);
+                    contentStream.setFont(PDType1Font.HELVETICA_BOLD, FONT_SIZE);
                     contentStream.beginText();
-                    contentStream.newLineAtOffset(xValue, yValue);
-                    contentStream.showText(line);
+                    contentStream.newLineAtOffset(xText, yText);
+                    contentStream.showText(keys[col]);
                     contentStream.endText();
-                    yValue -= lineSpacing;
+
+                    // Draw value (right column, wrapped in the layout phase)
+                    contentStream.setNonStrokingColor(30, 30, 30);
+                    contentStream.setFont(PDType1Font.HELVETICA, FONT_SIZE);
+                    float xValue = xText + LABEL_COL_WIDTH;
+                    float yValue = yText;
+                    String[] lines = card.lines[col];
+                    for (String line : lines) {
+                        contentStream.beginText();
+                        contentStream.newLineAtOffset(xValue, yValue);
+                        contentStream.showText(line);
+                        contentStream.endText();
+                        yValue -= LINE_SPACING;
+                    }
+                    yText -= Math.max(LINE_SPACING, (lines.length) * LINE_SPACING);
                 }
-                yText -= Math.max(lineSpacing, (lines.length) * lineSpacing);
             }
+        });
+        return page;
+    }
 
-            if (cardHeightEstimate > maxCardHeightInRow) {
-                maxCardHeightInRow = cardHeightEstimate;
+    /**
+     * A page rendered away from the export document, in a scratch document of its
+     * own, keeping only its resources and compressed content. Only toPage()
+     * touches the export document, so pages can be rendered on several threads
+     * and added in order afterwards.
+     */
+    private static final class RenderedPage {
+        private static final long SCRATCH_MEMORY = 1 << 20;
+
+        private final PDPage page = new PDPage(LANDSCAPE);
+        private byte[] content;
+        private org.apache.pdfbox.cos.COSBase filter;
+
+        // Render into the page, then keep its content stream as encoded bytes
+        void render(PageWriter writer) throws IOException {
+            // A default PDDocument reserves room for 100000 in-memory pages; one page needs a few
+            try (PDDocument scratch = new PDDocument(org.apache.pdfbox.io.MemoryUsageSetting.setupMixed(SCRATCH_MEMORY))) {
+                try (PDPageContentStream contentStream = new PDPageContentStream(scratch, page)) {
+                    writer.write(contentStream);
+                }
+                org.apache.pdfbox.cos.COSStream stream = (org.apache.pdfbox.cos.COSStream)
+                        page.getCOSObject().getDictionaryObject(org.apache.pdfbox.cos.COSName.CONTENTS);
+                try (java.io.InputStream in = stream.createRawInputStream()) {
+                    content = org.apache.pdfbox.io.IOUtils.toByteArray(in);
+                }
+                filter = stream.getFilters();
+                page.getCOSObject().removeItem(org.apache.pdfbox.cos.COSName.CONTENTS);
             }
+        }
 
-            cardIndex++;
-            if (cardIndex % cardsPerRow == 0) {
-                yCard -= maxCardHeightInRow + cardSpacing;
-                xCard = margin;
-                maxCardHeightInRow = 0;
-            } else {
-                xCard += cardWidth + cardSpacing;
+        PDPage toPage(PDDocument document) throws IOException {
+            org.apache.pdfbox.cos.COSStream stream = document.getDocument().createCOSStream();
+            try (java.io.OutputStream out = stream.createRawOutputStream()) {
+                out.write(content);
             }
+            stream.setItem(org.apache.pdfbox.cos.COSName.FILTER, filter);
+            page.setContents(new org.apache.pdfbox.pdmodel.common.PDStream(stream));
+            return page;
+        }
+    }
+
+    private interface PageWriter {
+        void write(PDPageContentStream contentStream) throws IOException;
+    }
+
+    // Work done in the current phase of a card export, reported as a percentage
+    private static final class ExportProgress {
+        private final BackgroundTasks.Progress progress;
+        private final java.util.concurrent.atomic.AtomicInteger done = new java.util.concurrent.atomic.AtomicInteger();
+        private volatile int fromPercent;
+        private volatile int spanPercent;
+        private volatile int total;
+        private volatile String message;
+
+        ExportProgress(BackgroundTasks.Progress progress) {
+            this.progress = progress;
+        }
+
+        // Start a phase covering fromPercent..toPercent; called between parallel phases
+        void phase(int fromPercent, int toPercent, int total, String message) {
+            this.fromPercent = fromPercent;
+            this.spanPercent = toPercent - fromPercent;
+            this.total = total;
+            this.message = message;
+            done.set(0);
+            if (progress != null) {
+                checkCancelled();
+                progress.update(fromPercent, message);
+            }
+        }
+
+        // One card or page finished; safe to call from the workers
+        void advance() {
+            if (progress == null) {
+                return;
+            }
+            checkCancelled();
+            int n = done.incrementAndGet();
+            progress.update(fromPercent + (int) ((long) n * spanPercent / total), message + " (" + n + "/" + total + ")");
+        }
+
+        private void checkCancelled() {
+            if (progress.isCancelled()) {
+                throw new java.util.concurrent.CancellationException("Ekspor PDF dibatalkan");
+            }
+        }
+    }
+
+    private interface IndexTask {
+        void run(int index) throws IOException;
+    }
+
+    // Run a task for 0..count-1 on the common ForkJoinPool, rethrowing the first IOException
+    private static void inParallel(int count, IndexTask task) throws IOException {
+        try {
+            java.util.stream.IntStream.range(0, count).parallel().forEach(index -> {
+                try {
+                    task.run(index);
+                } catch (IOException e) {
+                    throw new java.io.UncheckedIOException(e);
+                }
+            });
+        } catch (java.io.UncheckedIOException e) {
+            throw e.getCause();
         }
-        contentStream.close();
-        document.save(file);
-        document.close();
     }
 
     /**
@@ -437,25 +622,4 @@ public class PDFExportUtil {
         cs.fill();
         cs.restoreGraphicsState();
     }
-
-    // Helper to wrap text for PDFBox
-    private static String[] wrapText(String text, PDType1Font font, int fontSize, float maxWidth) throws IOException {
-        if (text == null || text.isEmpty()) return new String[] {""};
-        String[] words = text.split(" ");
-        StringBuilder line = new StringBuilder();
-        java.util.List<String> lines = new java.util.ArrayList<>();
-        for (String word : words) {
-            String testLine = line.length() == 0 ? word : line + " " + word;
-            float width = font.getStringWidth(testLine) / 1000 * fontSize;
-            if (width > maxWidth) {
-                if (line.length() > 0) lines.add(line.toString());
-                line = new StringBuilder(word);
-            } else {
-                if (line.length() > 0) line.append(" ");
-                line.append(word);
-            }
-        }
-        if (line.length() > 0) lines.add(line.toString());
-        return lines.toArray(new String[0]);
-    }
-} 
\ No newline at end of file
+}
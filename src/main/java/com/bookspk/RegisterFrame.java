@@ -281,58 +281,54 @@ public class RegisterFrame extends JFrame {
             return;
         }
 
-        // Check if username already exists
-        if (userDAO.usernameExists(username)) {
-            statusLabel.setText("Username sudah digunakan");
-            statusLabel.setForeground(ColorPalette.ERROR);
-            return;
-        }
-
         // Show loading state
         registerButton.setText("Mendaftar...");
         registerButton.setEnabled(false);
         statusLabel.setText("");
 
-        // Perform registration in background
-        SwingWorker<Boolean, Void> worker = new SwingWorker<Boolean, Void>() {
-            @Override
-            protected Boolean doInBackground() throws Exception {
-                User newUser = new User(username, password, email);
-                return userDAO.registerUser(newUser);
+        // Check the username and register in background; null means the username is taken
+        BackgroundTasks.getInstance().submit(progress -> {
+            if (userDAO.usernameExists(username)) {
+                return null;
             }
-
+            User newUser = new User(username, password, email);
+            return userDAO.registerUser(newUser);
+        }, new BackgroundTasks.Callback<Boolean>() {
             @Override
-            protected void done() {
-                try {
-                    boolean success = get();
-                    if (success) {
-                        statusLabel.setText("Pendaftaran berhasil! Anda dapat login sekarang.");
-                        statusLabel.setForeground(ColorPalette.SUCCESS);
-
-                        // Clear fields
-                        usernameField.setText("");
-                        emailField.setText("");
-                        passwordField.setText("");
-                        confirmPasswordField.setText("");
-
-                        // Auto-return to login after 2 seconds
-                        Timer timer = new Timer(2000, e -> openLoginFrame());
-                        timer.setRepeats(false);
-                        timer.start();
-                    } else {
-                        statusLabel.setText("Pendaftaran gagal. Silakan coba lagi.");
-                        statusLabel.setForeground(ColorPalette.ERROR);
-                    }
-                } catch (Exception e) {
-                    statusLabel.setText("Error: " + e.getMessage());
+            public void done(Boolean success) {
+                registerButton.setText("Daftar");
+                registerButton.setEnabled(true);
+                if (success == null) {
+                    statusLabel.setText("Username sudah digunakan");
+                    statusLabel.setForeground(ColorPalette.ERROR);
+                } else if (success) {
+                    statusLabel.setText("Pendaftaran berhasil! Anda dapat login sekarang.");
+                    statusLabel.setForeground(ColorPalette.SUCCESS);
+
+                    // Clear fields
+                    usernameField.setText("");
+                    emailField.setText("");
+                    passwordField.setText("");
+                    confirmPasswordField.setText("");
+
+                    // Auto-return to login after 2 seconds
+                    Timer timer = new Timer(2000, e -> openLoginFrame());
+                    timer.setRepeats(false);
+                    timer.start();
+                } else {
+                    statusLabel.setText("Pendaftaran gagal. Silakan coba lagi.");
                     statusLabel.setForeground(ColorPalette.ERROR);
-                } finally {
-                    registerButton.setText("Daftar");
-                    registerButton.setEnabled(true);
                 }
             }
-        };
-        worker.execute();
+
+            @Override
+            public void failed(Exception e) {
+                registerButton.setText("Daftar");
+                registerButton.setEnabled(true);
+                statusLabel.setText("Error: " + e.getMessage());
+                statusLabel.setForeground(ColorPalette.ERROR);
+            }
+        });
     }
 
     private void openLoginFrame() {
@@ -0,0 +1,254 @@
+package com.bookspk;
+
+import javax.swing.table.TableModel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Immutable, column-oriented copy of the data of one report, taken from the
+ * book list or from SPK results. Exporters read a snapshot instead of a Swing
+ * TableModel, so they can run on any thread (or several at once) without
+ * touching the live table, and numbers stay numbers until a cell is printed.
+ * <p>
+ * Each column is one array: String[] for text, int[] or double[] for numbers,
+ * with an optional String.format pattern used by getText. The arrays are owned
+ * by the snapshot and never change after build().
+ */
+public final class ReportSnapshot {
+    // Column names used by ofBooks() and ofResults(); ofResults() adds one level column per criterion code
+    public static final String RANK = "Rank";
+    public static final String TITLE = "Title";
+    public static final String SCORE = "SPK Score";
+
+    private final int rowCount;
+    private final String[] names;
+    private final Object[] columns;
+    private final String[] formats;
+    private final SPKCriteriaPlan plan;
+
+    private ReportSnapshot(Builder builder) {
+        this.rowCount = builder.rowCount;
+        this.names = builder.names.toArray(new String[0]);
+        this.columns = builder.columns.toArray();
+        this.formats = builder.formats.toArray(new String[0]);
+        this.plan = builder.plan;
+    }
+
+    /**
+     * Book list report, with the columns of the book grid (BookTableModel)
+     * @param books books to report, in report order
+     * @return snapshot of the books
+     */
+    public static ReportSnapshot ofBooks(List<Book> books) {
+        int n = books.size();
+        String[] title = new String[n], author = new String[n], category = new String[n], publisher = new String[n];
+        String[] isbn = new String[n], condition = new String[n], relevance = new String[n];
+        int[] year = new int[n], pages = new int[n], borrowers = new int[n], duration = new int[n];
+        double[] rating = new double[n], price = new double[n];
+        for (int i = 0; i < n; i++) {
+            Book book = books.get(i);
+            title[i] = book.getTitle();
+            author[i] = book.getAuthor();
+            category[i] = book.getCategory();
+            publisher[i] = book.getPublisher();
+            year[i] = book.getYear();
+            pages[i] = book.getPages();
+            rating[i] = book.getRating();
+            price[i] = book.getPrice();
+            isbn[i] = book.getIsbn();
+            borrowers[i] = book.getBorrowerCount();
+            condition[i] = book.getBookCondition();
+            relevance[i] = book.getContentRelevance();
+            duration[i] = book.getLoanDuration();
+        }
+        return new Builder(n)
+                .add(TITLE, title)
+                .add("Author", author)
+                .add("Category", category)
+                .add("Publisher", publisher)
+                .add("Year", year, null)
+                .add("Pages", pages, null)
+                .add("Rating", rating, "%.1f")
+                .add("Price", price, "Rp %.0f")
+                .add("ISBN", isbn)
+                .add("Borrower Count", borrowers, null)
+                .add("Book Condition", condition)
+                .add("Content Relevance", relevance)
+                .add("Loan Duration", duration, "%d hari")
+                .build();
+    }
+
+    /**
+     * SPK ranking report: rank, title, the level of every known criterion
+     * (columns C1..C5) and the final score
+     * @param results ranked results, best first
+     * @return snapshot of the results, carrying the plan they were scored with
+     */
+    public static ReportSnapshot ofResults(List<NewSPKCalculator.SPKResult> results) {
+        SPKCriteriaPlan plan = results.isEmpty() ? SPKCriteriaPlan.current() : results.get(0).getPlan();
+        String[] codes = SPKCriteriaPlan.KNOWN_CODES;
+        int n = results.size();
+        int[] rank = new int[n];
+        String[] title = new String[n];
+        int[][] levels = new int[codes.length][n];
+        double[] score = new double[n];
+        int[] ordinals = new int[codes.length];
+        for (int c = 0; c < codes.length; c++) {
+            ordinals[c] = plan.indexOf(codes[c]);
+        }
+        for (int i = 0; i < n; i++) {
+            NewSPKCalculator.SPKResult result = results.get(i);
+            rank[i] = result.getRank();
+            title[i] = result.getBook().getTitle();
+            for (int c = 0; c < codes.length; c++) {
+                levels[c][i] = ordinals[c] < 0 ? -1 : result.getCriteriaScore(ordinals[c]);
+            }
+            score[i] = result.getFinalScore();
+        }
+        Builder builder = new Builder(n).plan(plan)
+                .add(RANK, rank, null)
+                .add(TITLE, title);
+        for (int c = 0; c < codes.length; c++) {
+            builder.add(codes[c], levels[c], null);
+        }
+        return builder.add(SCORE, score, "%.4f").build();
+    }
+
+    /**
+     * Copy of a table model's cells as text; call it on the thread that owns the model
+     * @param model table to copy
+     * @return snapshot with one text column per model column
+     */
+    public static ReportSnapshot of(TableModel model) {
+        int rows = model.getRowCount();
+        Builder builder = new Builder(rows);
+        for (int col = 0; col < model.getColumnCount(); col++) {
+            String[] text = new String[rows];
+            for (int row = 0; row < rows; row++) {
+                Object value = model.getValueAt(row, col);
+                text[row] = value == null ? "" : value.toString();
+            }
+            builder.add(model.getColumnName(col), text);
+        }
+        return builder.build();
+    }
+
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    public int getColumnCount() {
+        return names.length;
+    }
+
+    public String getColumnName(int column) {
+        return names[column];
+    }
+
+    /**
+     * @param name column name
+     * @return index of the column, -1 if there is none
+     */
+    public int indexOf(String name) {
+        return Arrays.asList(names).indexOf(name);
+    }
+
+    /**
+     * @return plan the results were scored with; null for a snapshot not built from SPK results
+     */
+    public SPKCriteriaPlan getPlan() {
+        return plan;
+    }
+
+    /**
+     * Cell as printed: numbers through the column's format, missing text as ""
+     * @param row row index
+     * @param column column index
+     * @return cell text
+     */
+    public String getText(int row, int column) {
+        Object values = columns[column];
+        String format = formats[column];
+        if (values instanceof String[]) {
+            String text = ((String[]) values)[row];
+            return text == null ? "" : text;
+        }
+        if (values instanceof int[]) {
+            int value = ((int[]) values)[row];
+            return format == null ? String.valueOf(value) : String.format(format, value);
+        }
+        double value = ((double[]) values)[row];
+        return format == null ? String.valueOf(value) : String.format(format, value);
+    }
+
+    /**
+     * @throws ClassCastException if the column is not an int column
+     */
+    public int getInt(int row, int column) {
+        return ((int[]) columns[column])[row];
+    }
+
+    /**
+     * @throws ClassCastException if the column is not a double column
+     */
+    public double getDouble(int row, int column) {
+        return ((double[]) columns[column])[row];
+    }
+
+    /**
+     * Assembles a snapshot column by column. Arrays passed in are kept, not
+     * copied, and must not be changed afterwards.
+     */
+    public static final class Builder {
+        private final int rowCount;
+        private final List<String> names = new ArrayList<>();
+        private final List<Object> columns = new ArrayList<>();
+        private final List<String> formats = new ArrayList<>();
+        private SPKCriteriaPlan plan;
+
+        /**
+         * @param rowCount number of rows; every column must have this length
+         */
+        public Builder(int rowCount) {
+            this.rowCount = rowCount;
+        }
+
+        public Builder add(String name, String[] values) {
+            return column(name, values, values.length, null);
+        }
+
+        /**
+         * @param format String.format pattern for getText, null for plain digits
+         */
+        public Builder add(String name, int[] values, String format) {
+            return column(name, values, values.length, format);
+        }
+
+        /**
+         * @param format String.format pattern for getText, null for Double.toString
+         */
+        public Builder add(String name, double[] values, String format) {
+            return column(name, values, values.length, format);
+        }
+
+        public Builder plan(SPKCriteriaPlan plan) {
+            this.plan = plan;
+            return this;
+        }
+
+        public ReportSnapshot build() {
+            return new ReportSnapshot(this);
+        }
+
+        private Builder column(String name, Object values, int length, String format) {
+            if (length != rowCount) {
+                throw new IllegalArgumentException("Column " + name + " has " + length + " rows, expected " + rowCount);
+            }
+            names.add(name);
+            columns.add(values);
+            formats.add(format);
+            return this;
+        }
+    }
+}
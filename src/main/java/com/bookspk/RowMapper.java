@@ -0,0 +1,39 @@
+package com.bookspk;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Turns the current row of a ResultSet into an object. A mapper is created for
+ * one ResultSet: it looks its columns up once when it is created and then reads
+ * every row by index, instead of resolving each column name on each row.
+ *
+ * @param <T> mapped type
+ */
+@FunctionalInterface
+public interface RowMapper<T> {
+
+    /**
+     * Map the current row
+     * @param rs result set positioned on a row
+     * @return the mapped object
+     * @throws SQLException if a column cannot be read
+     */
+    T mapRow(ResultSet rs) throws SQLException;
+
+    /**
+     * Map every remaining row of a result set
+     * @param rs result set to read
+     * @return mapped rows, in result set order
+     * @throws SQLException if a row cannot be read
+     */
+    default List<T> mapAll(ResultSet rs) throws SQLException {
+        List<T> rows = new ArrayList<>();
+        while (rs.next()) {
+            rows.add(mapRow(rs));
+        }
+        return rows;
+    }
+}
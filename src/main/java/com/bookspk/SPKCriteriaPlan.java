@@ -0,0 +1,178 @@
+package com.bookspk;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Immutable scoring plan compiled from the rows of the criteria table.
+ * Weights are normalized to sum to 1 once at compile time, so the scoring loop
+ * only reads a flat double[] instead of looking weights up per book.
+ * The current plan is cached and swapped atomically whenever criteria change.
+ */
+public final class SPKCriteriaPlan {
+    // Criteria codes that have a converter in SPKDataConverter, in converter order
+    public static final String[] KNOWN_CODES = {"C1", "C2", "C3", "C4", "C5"};
+
+    public static final int BORROW_COUNT = 0;     // C1 Jumlah Peminjam
+    public static final int CATEGORY_RATING = 1;  // C2 Kategori dan Rating
+    public static final int CONDITION = 2;        // C3 Kondisi Fisik
+    public static final int RELEVANCE = 3;        // C4 Relevansi Isi
+    public static final int DURATION = 4;         // C5 Durasi Peminjaman
+
+    private static final AtomicReference<SPKCriteriaPlan> CURRENT = new AtomicReference<>();
+
+    private final String[] codes;
+    private final String[] names;
+    private final int[] converters;
+    private final double[] weights;
+
+    private SPKCriteriaPlan(String[] codes, String[] names, int[] converters, double[] weights) {
+        this.codes = codes;
+        this.names = names;
+        this.converters = converters;
+        this.weights = weights;
+    }
+
+    /**
+     * Compile criteria rows into a plan. Rows whose code has no converter are skipped.
+     * @param rows rows from CriteriaDAO.getAllCriteria()
+     * @return compiled plan, or the built-in default plan if no usable row exists
+     */
+    public static SPKCriteriaPlan compile(List<Criteria> rows) {
+        List<Criteria> usable = new ArrayList<>();
+        List<Integer> converterIds = new ArrayList<>();
+        double totalWeight = 0;
+
+        for (Criteria row : rows) {
+            int converter = converterFor(row.getCode());
+            if (converter < 0) {
+                System.err.println("Kriteria " + row.getCode() + " tidak memiliki konversi, diabaikan");
+                continue;
+            }
+            if (converterIds.contains(converter) || row.getBobot() < 0) {
+                continue;
+            }
+            usable.add(row);
+            converterIds.add(converter);
+            totalWeight += toDouble(row.getBobot());
+        }
+
+        if (usable.isEmpty() || totalWeight <= 0) {
+            return defaults();
+        }
+
+        int n = usable.size();
+        String[] codes = new String[n];
+        String[] names = new String[n];
+        int[] converters = new int[n];
+        double[] weights = new double[n];
+        for (int i = 0; i < n; i++) {
+            Criteria row = usable.get(i);
+            codes[i] = KNOWN_CODES[converterIds.get(i)];
+            names[i] = row.getName();
+            converters[i] = converterIds.get(i);
+            weights[i] = toDouble(row.getBobot()) / totalWeight;
+        }
+        return new SPKCriteriaPlan(codes, names, converters, weights);
+    }
+
+    /**
+     * @return plan built from the hard-coded weights in SPKDataConverter
+     */
+    public static SPKCriteriaPlan defaults() {
+        int n = KNOWN_CODES.length;
+        String[] names = new String[n];
+        int[] converters = new int[n];
+        double[] weights = new double[n];
+        for (int i = 0; i < n; i++) {
+            names[i] = SPKDataConverter.getCriteriaName(KNOWN_CODES[i]);
+            converters[i] = i;
+            weights[i] = SPKDataConverter.getCriteriaWeight(KNOWN_CODES[i]);
+        }
+        return new SPKCriteriaPlan(KNOWN_CODES.clone(), names, converters, weights);
+    }
+
+    /**
+     * Get the cached plan, loading it from the criteria table on first use.
+     * If the table cannot be read the default plan is returned but not cached,
+     * so the next call reads the table again.
+     * @return current plan
+     */
+    public static SPKCriteriaPlan current() {
+        SPKCriteriaPlan plan = CURRENT.get();
+        if (plan != null) {
+            return plan;
+        }
+        try {
+            return reload();
+        } catch (SQLException e) {
+            System.err.println("Error loading SPK criteria: " + e.getMessage());
+            return defaults();
+        }
+    }
+
+    /**
+     * Recompile the plan from the criteria table and swap it in
+     * @return the new current plan
+     * @throws SQLException if the table cannot be read; the cached plan is left as it was
+     */
+    public static SPKCriteriaPlan reload() throws SQLException {
+        SPKCriteriaPlan plan = compile(new CriteriaDAO().loadAllCriteria());
+        CURRENT.set(plan);
+        return plan;
+    }
+
+    /**
+     * Drop the cached plan so the next current() reads the criteria table again
+     */
+    public static void invalidate() {
+        CURRENT.set(null);
+    }
+
+    /**
+     * Replace the current plan, e.g. with a fixed plan when no database is available
+     * @param plan plan to install
+     */
+    public static void install(SPKCriteriaPlan plan) {
+        CURRENT.set(plan);
+    }
+
+    private static int converterFor(String code) {
+        if (code == null) return -1;
+        String trimmed = code.trim();
+        for (int i = 0; i < KNOWN_CODES.length; i++) {
+            if (KNOWN_CODES[i].equalsIgnoreCase(trimmed)) return i;
+        }
+        return -1;
+    }
+
+    // bobot is a FLOAT column; go through its decimal form so 0.30f becomes 0.30
+    private static double toDouble(float bobot) {
+        return Double.parseDouble(Float.toString(bobot));
+    }
+
+    public int size() { return codes.length; }
+    public String getCode(int ordinal) { return codes[ordinal]; }
+    public String getName(int ordinal) { return names[ordinal]; }
+    public int getConverter(int ordinal) { return converters[ordinal]; }
+    public double getWeight(int ordinal) { return weights[ordinal]; }
+
+    /**
+     * @return copy of the normalized weights, indexed by ordinal
+     */
+    public double[] getWeights() {
+        return weights.clone();
+    }
+
+    /**
+     * @return ordinal of the given criteria code, or -1 if it is not in this plan
+     */
+    public int indexOf(String code) {
+        for (int i = 0; i < codes.length; i++) {
+            if (codes[i].equals(code)) return i;
+        }
+        return -1;
+    }
+}
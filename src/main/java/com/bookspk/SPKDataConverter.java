@@ -1,57 +1,191 @@
 package com.bookspk;
 
 public class SPKDataConverter {
-    
+
+    // Default bobot for values that are not in any rule
+    private static final int DEFAULT_WEIGHT = 3;
+
+    // Kondisi Fisik Buku, resolved once per Book instead of per comparison
+    public enum ConditionCode {
+        UNKNOWN(null, 0),
+        RUSAK_BERAT("Rusak Berat", 1),
+        RUSAK_RINGAN("Rusak Ringan", 2),
+        SEDIKIT_BAIK("Sedikit Baik", 3),
+        BAIK("Baik", 4),
+        SANGAT_BAIK("Sangat Baik", 5);
+
+        private final String label;
+        private final int level;
+
+        ConditionCode(String label, int level) {
+            this.label = label;
+            this.level = level;
+        }
+
+        public String getLabel() { return label; }
+        // 1-5, or 0 when the value is not recognised
+        public int getLevel() { return level; }
+
+        public static ConditionCode of(String condition) {
+            for (ConditionCode code : VALUES) {
+                if (code.label != null && code.label.equalsIgnoreCase(condition)) return code;
+            }
+            return UNKNOWN;
+        }
+
+        private static final ConditionCode[] VALUES = values();
+    }
+
+    // Relevansi Isi Buku, resolved once per Book instead of per comparison
+    public enum RelevanceCode {
+        UNKNOWN(null, 0),
+        TIDAK_RELEVAN("Tidak Relevan", 1),
+        KURANG_RELEVAN("Kurang Relevan", 2),
+        CUKUP_RELEVAN("Cukup Relevan", 3),
+        RELEVAN("Relevan", 4),
+        SANGAT_RELEVAN("Sangat Relevan", 5);
+
+        private final String label;
+        private final int level;
+
+        RelevanceCode(String label, int level) {
+            this.label = label;
+            this.level = level;
+        }
+
+        public String getLabel() { return label; }
+        // 1-5, or 0 when the value is not recognised
+        public int getLevel() { return level; }
+
+        public static RelevanceCode of(String relevance) {
+            for (RelevanceCode code : VALUES) {
+                if (code.label != null && code.label.equalsIgnoreCase(relevance)) return code;
+            }
+            return UNKNOWN;
+        }
+
+        private static final RelevanceCode[] VALUES = values();
+    }
+
+    // Kategori Jenis Buku with its rating range for C2
+    public enum CategoryCode {
+        OTHER(null, 0, 0.0, 0.0),
+        ENSIKLOPEDIA("Ensiklopedia", 1, 1.0, 1.9),
+        KOMIK_MANGA("Komik & Manga", 2, 2.0, 3.1),
+        NON_FIKSI("Non-Fiksi", 3, 3.1, 4.0),
+        FIKSI("Fiksi", 4, 4.1, 4.5),
+        PENDIDIKAN("Pendidikan", 5, 4.6, 5.0);
+
+        private final String label;
+        private final int weight;
+        private final double minRating;
+        private final double maxRating;
+
+        CategoryCode(String label, int weight, double minRating, double maxRating) {
+            this.label = label;
+            this.weight = weight;
+            this.minRating = minRating;
+            this.maxRating = maxRating;
+        }
+
+        public String getLabel() { return label; }
+
+        public static CategoryCode of(String category) {
+            for (CategoryCode code : VALUES) {
+                if (code.label != null && code.label.equalsIgnoreCase(category)) return code;
+            }
+            return OTHER;
+        }
+
+        private static final CategoryCode[] VALUES = values();
+    }
+
+    // Lookup tables, built once from the rules below
+    private static final int MAX_BORROW_COUNT = 100;
+    private static final int MAX_DURATION = 15;
+    private static final int RATING_BUCKETS = 51; // 0.0 .. 5.0 in steps of 0.1
+    private static final byte[] BORROW_COUNT_TABLE = new byte[MAX_BORROW_COUNT + 1];
+    private static final byte[] DURATION_TABLE = new byte[MAX_DURATION + 1];
+    private static final byte[][] CATEGORY_RATING_TABLE = new byte[CategoryCode.values().length][RATING_BUCKETS];
+
+    static {
+        for (int count = 0; count <= MAX_BORROW_COUNT; count++) {
+            BORROW_COUNT_TABLE[count] = (byte) borrowCountRule(count);
+        }
+        for (int duration = 0; duration <= MAX_DURATION; duration++) {
+            DURATION_TABLE[duration] = (byte) borrowDurationRule(duration);
+        }
+        for (CategoryCode code : CategoryCode.values()) {
+            for (int bucket = 0; bucket < RATING_BUCKETS; bucket++) {
+                CATEGORY_RATING_TABLE[code.ordinal()][bucket] = (byte) categoryAndRatingRule(code, bucket / 10.0);
+            }
+        }
+    }
+
     // C1. Jumlah Peminjam dan Bobot
     public static int convertBorrowCountToWeight(int borrowCount) {
-        if (borrowCount >= 1 && borrowCount <= 20) return 1;
-        if (borrowCount >= 21 && borrowCount <= 40) return 2;
-        if (borrowCount >= 41 && borrowCount <= 60) return 3;
-        if (borrowCount >= 61 && borrowCount <= 80) return 4;
-        if (borrowCount >= 81 && borrowCount <= 100) return 5;
-        return 1; // default
+        if (borrowCount < 0 || borrowCount > MAX_BORROW_COUNT) return 1; // default
+        return BORROW_COUNT_TABLE[borrowCount];
     }
-    
+
     // C2. Kategori Jenis Buku, Rata Rata Rating, Bobot
     public static int convertCategoryAndRatingToWeight(String category, double rating) {
-        if ("Ensiklopedia".equalsIgnoreCase(category) && rating >= 1.0 && rating <= 1.9) return 1;
-        if ("Komik & Manga".equalsIgnoreCase(category) && rating >= 2.0 && rating <= 3.1) return 2;
-        if ("Non-Fiksi".equalsIgnoreCase(category) && rating >= 3.1 && rating <= 4.0) return 3;
-        if ("Fiksi".equalsIgnoreCase(category) && rating >= 4.1 && rating <= 4.5) return 4;
-        if ("Pendidikan".equalsIgnoreCase(category) && rating >= 4.6 && rating <= 5.0) return 5;
-        
-        // Fallback based on category only
-        if ("Ensiklopedia".equalsIgnoreCase(category)) return 1;
-        if ("Komik & Manga".equalsIgnoreCase(category)) return 2;
-        if ("Non-Fiksi".equalsIgnoreCase(category)) return 3;
-        if ("Fiksi".equalsIgnoreCase(category)) return 4;
-        if ("Pendidikan".equalsIgnoreCase(category)) return 5;
-        
-        return 3; // default
+        return convertCategoryAndRatingToWeight(CategoryCode.of(category), rating);
+    }
+
+    // C2 for a category that has already been resolved
+    public static int convertCategoryAndRatingToWeight(CategoryCode category, double rating) {
+        int bucket = (int) Math.floor(rating * 10 + 1e-9);
+        if (bucket < 0 || bucket >= RATING_BUCKETS) {
+            return categoryAndRatingRule(category, rating);
+        }
+        return CATEGORY_RATING_TABLE[category.ordinal()][bucket];
     }
-    
+
     // C3. Kondisi Fisik Buku, bobot
     public static int convertPhysicalConditionToWeight(String condition) {
-        if ("Rusak Berat".equalsIgnoreCase(condition)) return 1;
-        if ("Rusak Ringan".equalsIgnoreCase(condition)) return 2;
-        if ("Sedikit Baik".equalsIgnoreCase(condition)) return 3;
-        if ("Baik".equalsIgnoreCase(condition)) return 4;
-        if ("Sangat Baik".equalsIgnoreCase(condition)) return 5;
-        return 3; // default
+        return convertPhysicalConditionToWeight(ConditionCode.of(condition));
     }
-    
+
+    public static int convertPhysicalConditionToWeight(ConditionCode condition) {
+        return condition.level == 0 ? DEFAULT_WEIGHT : condition.level;
+    }
+
     // C4. Relevansi Isi Buku, Bobot
     public static int convertContentRelevanceToWeight(String relevance) {
-        if ("Tidak Relevan".equalsIgnoreCase(relevance)) return 1;
-        if ("Kurang Relevan".equalsIgnoreCase(relevance)) return 2;
-        if ("Cukup Relevan".equalsIgnoreCase(relevance)) return 3;
-        if ("Relevan".equalsIgnoreCase(relevance)) return 4;
-        if ("Sangat Relevan".equalsIgnoreCase(relevance)) return 5;
-        return 3; // default
+        return convertContentRelevanceToWeight(RelevanceCode.of(relevance));
+    }
+
+    public static int convertContentRelevanceToWeight(RelevanceCode relevance) {
+        return relevance.level == 0 ? DEFAULT_WEIGHT : relevance.level;
     }
-    
+
     // C5. Durasi Peminjaman, Keterangan, Bobot
     public static int convertBorrowDurationToWeight(int duration) {
+        if (duration < 0) return 1; // Sangat Singkat
+        if (duration > MAX_DURATION) return 5; // Sangat Lama
+        return DURATION_TABLE[duration];
+    }
+
+    // Rules the tables are built from
+
+    private static int borrowCountRule(int borrowCount) {
+        if (borrowCount >= 1 && borrowCount <= 20) return 1;
+        if (borrowCount >= 21 && borrowCount <= 40) return 2;
+        if (borrowCount >= 41 && borrowCount <= 60) return 3;
+        if (borrowCount >= 61 && borrowCount <= 80) return 4;
+        if (borrowCount >= 81 && borrowCount <= 100) return 5;
+        return 1; // default
+    }
+
+    private static int categoryAndRatingRule(CategoryCode category, double rating) {
+        if (category == CategoryCode.OTHER) return DEFAULT_WEIGHT;
+        if (rating >= category.minRating && rating <= category.maxRating) return category.weight;
+        // Fallback based on category only
+        return category.weight;
+    }
+
+    private static int borrowDurationRule(int duration) {
         if (duration < 3) return 1; // Sangat Singkat
         if (duration >= 3 && duration <= 6) return 2; // Singkat
         if (duration >= 7 && duration <= 10) return 3; // Sedang
@@ -59,7 +193,7 @@ public class SPKDataConverter {
         if (duration > 14) return 5; // Sangat Lama
         return 3; // default
     }
-    
+
     // Get bobot kriteria
     public static double getCriteriaWeight(String criteriaCode) {
         switch (criteriaCode) {
@@ -71,7 +205,7 @@ public class SPKDataConverter {
             default: return 0.0;
         }
     }
-    
+
     // Get nama kriteria
     public static String getCriteriaName(String criteriaCode) {
         switch (criteriaCode) {
@@ -83,4 +217,4 @@ public class SPKDataConverter {
             default: return "Unknown";
         }
     }
-} 
\ No newline at end of file
+}
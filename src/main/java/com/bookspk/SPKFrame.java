@@ -9,6 +9,7 @@ import javax.swing.Timer;
 import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -32,6 +33,20 @@ public class SPKFrame extends JFrame {
     // Result count selection
     private JComboBox<Integer> resultCountCombo;
     
+    // A new calculation supersedes one still running
+    private final BackgroundTasks.Lane spkLane = BackgroundTasks.newLane();
+    
+    // Live what-if ranking while the sliders move
+    private static final int LIVE_DELAY_MS = 40;
+    private JCheckBox liveCheckBox;
+    private Timer liveTimer;
+    private volatile SPKLiveRanking liveRanking;
+    // Orders publishing a new live snapshot against the reset in calculateSPK
+    private final Object liveRankingLock = new Object();
+    private boolean livePending = false;
+    // Book id shown in each table row, to update only the rows that change
+    private final List<Integer> shownBookIds = new ArrayList<>();
+    
     public SPKFrame(BookDAO bookDAO) {
         this.bookDAO = bookDAO;
         initializeUI();
@@ -266,6 +281,30 @@ public class SPKFrame extends JFrame {
         gbc.anchor = GridBagConstraints.CENTER;
         panel.add(loanDurationSlider, gbc);
         
+        // Live ranking toggle
+        liveCheckBox = new JCheckBox("Perbarui hasil saat slider digeser", true);
+        liveCheckBox.setFont(new Font("Segoe UI", Font.PLAIN, 13));
+        liveCheckBox.setForeground(ColorPalette.TEXT_PRIMARY);
+        liveCheckBox.setOpaque(false);
+        gbc.gridx = 0;
+        gbc.gridy = 5;
+        gbc.gridwidth = 2;
+        gbc.anchor = GridBagConstraints.CENTER;
+        panel.add(liveCheckBox, gbc);
+        
+        // Changes within LIVE_DELAY_MS are coalesced into one re-ranking
+        liveTimer = new Timer(LIVE_DELAY_MS, e -> runLiveRanking());
+        liveTimer.setRepeats(false);
+        javax.swing.event.ChangeListener liveListener = e -> {
+            if (liveCheckBox.isSelected() && !liveTimer.isRunning()) {
+                liveTimer.start();
+            }
+        };
+        borrowerCountSlider.addChangeListener(liveListener);
+        bookConditionSlider.addChangeListener(liveListener);
+        contentRelevanceSlider.addChangeListener(liveListener);
+        loanDurationSlider.addChangeListener(liveListener);
+        
         // Calculate Button
         calculateButton = new GradientButton("Hitung SPK", ColorPalette.PRIMARY_BLUE, ColorPalette.SECONDARY_BLUE);
         calculateButton.setPreferredSize(new Dimension(220, 50));
@@ -275,7 +314,7 @@ public class SPKFrame extends JFrame {
             calculateSPK(selectedCount != null ? selectedCount : 5);
         });
         gbc.gridx = 0;
-        gbc.gridy = 5;
+        gbc.gridy = 6;
         gbc.gridwidth = 2;
         gbc.anchor = GridBagConstraints.CENTER;
         gbc.insets = new Insets(20, 12, 12, 12); // Extra top margin for button
@@ -417,44 +456,141 @@ public class SPKFrame extends JFrame {
     }
     
     private void calculateSPK(int resultCount) {
+        double[] weights = getWeights();
+        
+        spkResultLabel.setText("Menghitung SPK...");
+        spkResultLabel.setForeground(ColorPalette.TEXT_SECONDARY);
+        
+        // Get top books using SPK with the specified result count, off the EDT
+        spkLane.submit(progress -> bookDAO.getTopBooksSPK(resultCount, weights), rankingCallback(true));
+        
+        // A full calculation reads the current catalog; the next live ranking takes a fresh snapshot.
+        // Cleared after submit, which cancelled any live task, so a snapshot it is still
+        // building is either dropped here or not published at all.
+        synchronized (liveRankingLock) {
+            liveRanking = null;
+        }
+    }
+    
+    /**
+     * Re-rank the in-memory snapshot with the current slider values. While a
+     * ranking is still running, further changes only mark it pending and one
+     * more ranking runs with the latest values when it finishes.
+     */
+    private void runLiveRanking() {
+        if (spkLane.isBusy()) {
+            livePending = true;
+            return;
+        }
+        double[] weights = getWeights();
+        Integer selectedCount = (Integer) resultCountCombo.getSelectedItem();
+        int resultCount = selectedCount != null ? selectedCount : 5;
+        
+        spkLane.submit(progress -> {
+            SPKLiveRanking ranking = liveRanking;
+            if (ranking == null) {
+                // Criteria are copied into columns once; later slider moves only rescore them
+                ranking = new SPKLiveRanking(bookDAO.getAllBooks());
+                synchronized (liveRankingLock) {
+                    // A superseded task must not bring back a snapshot calculateSPK dropped
+                    if (!progress.isCancelled()) {
+                        liveRanking = ranking;
+                    }
+                }
+            }
+            return ranking.top(weights, resultCount);
+        }, rankingCallback(false));
+    }
+    
+    /**
+     * @param relayout true to reset the panel layout as after a full calculation;
+     *                 live updates leave it alone while the user drags
+     */
+    private BackgroundTasks.Callback<List<BookDAO.BookSPKResult>> rankingCallback(boolean relayout) {
+        return new BackgroundTasks.Callback<List<BookDAO.BookSPKResult>>() {
+            @Override
+            public void done(List<BookDAO.BookSPKResult> topBooks) {
+                showResults(topBooks);
+                if (relayout) {
+                    resetLayout();
+                }
+                runPendingLiveRanking();
+            }
+            
+            @Override
+            public void failed(Exception e) {
+                spkResultLabel.setText("Gagal menghitung SPK: " + e.getMessage());
+                spkResultLabel.setForeground(ColorPalette.ERROR);
+                runPendingLiveRanking();
+            }
+        };
+    }
+    
+    private void runPendingLiveRanking() {
+        if (livePending) {
+            livePending = false;
+            runLiveRanking();
+        }
+    }
+    
+    private double[] getWeights() {
         // Get weights from sliders for new SPK criteria
         double borrowerCountWeight = borrowerCountSlider.getValue() / 100.0;
         double bookConditionWeight = bookConditionSlider.getValue() / 5.0;
         double contentRelevanceWeight = contentRelevanceSlider.getValue() / 5.0;
         double loanDurationWeight = loanDurationSlider.getValue() / 5.0;
         
-        double[] weights = {borrowerCountWeight, bookConditionWeight, contentRelevanceWeight, loanDurationWeight};
-        
-        // Get top books using SPK with the specified result count
-        List<BookDAO.BookSPKResult> topBooks = bookDAO.getTopBooksSPK(resultCount, weights);
-        
-        // Clear existing table data
-        spkTableModel.setRowCount(0);
+        return new double[]{borrowerCountWeight, bookConditionWeight, contentRelevanceWeight, loanDurationWeight};
+    }
+    
+    private void showResults(List<BookDAO.BookSPKResult> topBooks) {
+        // Update only the rows whose book or score changed, so the table does not flicker while dragging
+        int rowCount = topBooks.size();
+        while (spkTableModel.getRowCount() > rowCount) {
+            spkTableModel.removeRow(spkTableModel.getRowCount() - 1);
+            shownBookIds.remove(shownBookIds.size() - 1);
+        }
         
-        // Add results to table
-        for (int i = 0; i < topBooks.size(); i++) {
+        for (int i = 0; i < rowCount; i++) {
             BookDAO.BookSPKResult result_book = topBooks.get(i);
             Book book = result_book.getBook();
-            double spkScore = result_book.getSpkScore();
+            String spkScore = String.format("%.3f", result_book.getSpkScore());
             
-            Object[] row = {
-                i + 1, // Rank
-                book.getTitle(),
-                book.getAuthor(),
-                book.getCategory(),
-                book.getBorrowerCount(),
-                book.getBookCondition(),
-                book.getContentRelevance(),
-                book.getLoanDuration() + " hari",
-                String.format("%.3f", spkScore)
-            };
-            spkTableModel.addRow(row);
+            if (i >= spkTableModel.getRowCount()) {
+                Object[] row = {
+                    i + 1, // Rank
+                    book.getTitle(),
+                    book.getAuthor(),
+                    book.getCategory(),
+                    book.getBorrowerCount(),
+                    book.getBookCondition(),
+                    book.getContentRelevance(),
+                    book.getLoanDuration() + " hari",
+                    spkScore
+                };
+                spkTableModel.addRow(row);
+                shownBookIds.add(book.getId());
+            } else if (shownBookIds.get(i) != book.getId()) {
+                spkTableModel.setValueAt(book.getTitle(), i, 1);
+                spkTableModel.setValueAt(book.getAuthor(), i, 2);
+                spkTableModel.setValueAt(book.getCategory(), i, 3);
+                spkTableModel.setValueAt(book.getBorrowerCount(), i, 4);
+                spkTableModel.setValueAt(book.getBookCondition(), i, 5);
+                spkTableModel.setValueAt(book.getContentRelevance(), i, 6);
+                spkTableModel.setValueAt(book.getLoanDuration() + " hari", i, 7);
+                spkTableModel.setValueAt(spkScore, i, 8);
+                shownBookIds.set(i, book.getId());
+            } else if (!spkScore.equals(spkTableModel.getValueAt(i, 8))) {
+                spkTableModel.setValueAt(spkScore, i, 8);
+            }
         }
         
         // Update status
         spkResultLabel.setText(String.format("Analisis SPK selesai. Menampilkan buku teratas berdasarkan preferensi kriteria Anda.", topBooks.size()));
         spkResultLabel.setForeground(ColorPalette.SUCCESS);
-        
+    }
+    
+    private void resetLayout() {
         spkPanel.revalidate();
         spkPanel.repaint();
         
@@ -0,0 +1,52 @@
+package com.bookspk;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * What-if ranking for the SPKFrame weight sliders. The catalog's criteria are
+ * copied once into an SPKScoringEngine; after that every weight change is a
+ * rescore of the primitive columns and a bounded top-K, with no database
+ * access and no per-book allocation.
+ * <p>
+ * The snapshot does not follow later catalog edits; build a new one to pick
+ * them up. Ties rank in catalog order, like BookDAO.getTopBooksSPK.
+ */
+public class SPKLiveRanking {
+    private final SPKScoringEngine engine;
+    private final double[] scores;
+
+    /**
+     * @param books catalog in catalog order, e.g. BookDAO.getAllBooks()
+     */
+    public SPKLiveRanking(List<Book> books) {
+        this.engine = SPKScoringEngine.fromBooks(books);
+        this.scores = new double[engine.size()];
+    }
+
+    /**
+     * @return number of books in the snapshot
+     */
+    public int size() {
+        return engine.size();
+    }
+
+    /**
+     * Rank the snapshot with new weights
+     * @param weights raw weights [borrowerCount, bookCondition, contentRelevance, loanDuration]
+     * @param limit number of top books to return
+     * @return best books first, with their scores
+     */
+    public synchronized List<BookDAO.BookSPKResult> top(double[] weights, int limit) {
+        List<BookDAO.BookSPKResult> results = new ArrayList<>();
+        if (engine.size() == 0) {
+            return results;
+        }
+        // The score buffer is reused between calls, hence synchronized
+        engine.score(SPKScoringEngine.normalizeWeights(weights), scores);
+        for (int index : TopKSelector.select(scores, limit)) {
+            results.add(new BookDAO.BookSPKResult(engine.getBook(index), scores[index]));
+        }
+        return results;
+    }
+}
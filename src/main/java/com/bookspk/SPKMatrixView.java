@@ -0,0 +1,206 @@
+package com.bookspk;
+
+import javax.swing.table.AbstractTableModel;
+import java.util.List;
+
+/**
+ * Read-only view of the SPK matrices (decision, normalized and final results)
+ * over a ranked result list. Nothing is copied or formatted up front: cells are
+ * read from the primitive scores of each SPKResult when asked for, and decimal
+ * cells are formatted only when a table renders them or an exporter writes them.
+ * Building a view costs one array copy of the result references, however many
+ * criteria there are.
+ * <p>
+ * Each matrix is exposed through row/column accessors and as an
+ * AbstractTableModel for the NewSPKFrame tables. The results must not be
+ * re-scored while a view is in use.
+ */
+public final class SPKMatrixView {
+    private static final String TITLE_HEADER = "Judul Buku";
+    private static final String SCORE_HEADER = "Nilai Akhir";
+    private static final String RANK_HEADER = "Ranking";
+    private static final String DECIMAL_FORMAT = "%.4f";
+
+    /**
+     * The matrices of the SAW method, in the order they are shown
+     */
+    public enum Matrix {
+        /** Title and the level of each criterion */
+        DECISION,
+        /** Title, each level divided by the maximum level, and the final score */
+        NORMALIZED,
+        /** Rank, title, each weighted normalized level, and the final score */
+        FINAL
+    }
+
+    private final NewSPKCalculator.SPKResult[] results;
+    private final SPKCriteriaPlan plan;
+
+    /**
+     * @param results ranked results, best first, all scored with the same plan
+     * @param plan plan the results were scored with, used for the empty list
+     */
+    public SPKMatrixView(List<NewSPKCalculator.SPKResult> results, SPKCriteriaPlan plan) {
+        this.results = results.toArray(new NewSPKCalculator.SPKResult[0]);
+        this.plan = results.isEmpty() ? plan : results.get(0).getPlan();
+    }
+
+    public SPKCriteriaPlan getPlan() {
+        return plan;
+    }
+
+    public int getRowCount() {
+        return results.length;
+    }
+
+    /**
+     * @param matrix matrix to describe
+     * @return number of columns, criteria included
+     */
+    public int getColumnCount(Matrix matrix) {
+        switch (matrix) {
+            case DECISION: return 1 + plan.size();
+            case NORMALIZED: return 2 + plan.size();
+            default: return 3 + plan.size();
+        }
+    }
+
+    /**
+     * @param matrix matrix to describe
+     * @param column column index
+     * @return column header; final result criteria show their weight, as "C1 (25%)"
+     */
+    public String getColumnName(Matrix matrix, int column) {
+        int criterion = criterionOf(matrix, column);
+        if (criterion >= 0) {
+            String code = plan.getCode(criterion);
+            return matrix == Matrix.FINAL ? String.format("%s (%.0f%%)", code, plan.getWeight(criterion) * 100) : code;
+        }
+        if (matrix == Matrix.FINAL && column == 0) {
+            return RANK_HEADER;
+        }
+        return column == getColumnCount(matrix) - 1 && matrix != Matrix.DECISION ? SCORE_HEADER : TITLE_HEADER;
+    }
+
+    /**
+     * Criterion ordinal shown in a column
+     * @param matrix matrix to look in
+     * @param column column index
+     * @return criterion ordinal in the plan, -1 for the rank, title and score columns
+     */
+    public int criterionOf(Matrix matrix, int column) {
+        int criterion = column - (matrix == Matrix.FINAL ? 2 : 1);
+        return criterion >= 0 && criterion < plan.size() ? criterion : -1;
+    }
+
+    /**
+     * Cell as shown in the tables: the title, the rank and decision levels as
+     * Integer, and every decimal formatted with four digits
+     * @param matrix matrix to read
+     * @param row row index, 0 for the best result
+     * @param column column index
+     * @return cell value, formatted on this call
+     */
+    public Object getValueAt(Matrix matrix, int row, int column) {
+        NewSPKCalculator.SPKResult result = results[row];
+        int criterion = criterionOf(matrix, column);
+        if (criterion >= 0) {
+            if (matrix == Matrix.DECISION) {
+                return result.getCriteriaScore(criterion);
+            }
+            return format(matrix == Matrix.NORMALIZED
+                    ? result.getNormalizedScore(criterion) : result.getWeightedScore(criterion));
+        }
+        if (matrix == Matrix.FINAL && column == 0) {
+            return result.getRank();
+        }
+        if (column == getColumnCount(matrix) - 1 && matrix != Matrix.DECISION) {
+            return format(result.getFinalScore());
+        }
+        return result.getBook().getTitle();
+    }
+
+    /**
+     * Unformatted numeric cell
+     * @param matrix matrix to read
+     * @param row row index
+     * @param column column index of a criterion, the rank or the final score
+     * @return cell value as a double
+     * @throws IllegalArgumentException for the title column
+     */
+    public double getNumber(Matrix matrix, int row, int column) {
+        NewSPKCalculator.SPKResult result = results[row];
+        int criterion = criterionOf(matrix, column);
+        if (criterion >= 0) {
+            switch (matrix) {
+                case DECISION: return result.getCriteriaScore(criterion);
+                case NORMALIZED: return result.getNormalizedScore(criterion);
+                default: return result.getWeightedScore(criterion);
+            }
+        }
+        if (matrix == Matrix.FINAL && column == 0) {
+            return result.getRank();
+        }
+        if (column == getColumnCount(matrix) - 1 && matrix != Matrix.DECISION) {
+            return result.getFinalScore();
+        }
+        throw new IllegalArgumentException("Column " + column + " of " + matrix + " is not numeric");
+    }
+
+    /**
+     * @param row row index, 0 for the best result
+     * @return the result behind a row
+     */
+    public NewSPKCalculator.SPKResult getResult(int row) {
+        return results[row];
+    }
+
+    /**
+     * Table model over one matrix. Cells are read from the view on every
+     * getValueAt, so only the rows a table actually paints are formatted.
+     * @param matrix matrix to show
+     * @return read-only table model
+     */
+    public AbstractTableModel tableModel(Matrix matrix) {
+        return new MatrixTableModel(this, matrix);
+    }
+
+    private static String format(double value) {
+        return String.format(DECIMAL_FORMAT, value);
+    }
+
+    private static final class MatrixTableModel extends AbstractTableModel {
+        private final SPKMatrixView view;
+        private final Matrix matrix;
+
+        MatrixTableModel(SPKMatrixView view, Matrix matrix) {
+            this.view = view;
+            this.matrix = matrix;
+        }
+
+        @Override
+        public int getRowCount() {
+            return view.getRowCount();
+        }
+
+        @Override
+        public int getColumnCount() {
+            return view.getColumnCount(matrix);
+        }
+
+        @Override
+        public String getColumnName(int column) {
+            return view.getColumnName(matrix, column);
+        }
+
+        @Override
+        public boolean isCellEditable(int row, int column) {
+            return false;
+        }
+
+        @Override
+        public Object getValueAt(int row, int column) {
+            return view.getValueAt(matrix, row, column);
+        }
+    }
+}
@@ -4,48 +4,105 @@ import com.itextpdf.text.*;
 import com.itextpdf.text.pdf.*;
 import javax.swing.*;
 import javax.swing.table.TableModel;
+import java.io.BufferedOutputStream;
 import java.io.File;
 import java.io.FileOutputStream;
+import java.io.OutputStream;
 import java.text.SimpleDateFormat;
 import java.util.Date;
 import java.util.List;
+import java.util.concurrent.CancellationException;
 
+/**
+ * Writes the SPK analysis (criteria, decision matrix, normalized matrix and
+ * ranking) to a PDF.
+ * <p>
+ * The three result tables are streamed: each is an incomplete PdfPTable that
+ * is added to the document every CHUNK_ROWS rows, so iText lays out and writes
+ * those rows and drops them, keeping only the repeated header row. Output goes
+ * through a BufferedOutputStream. Memory therefore stays flat however many
+ * books are exported; only the results list itself has to fit.
+ */
 public class SPKPDFExporter {
     
+    // Rows added to a table between flushes to the document
+    private static final int CHUNK_ROWS = Integer.getInteger("bookspk.pdf.chunkRows", 500);
+    private static final int OUTPUT_BUFFER_SIZE = 64 * 1024;
+    
     private static final Font TITLE_FONT = new Font(com.itextpdf.text.Font.FontFamily.HELVETICA, 18, com.itextpdf.text.Font.BOLD);
     private static final Font HEADER_FONT = new Font(com.itextpdf.text.Font.FontFamily.HELVETICA, 12, com.itextpdf.text.Font.BOLD);
     private static final Font NORMAL_FONT = new Font(com.itextpdf.text.Font.FontFamily.HELVETICA, 10, com.itextpdf.text.Font.NORMAL);
     private static final Font SMALL_FONT = new Font(com.itextpdf.text.Font.FontFamily.HELVETICA, 8, com.itextpdf.text.Font.NORMAL);
     
+    private static final String[] CODES = SPKCriteriaPlan.KNOWN_CODES;
+    
     public static void exportSPKAnalysis(List<NewSPKCalculator.SPKResult> results, File outputFile) throws Exception {
-        Document document = new Document(PageSize.A4, 50, 50, 80, 50);
-        PdfWriter writer = PdfWriter.getInstance(document, new FileOutputStream(outputFile));
-        
-        // Add header and footer
-        writer.setPageEvent(new HeaderFooterPageEvent());
-        
-        document.open();
-        
-        // Add title page
-        addTitlePage(document);
-        document.newPage();
-        
-        // Add criteria information
-        addCriteriaInfo(document);
-        document.newPage();
-        
-        // Add decision matrix
-        addDecisionMatrix(document, results);
-        document.newPage();
-        
-        // Add normalized matrix
-        addNormalizedMatrix(document, results);
-        document.newPage();
-        
-        // Add final results
-        addFinalResults(document, results);
-        
-        document.close();
+        exportSPKAnalysis(results, outputFile, null);
+    }
+    
+    /**
+     * Export the analysis, reporting progress while the result tables are written
+     * @param results ranked results, best first
+     * @param outputFile PDF file to write; removed again if the export fails or is cancelled
+     * @param progress receives progress and is checked for cancellation between chunks; may be null
+     * @throws CancellationException if progress reports the export as cancelled
+     * @throws Exception if the document cannot be written
+     */
+    public static void exportSPKAnalysis(List<NewSPKCalculator.SPKResult> results, File outputFile,
+                                         BackgroundTasks.Progress progress) throws Exception {
+        exportSPKAnalysis(ReportSnapshot.ofResults(results), outputFile, progress);
+    }
+    
+    /**
+     * Export the analysis from a snapshot of the results (ReportSnapshot.ofResults),
+     * which can be taken once and exported from any thread
+     * @param results snapshot of the ranked results, best first
+     * @param outputFile PDF file to write; removed again if the export fails or is cancelled
+     * @param progress receives progress and is checked for cancellation between chunks; may be null
+     * @throws CancellationException if progress reports the export as cancelled
+     * @throws Exception if the document cannot be written
+     */
+    public static void exportSPKAnalysis(ReportSnapshot results, File outputFile,
+                                         BackgroundTasks.Progress progress) throws Exception {
+        boolean written = false;
+        try (OutputStream out = new BufferedOutputStream(new FileOutputStream(outputFile), OUTPUT_BUFFER_SIZE)) {
+            Document document = new Document(PageSize.A4, 50, 50, 80, 50);
+            PdfWriter writer = PdfWriter.getInstance(document, out);
+            // The stream is closed by try-with-resources, also when writing fails
+            writer.setCloseStream(false);
+            
+            // Add header and footer
+            writer.setPageEvent(new HeaderFooterPageEvent());
+            
+            document.open();
+            ExportProgress tracker = new ExportProgress(progress, 3L * results.getRowCount());
+            
+            // Add title page
+            addTitlePage(document);
+            document.newPage();
+            
+            // Add criteria information
+            addCriteriaInfo(document);
+            document.newPage();
+            
+            // Add decision matrix
+            addDecisionMatrix(document, results, tracker);
+            document.newPage();
+            
+            // Add normalized matrix
+            addNormalizedMatrix(document, results, tracker);
+            document.newPage();
+            
+            // Add final results
+            addFinalResults(document, results, tracker);
+            
+            document.close();
+            written = true;
+        } finally {
+            if (!written && outputFile.exists() && !outputFile.delete()) {
+                System.err.println("Could not remove incomplete PDF: " + outputFile);
+            }
+        }
     }
     
     private static void addTitlePage(Document document) throws DocumentException {
@@ -171,171 +228,88 @@ public class SPKPDFExporter {
         document.add(detailsP);
     }
     
-    private static void addDecisionMatrix(Document document, List<NewSPKCalculator.SPKResult> results) throws DocumentException {
+    private static void addDecisionMatrix(Document document, ReportSnapshot results,
+                                          ExportProgress tracker) throws DocumentException {
         Paragraph title = new Paragraph("MATRIKS KEPUTUSAN", HEADER_FONT);
         title.setAlignment(Element.ALIGN_CENTER);
         title.setSpacingAfter(20);
         document.add(title);
         
-        PdfPTable table = new PdfPTable(6);
-        table.setWidthPercentage(100);
-        
-        // Headers
+        int bookTitle = results.indexOf(ReportSnapshot.TITLE);
+        int[] levels = levelColumns(results);
         String[] headers = {"Judul Buku", "C1", "C2", "C3", "C4", "C5"};
-        for (String header : headers) {
-            PdfPCell cell = new PdfPCell(new Phrase(header, HEADER_FONT));
-            cell.setHorizontalAlignment(Element.ALIGN_CENTER);
-            cell.setBackgroundColor(BaseColor.LIGHT_GRAY);
-            cell.setPadding(5);
-            table.addCell(cell);
-        }
-        
-        // Data
-        for (NewSPKCalculator.SPKResult result : results) {
+        writeTable(document, headers, results, tracker, "Menulis matriks keputusan", (table, row) -> {
             // Title - left aligned
-            PdfPCell titleCell = new PdfPCell(new Phrase(result.getBook().getTitle(), NORMAL_FONT));
-            titleCell.setHorizontalAlignment(Element.ALIGN_LEFT);
-            table.addCell(titleCell);
+            table.addCell(cell(results.getText(row, bookTitle), Element.ALIGN_LEFT));
             
             // Numeric values - center aligned
-            PdfPCell c1Cell = new PdfPCell(new Phrase(String.valueOf(result.getCriteriaScores().get("C1")), NORMAL_FONT));
-            c1Cell.setHorizontalAlignment(Element.ALIGN_CENTER);
-            table.addCell(c1Cell);
-            
-            PdfPCell c2Cell = new PdfPCell(new Phrase(String.valueOf(result.getCriteriaScores().get("C2")), NORMAL_FONT));
-            c2Cell.setHorizontalAlignment(Element.ALIGN_CENTER);
-            table.addCell(c2Cell);
-            
-            PdfPCell c3Cell = new PdfPCell(new Phrase(String.valueOf(result.getCriteriaScores().get("C3")), NORMAL_FONT));
-            c3Cell.setHorizontalAlignment(Element.ALIGN_CENTER);
-            table.addCell(c3Cell);
-            
-            PdfPCell c4Cell = new PdfPCell(new Phrase(String.valueOf(result.getCriteriaScores().get("C4")), NORMAL_FONT));
-            c4Cell.setHorizontalAlignment(Element.ALIGN_CENTER);
-            table.addCell(c4Cell);
-            
-            PdfPCell c5Cell = new PdfPCell(new Phrase(String.valueOf(result.getCriteriaScores().get("C5")), NORMAL_FONT));
-            c5Cell.setHorizontalAlignment(Element.ALIGN_CENTER);
-            table.addCell(c5Cell);
-        }
-        
-        document.add(table);
+            for (int level : levels) {
+                int value = results.getInt(row, level);
+                table.addCell(cell(value < 0 ? "-" : String.valueOf(value), Element.ALIGN_CENTER));
+            }
+        });
     }
     
-    private static void addNormalizedMatrix(Document document, List<NewSPKCalculator.SPKResult> results) throws DocumentException {
+    private static void addNormalizedMatrix(Document document, ReportSnapshot results,
+                                            ExportProgress tracker) throws DocumentException {
         Paragraph title = new Paragraph("NORMALISASI MATRIKS KEPUTUSAN", HEADER_FONT);
         title.setAlignment(Element.ALIGN_CENTER);
         title.setSpacingAfter(20);
         document.add(title);
         
-        PdfPTable table = new PdfPTable(7);
-        table.setWidthPercentage(100);
-        
-        // Headers
+        int bookTitle = results.indexOf(ReportSnapshot.TITLE);
+        int score = results.indexOf(ReportSnapshot.SCORE);
+        int[] levels = levelColumns(results);
         String[] headers = {"Judul Buku", "C1", "C2", "C3", "C4", "C5", "Nilai Akhir"};
-        for (String header : headers) {
-            PdfPCell cell = new PdfPCell(new Phrase(header, HEADER_FONT));
-            cell.setHorizontalAlignment(Element.ALIGN_CENTER);
-            cell.setBackgroundColor(BaseColor.LIGHT_GRAY);
-            cell.setPadding(5);
-            table.addCell(cell);
-        }
-        
-        // Data
-        for (NewSPKCalculator.SPKResult result : results) {
+        writeTable(document, headers, results, tracker, "Menulis normalisasi matriks", (table, row) -> {
             // Title - left aligned
-            PdfPCell titleCell = new PdfPCell(new Phrase(result.getBook().getTitle(), NORMAL_FONT));
-            titleCell.setHorizontalAlignment(Element.ALIGN_LEFT);
-            table.addCell(titleCell);
+            table.addCell(cell(results.getText(row, bookTitle), Element.ALIGN_LEFT));
             
             // Numeric values - center aligned
-            PdfPCell c1Cell = new PdfPCell(new Phrase(String.format("%.4f", result.getNormalizedScores().get("C1")), NORMAL_FONT));
-            c1Cell.setHorizontalAlignment(Element.ALIGN_CENTER);
-            table.addCell(c1Cell);
-            
-            PdfPCell c2Cell = new PdfPCell(new Phrase(String.format("%.4f", result.getNormalizedScores().get("C2")), NORMAL_FONT));
-            c2Cell.setHorizontalAlignment(Element.ALIGN_CENTER);
-            table.addCell(c2Cell);
-            
-            PdfPCell c3Cell = new PdfPCell(new Phrase(String.format("%.4f", result.getNormalizedScores().get("C3")), NORMAL_FONT));
-            c3Cell.setHorizontalAlignment(Element.ALIGN_CENTER);
-            table.addCell(c3Cell);
-            
-            PdfPCell c4Cell = new PdfPCell(new Phrase(String.format("%.4f", result.getNormalizedScores().get("C4")), NORMAL_FONT));
-            c4Cell.setHorizontalAlignment(Element.ALIGN_CENTER);
-            table.addCell(c4Cell);
-            
-            PdfPCell c5Cell = new PdfPCell(new Phrase(String.format("%.4f", result.getNormalizedScores().get("C5")), NORMAL_FONT));
-            c5Cell.setHorizontalAlignment(Element.ALIGN_CENTER);
-            table.addCell(c5Cell);
-            
-            PdfPCell finalScoreCell = new PdfPCell(new Phrase(String.format("%.4f", result.getFinalScore()), NORMAL_FONT));
-            finalScoreCell.setHorizontalAlignment(Element.ALIGN_CENTER);
-            table.addCell(finalScoreCell);
-        }
-        
-        document.add(table);
+            for (int level : levels) {
+                int value = results.getInt(row, level);
+                table.addCell(cell(value < 0 ? "-" : String.format("%.4f", normalized(value)), Element.ALIGN_CENTER));
+            }
+            table.addCell(cell(results.getText(row, score), Element.ALIGN_CENTER));
+        });
     }
     
-    private static void addFinalResults(Document document, List<NewSPKCalculator.SPKResult> results) throws DocumentException {
+    private static void addFinalResults(Document document, ReportSnapshot results,
+                                        ExportProgress tracker) throws DocumentException {
         Paragraph title = new Paragraph("HASIL AKUMULATIF & RANKING", HEADER_FONT);
         title.setAlignment(Element.ALIGN_CENTER);
         title.setSpacingAfter(20);
         document.add(title);
         
-        PdfPTable table = new PdfPTable(8);
-        table.setWidthPercentage(100);
-        
-        // Headers
-        String[] headers = {"Ranking", "Judul Buku", "C1 (30%)", "C2 (20%)", "C3 (15%)", "C4 (25%)", "C5 (10%)", "Nilai Akhir"};
-        for (String header : headers) {
-            PdfPCell cell = new PdfPCell(new Phrase(header, HEADER_FONT));
-            cell.setHorizontalAlignment(Element.ALIGN_CENTER);
-            cell.setBackgroundColor(BaseColor.LIGHT_GRAY);
-            cell.setPadding(5);
-            table.addCell(cell);
+        // Headers (weights as used by the scoring plan of these results)
+        SPKCriteriaPlan plan = results.getPlan();
+        int rank = results.indexOf(ReportSnapshot.RANK);
+        int bookTitle = results.indexOf(ReportSnapshot.TITLE);
+        int score = results.indexOf(ReportSnapshot.SCORE);
+        int[] levels = levelColumns(results);
+        double[] weights = new double[CODES.length];
+        for (int i = 0; i < CODES.length; i++) {
+            int ordinal = plan.indexOf(CODES[i]);
+            weights[i] = ordinal < 0 ? 0.0 : plan.getWeight(ordinal);
         }
-        
-        // Data
-        for (NewSPKCalculator.SPKResult result : results) {
+        String[] headers = {"Ranking", "Judul Buku", weightHeader(plan, "C1"), weightHeader(plan, "C2"),
+                weightHeader(plan, "C3"), weightHeader(plan, "C4"), weightHeader(plan, "C5"), "Nilai Akhir"};
+        writeTable(document, headers, results, tracker, "Menulis hasil akumulatif", (table, row) -> {
             // Ranking - center aligned
-            PdfPCell rankCell = new PdfPCell(new Phrase(String.valueOf(result.getRank()), NORMAL_FONT));
-            rankCell.setHorizontalAlignment(Element.ALIGN_CENTER);
-            table.addCell(rankCell);
+            table.addCell(cell(results.getText(row, rank), Element.ALIGN_CENTER));
             
             // Title - left aligned
-            PdfPCell titleCell = new PdfPCell(new Phrase(result.getBook().getTitle(), NORMAL_FONT));
-            titleCell.setHorizontalAlignment(Element.ALIGN_LEFT);
-            table.addCell(titleCell);
+            table.addCell(cell(results.getText(row, bookTitle), Element.ALIGN_LEFT));
             
             // Weighted scores - center aligned
-            PdfPCell c1WeightedCell = new PdfPCell(new Phrase(String.format("%.4f", result.getNormalizedScores().get("C1") * 0.30), NORMAL_FONT));
-            c1WeightedCell.setHorizontalAlignment(Element.ALIGN_CENTER);
-            table.addCell(c1WeightedCell);
-            
-            PdfPCell c2WeightedCell = new PdfPCell(new Phrase(String.format("%.4f", result.getNormalizedScores().get("C2") * 0.20), NORMAL_FONT));
-            c2WeightedCell.setHorizontalAlignment(Element.ALIGN_CENTER);
-            table.addCell(c2WeightedCell);
-            
-            PdfPCell c3WeightedCell = new PdfPCell(new Phrase(String.format("%.4f", result.getNormalizedScores().get("C3") * 0.15), NORMAL_FONT));
-            c3WeightedCell.setHorizontalAlignment(Element.ALIGN_CENTER);
-            table.addCell(c3WeightedCell);
-            
-            PdfPCell c4WeightedCell = new PdfPCell(new Phrase(String.format("%.4f", result.getNormalizedScores().get("C4") * 0.25), NORMAL_FONT));
-            c4WeightedCell.setHorizontalAlignment(Element.ALIGN_CENTER);
-            table.addCell(c4WeightedCell);
-            
-            PdfPCell c5WeightedCell = new PdfPCell(new Phrase(String.format("%.4f", result.getNormalizedScores().get("C5") * 0.10), NORMAL_FONT));
-            c5WeightedCell.setHorizontalAlignment(Element.ALIGN_CENTER);
-            table.addCell(c5WeightedCell);
+            for (int i = 0; i < levels.length; i++) {
+                int value = results.getInt(row, levels[i]);
+                table.addCell(cell(String.format("%.4f", value < 0 ? 0.0 : normalized(value) * weights[i]), Element.ALIGN_CENTER));
+            }
             
             // Final score - center aligned
-            PdfPCell finalScoreCell = new PdfPCell(new Phrase(String.format("%.4f", result.getFinalScore()), NORMAL_FONT));
-            finalScoreCell.setHorizontalAlignment(Element.ALIGN_CENTER);
-            table.addCell(finalScoreCell);
-        }
-        
-        document.add(table);
+            table.addCell(cell(results.getText(row, score), Element.ALIGN_CENTER));
+        });
         
         // Add conclusion
         document.add(new Paragraph(" ", NORMAL_FONT));
@@ -343,12 +317,11 @@ public class SPKPDFExporter {
         conclusion.setSpacingAfter(10);
         document.add(conclusion);
         
-        if (!results.isEmpty()) {
-            NewSPKCalculator.SPKResult bestBook = results.get(0);
+        if (results.getRowCount() > 0) {
             Paragraph conclusionText = new Paragraph(
                 "Berdasarkan analisis SPK yang telah dilakukan, buku dengan judul \"" + 
-                bestBook.getBook().getTitle() + "\" menduduki peringkat pertama dengan nilai akhir " +
-                String.format("%.4f", bestBook.getFinalScore()) + ". Buku ini direkomendasikan " +
+                results.getText(0, bookTitle) + "\" menduduki peringkat pertama dengan nilai akhir " +
+                results.getText(0, score) + ". Buku ini direkomendasikan " +
                 "sebagai pilihan terbaik berdasarkan kriteria yang telah ditentukan."
             );
             conclusionText.setAlignment(Element.ALIGN_JUSTIFIED);
@@ -356,6 +329,91 @@ public class SPKPDFExporter {
         }
     }
     
+    // Adds the cells of one result row
+    private interface RowWriter {
+        void addRow(PdfPTable table, int row);
+    }
+    
+    // Write a table CHUNK_ROWS rows at a time; rows already added to the document are released by iText
+    private static void writeTable(Document document, String[] headers, ReportSnapshot results,
+                                   ExportProgress tracker, String message, RowWriter rowWriter) throws DocumentException {
+        PdfPTable table = new PdfPTable(headers.length);
+        table.setWidthPercentage(100);
+        table.setComplete(false);
+        
+        // Headers, repeated on every page
+        for (String header : headers) {
+            PdfPCell cell = new PdfPCell(new Phrase(header, HEADER_FONT));
+            cell.setHorizontalAlignment(Element.ALIGN_CENTER);
+            cell.setBackgroundColor(BaseColor.LIGHT_GRAY);
+            cell.setPadding(5);
+            table.addCell(cell);
+        }
+        table.setHeaderRows(1);
+        
+        // Data
+        int pending = 0;
+        for (int row = 0; row < results.getRowCount(); row++) {
+            rowWriter.addRow(table, row);
+            if (++pending == CHUNK_ROWS) {
+                document.add(table);
+                tracker.advance(pending, message);
+                pending = 0;
+            }
+        }
+        table.setComplete(true);
+        document.add(table);
+        tracker.advance(pending, message);
+    }
+    
+    private static PdfPCell cell(String text, int alignment) {
+        PdfPCell cell = new PdfPCell(new Phrase(text, NORMAL_FONT));
+        cell.setHorizontalAlignment(alignment);
+        return cell;
+    }
+    
+    // Snapshot columns holding the C1..C5 levels
+    private static int[] levelColumns(ReportSnapshot results) {
+        int[] columns = new int[CODES.length];
+        for (int i = 0; i < CODES.length; i++) {
+            columns[i] = results.indexOf(CODES[i]);
+        }
+        return columns;
+    }
+    
+    // Same arithmetic as SPKResult.getNormalizedScore
+    private static double normalized(int level) {
+        return (double) level / NewSPKCalculator.MAX_SCORE;
+    }
+    
+    private static String weightHeader(SPKCriteriaPlan plan, String code) {
+        int ordinal = plan.indexOf(code);
+        return String.format("%s (%.0f%%)", code, ordinal < 0 ? 0.0 : plan.getWeight(ordinal) * 100);
+    }
+    
+    // Rows written across the three result tables, reported as a percentage
+    private static final class ExportProgress {
+        private final BackgroundTasks.Progress progress;
+        private final long total;
+        private long done;
+        
+        ExportProgress(BackgroundTasks.Progress progress, long total) {
+            this.progress = progress;
+            this.total = total;
+        }
+        
+        void advance(int rows, String message) {
+            if (progress == null) {
+                return;
+            }
+            if (progress.isCancelled()) {
+                throw new CancellationException("Ekspor PDF dibatalkan");
+            }
+            done += rows;
+            progress.update(total == 0 ? 100 : (int) (done * 100 / total), message + " (" + done + "/" + total + ")");
+        }
+    }
+    
     // Header and Footer Page Event
     private static class HeaderFooterPageEvent extends PdfPageEventHelper {
         @Override
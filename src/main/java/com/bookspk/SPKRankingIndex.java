@@ -0,0 +1,312 @@
+package com.bookspk;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Books ranked by SPK score for one fixed set of weights, kept in an
+ * order-statistics treap so single-book changes cost O(log n) instead of a
+ * full rescore and sort.
+ * <p>
+ * Order is score descending; ties keep catalog order (BookCatalogCache.CATALOG_ORDER),
+ * so reading the index gives the same ranking as a stable sort of the catalog list.
+ * Ranks are 1-based.
+ */
+public class SPKRankingIndex {
+
+    /**
+     * Computes the SPK score of one book
+     */
+    public interface Scorer {
+        double score(Book book);
+    }
+
+    /**
+     * One ranked book with its score
+     */
+    public static final class Entry {
+        private final Book book;
+        private final double score;
+        private final int priority;
+        private Entry left;
+        private Entry right;
+        private int size = 1;
+
+        private Entry(Book book, double score, int priority) {
+            this.book = book;
+            this.score = score;
+            this.priority = priority;
+        }
+
+        public Book getBook() { return book; }
+        public double getScore() { return score; }
+    }
+
+    private final Scorer scorer;
+    private final Map<Integer, Entry> entries;
+    private Entry root;
+    private int seed;
+
+    /**
+     * Build the index over a catalog
+     * @param books books in catalog order
+     * @param scorer SPK score function
+     */
+    public SPKRankingIndex(List<Book> books, Scorer scorer) {
+        this.scorer = scorer;
+        this.entries = new HashMap<>(books.size() * 2);
+        this.seed = 0x2545F491 ^ books.size();
+
+        int n = books.size();
+        double[] scores = new double[n];
+        for (int i = 0; i < n; i++) {
+            scores[i] = scorer.score(books.get(i));
+        }
+        Entry[] ranked = new Entry[n];
+        int[] order = SPKScoringEngine.rankOrder(scores);
+        for (int i = 0; i < n; i++) {
+            Book book = books.get(order[i]);
+            Entry entry = new Entry(book, scores[order[i]], nextPriority());
+            ranked[i] = entry;
+            entries.put(book.getId(), entry);
+        }
+        this.root = buildTreap(ranked);
+    }
+
+    /**
+     * @return number of ranked books
+     */
+    public synchronized int size() {
+        return size(root);
+    }
+
+    /**
+     * Add a book, or move it to its new rank if it is already indexed
+     * @param book added or updated book
+     */
+    public synchronized void update(Book book) {
+        Entry old = entries.remove(book.getId());
+        if (old != null) {
+            root = delete(root, old);
+        }
+        Entry entry = new Entry(book, scorer.score(book), nextPriority());
+        entries.put(book.getId(), entry);
+        root = insert(root, entry);
+    }
+
+    /**
+     * Remove a book from the ranking
+     * @param bookId ID of the removed book
+     */
+    public synchronized void remove(int bookId) {
+        Entry old = entries.remove(bookId);
+        if (old != null) {
+            root = delete(root, old);
+        }
+    }
+
+    /**
+     * @param k number of entries
+     * @return the best k entries, best first
+     */
+    public synchronized List<Entry> top(int k) {
+        int limit = Math.min(Math.max(k, 0), size(root));
+        List<Entry> result = new ArrayList<>(limit);
+        // In-order walk that stops after k entries
+        Entry[] stack = new Entry[64];
+        int depth = 0;
+        Entry node = root;
+        while (result.size() < limit) {
+            while (node != null) {
+                if (depth == stack.length) {
+                    stack = java.util.Arrays.copyOf(stack, depth * 2);
+                }
+                stack[depth++] = node;
+                node = node.left;
+            }
+            node = stack[--depth];
+            result.add(node);
+            node = node.right;
+        }
+        return result;
+    }
+
+    /**
+     * @return every entry, best first
+     */
+    public synchronized List<Entry> all() {
+        return top(size(root));
+    }
+
+    /**
+     * @param rank 1-based rank
+     * @return entry at that rank, or null when out of range
+     */
+    public synchronized Entry get(int rank) {
+        if (rank < 1 || rank > size(root)) {
+            return null;
+        }
+        int index = rank - 1;
+        Entry node = root;
+        while (node != null) {
+            int leftSize = size(node.left);
+            if (index < leftSize) {
+                node = node.left;
+            } else if (index == leftSize) {
+                return node;
+            } else {
+                index -= leftSize + 1;
+                node = node.right;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @param bookId ID of the book
+     * @return 1-based rank of the book, or -1 when it is not indexed
+     */
+    public synchronized int rankOf(int bookId) {
+        Entry target = entries.get(bookId);
+        if (target == null) {
+            return -1;
+        }
+        int rank = 0;
+        Entry node = root;
+        while (node != null) {
+            if (node == target) {
+                return rank + size(node.left) + 1;
+            }
+            if (before(target, node)) {
+                node = node.left;
+            } else {
+                rank += size(node.left) + 1;
+                node = node.right;
+            }
+        }
+        return -1;
+    }
+
+    // Treap operations
+
+    // True if a ranks ahead of b
+    private static boolean before(Entry a, Entry b) {
+        if (a.score != b.score) {
+            return a.score > b.score;
+        }
+        return BookCatalogCache.CATALOG_ORDER.compare(a.book, b.book) < 0;
+    }
+
+    private static Entry insert(Entry node, Entry entry) {
+        if (node == null) {
+            return entry;
+        }
+        if (before(entry, node)) {
+            node.left = insert(node.left, entry);
+            if (node.left.priority > node.priority) {
+                node = rotateRight(node);
+            }
+        } else {
+            node.right = insert(node.right, entry);
+            if (node.right.priority > node.priority) {
+                node = rotateLeft(node);
+            }
+        }
+        resize(node);
+        return node;
+    }
+
+    private static Entry delete(Entry node, Entry entry) {
+        if (node == null) {
+            return null;
+        }
+        if (node == entry) {
+            return merge(node.left, node.right);
+        }
+        if (before(entry, node)) {
+            node.left = delete(node.left, entry);
+        } else {
+            node.right = delete(node.right, entry);
+        }
+        resize(node);
+        return node;
+    }
+
+    // Every entry in a ranks ahead of every entry in b
+    private static Entry merge(Entry a, Entry b) {
+        if (a == null) return b;
+        if (b == null) return a;
+        if (a.priority > b.priority) {
+            a.right = merge(a.right, b);
+            resize(a);
+            return a;
+        }
+        b.left = merge(a, b.left);
+        resize(b);
+        return b;
+    }
+
+    private static Entry rotateRight(Entry node) {
+        Entry pivot = node.left;
+        node.left = pivot.right;
+        pivot.right = node;
+        resize(node);
+        resize(pivot);
+        return pivot;
+    }
+
+    private static Entry rotateLeft(Entry node) {
+        Entry pivot = node.right;
+        node.right = pivot.left;
+        pivot.left = node;
+        resize(node);
+        resize(pivot);
+        return pivot;
+    }
+
+    // Linear-time build from entries already in rank order (Cartesian tree on priority)
+    private static Entry buildTreap(Entry[] ranked) {
+        Entry[] spine = new Entry[ranked.length];
+        int top = 0;
+        for (Entry entry : ranked) {
+            Entry last = null;
+            while (top > 0 && spine[top - 1].priority < entry.priority) {
+                last = spine[--top];
+                resize(last);
+            }
+            entry.left = last;
+            if (top > 0) {
+                spine[top - 1].right = entry;
+            }
+            spine[top++] = entry;
+        }
+        while (top > 1) {
+            resize(spine[--top]);
+        }
+        if (top == 0) {
+            return null;
+        }
+        resize(spine[0]);
+        return spine[0];
+    }
+
+    private static int size(Entry node) {
+        return node == null ? 0 : node.size;
+    }
+
+    private static void resize(Entry node) {
+        node.size = size(node.left) + size(node.right) + 1;
+    }
+
+    // xorshift, good enough for treap priorities and cheaper than Random
+    private int nextPriority() {
+        int x = seed;
+        x ^= x << 13;
+        x ^= x >>> 17;
+        x ^= x << 5;
+        seed = x;
+        return x;
+    }
+}
@@ -0,0 +1,461 @@
+package com.bookspk;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Persisted SPK scores for the criteria table ranking (NewSPKCalculator).
+ * <p>
+ * Every book row stores its C1-C5 levels (level_c1 .. level_c5) and its final
+ * score under the current criteria weights (spk_score). Levels only depend on
+ * the row, so BookDAO and BookImporter write them together with the row. The
+ * score also depends on the weights, so a criteria change rewrites it for the
+ * whole table in one UPDATE over the stored levels, without converting any
+ * book again. With the spk_score index the top of the ranking is then an
+ * ORDER BY ... LIMIT that reads only the rows it returns. The plan the table
+ * was last scored with is recorded as a fingerprint in spk_score_state. A
+ * process whose cached plan differs reloads the criteria table before it
+ * scores anything, so clients with an outdated plan do not rescore the table
+ * back to it.
+ * <p>
+ * Rows written outside the application (setup_database.sql, manual SQL) have
+ * NULL levels and are filled in the first time the scores are synced.
+ * Databases created before these columns existed are upgraded on first use
+ * (isAvailable); until that succeeds, books are written without them.
+ * Scores are computed with the same arithmetic as NewSPKCalculator, so stored
+ * and in-memory scores are identical and rank ties the same way.
+ */
+public final class SPKScoreStore {
+    private static final String[] LEVEL_COLUMNS = {"level_c1", "level_c2", "level_c3", "level_c4", "level_c5"};
+    private static final String SCORE_COLUMN = "spk_score";
+    private static final String SCORE_INDEX = "idx_books_spk_score";
+
+    // Same divisor as NewSPKCalculator.MAX_SCORE
+    private static final int MAX_SCORE = 5;
+
+    private static final int BACKFILL_BATCH_SIZE = 500;
+
+    // Columns written with book rows while the table lacks them
+    private static final ScoreColumns NO_COLUMNS = new ScoreColumns(null);
+
+    // One row (id 1) holding the fingerprint of the plan the stored scores follow
+    private static final String STATE_TABLE = "spk_score_state";
+
+    // Rows without levels have been filled in by this process
+    private static final AtomicBoolean BACKFILLED = new AtomicBoolean();
+
+    // Whether books has an auto-updated updated_at column, which rescoring must not touch
+    private static volatile boolean hasUpdatedAt;
+
+    // Whether the books table has the stored score columns; null until checked
+    private static volatile Boolean available;
+
+    private SPKScoreStore() {
+    }
+
+    /**
+     * Check once whether the books table has the level and score columns and
+     * the score index, adding whatever is missing. Tables created before the
+     * stored scores existed are upgraded this way; setup_database.sql only
+     * creates missing tables.
+     * @return true if the score columns exist and are written with book rows
+     */
+    public static boolean isAvailable() {
+        Boolean ready = available;
+        if (ready != null) {
+            return ready;
+        }
+        synchronized (SPKScoreStore.class) {
+            if (available == null) {
+                // Not remembered when the check itself fails, so it is retried on the next write
+                available = upgradeSchema();
+            }
+            return available != null && available;
+        }
+    }
+
+    /**
+     * Score columns to write with a book row. Build the statement and bind it
+     * with the same instance, so both agree on the columns. Rows are scored
+     * with the plan the table follows: the cached plan is checked against
+     * spk_score_state and reloaded if another process has changed the criteria.
+     * @return the score columns, or an empty set if the table does not have them
+     */
+    public static ScoreColumns columns() {
+        if (!isAvailable()) {
+            return NO_COLUMNS;
+        }
+        SPKCriteriaPlan plan = SPKCriteriaPlan.current();
+        try {
+            plan = freshPlan(plan, storedFingerprint());
+        } catch (SQLException e) {
+            System.err.println("Error checking the SPK score plan, scoring with the cached criteria: " + e.getMessage());
+        }
+        return new ScoreColumns(plan);
+    }
+
+    /**
+     * Levels of a book per converter, in KNOWN_CODES order
+     * @param book book to convert
+     * @return levels for C1..C5
+     */
+    public static int[] levels(Book book) {
+        int[] levels = new int[SPKCriteriaPlan.KNOWN_CODES.length];
+        for (int converter = 0; converter < levels.length; converter++) {
+            levels[converter] = NewSPKCalculator.convertCriteria(converter, book);
+        }
+        return levels;
+    }
+
+    /**
+     * Final score of a book from its levels, as NewSPKCalculator computes it
+     * @param levels levels per converter, from levels(Book)
+     * @param plan criteria plan to weight them with
+     * @return final score
+     */
+    public static double score(int[] levels, SPKCriteriaPlan plan) {
+        double finalScore = 0.0;
+        for (int c = 0; c < plan.size(); c++) {
+            finalScore += (double) levels[plan.getConverter(c)] / MAX_SCORE * plan.getWeight(c);
+        }
+        return finalScore;
+    }
+
+    /**
+     * Fingerprint of what the stored scores depend on: the criteria codes, the
+     * converter each one uses and its exact weight
+     * @param plan criteria plan
+     * @return text that differs whenever the plan would score any book differently
+     */
+    public static String fingerprint(SPKCriteriaPlan plan) {
+        StringBuilder text = new StringBuilder();
+        for (int c = 0; c < plan.size(); c++) {
+            text.append(c == 0 ? "" : ";").append(plan.getCode(c)).append(':')
+                .append(plan.getConverter(c)).append('=').append(plan.getWeight(c));
+        }
+        return text.toString();
+    }
+
+    /**
+     * Make sure the stored scores follow the criteria table. The plan the table
+     * was last scored with is recorded in spk_score_state. When it differs from
+     * the given plan, the given plan may be stale (another process changed the
+     * criteria and rescored), so the plan is reloaded from the criteria table
+     * first; the table is rescored only if that plan differs too. Rows without
+     * levels are filled in the first time this process syncs.
+     * @param plan this process's current criteria plan
+     * @return the plan the stored scores follow now, reloaded if the given one was stale
+     * @throws SQLException if the criteria or scores cannot be read or updated
+     */
+    public static synchronized SPKCriteriaPlan ensureSynced(SPKCriteriaPlan plan) throws SQLException {
+        String stored = storedFingerprint();
+        SPKCriteriaPlan scored = freshPlan(plan, stored);
+        if (!fingerprint(scored).equals(stored)) {
+            recompute(scored);
+        } else if (!BACKFILLED.get()) {
+            try (Connection conn = DatabaseConnection.getConnection()) {
+                backfillLevels(conn, scored);
+            }
+            BACKFILLED.set(true);
+        }
+        return scored;
+    }
+
+    // Fingerprint of the plan the table was last scored with, null if it never was
+    private static String storedFingerprint() throws SQLException {
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement("SELECT plan_fingerprint FROM " + STATE_TABLE + " WHERE id = 1");
+             ResultSet rs = pstmt.executeQuery()) {
+            return rs.next() ? rs.getString(1) : null;
+        }
+    }
+
+    // The cached plan while it matches the stored scores, otherwise the criteria table as it is now
+    private static SPKCriteriaPlan freshPlan(SPKCriteriaPlan plan, String stored) throws SQLException {
+        return fingerprint(plan).equals(stored) ? plan : SPKCriteriaPlan.reload();
+    }
+
+    /**
+     * Rewrite spk_score for every book with the weights of a plan and record
+     * the plan as the one the table is scored with. Rows without levels are
+     * converted first. updated_at is left alone: rescoring does not edit a book.
+     * @param plan criteria plan to score with
+     * @return number of rows matched by the update
+     * @throws SQLException if the update fails
+     */
+    public static synchronized int recompute(SPKCriteriaPlan plan) throws SQLException {
+        if (!isAvailable()) {
+            return 0;
+        }
+        StringBuilder expression = new StringBuilder();
+        for (int c = 0; c < plan.size(); c++) {
+            // Double division and left-to-right sums, the same operations as score()
+            expression.append(c == 0 ? "" : " + ")
+                      .append(LEVEL_COLUMNS[plan.getConverter(c)]).append(" / 5e0 * ?");
+        }
+        String sql = "UPDATE books SET " + SCORE_COLUMN + " = " + expression + keepUpdatedAt();
+
+        int changed;
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            backfillLevels(conn, plan);
+            try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                for (int c = 0; c < plan.size(); c++) {
+                    pstmt.setDouble(c + 1, plan.getWeight(c));
+                }
+                changed = pstmt.executeUpdate();
+            }
+            try (PreparedStatement pstmt = conn.prepareStatement("INSERT INTO " + STATE_TABLE
+                    + " (id, plan_fingerprint) VALUES (1, ?) ON DUPLICATE KEY UPDATE plan_fingerprint = VALUES(plan_fingerprint)")) {
+                pstmt.setString(1, fingerprint(plan));
+                pstmt.executeUpdate();
+            }
+        }
+        BACKFILLED.set(true);
+        return changed;
+    }
+
+    /**
+     * Top of the criteria ranking read from the stored scores. Ties rank in
+     * catalog order, like NewSPKCalculator. Call ensureSynced first; the scores
+     * follow the plan it returns.
+     * @param limit number of books to return
+     * @return best books first, with list view columns and their stored score
+     * @throws SQLException if the scores cannot be read
+     */
+    public static List<BookDAO.BookSPKResult> top(int limit) throws SQLException {
+        List<BookDAO.BookSPKResult> results = new ArrayList<>();
+        if (limit <= 0) {
+            return results;
+        }
+        if (!isAvailable()) {
+            throw new SQLException("Stored SPK scores are not available");
+        }
+        String sql = "SELECT " + BookProjection.LIST_VIEW.getSelectList() + ", spk_score FROM books"
+                + " ORDER BY spk_score DESC, created_at DESC, id DESC LIMIT ?";
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setInt(1, limit);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                RowMapper<Book> mapper = new BookRowMapper(rs);
+                int score = rs.findColumn("spk_score");
+                while (rs.next()) {
+                    results.add(new BookDAO.BookSPKResult(mapper.mapRow(rs), rs.getDouble(score)));
+                }
+            }
+        }
+        return results;
+    }
+
+    // Convert and score rows that have no stored levels yet
+    private static void backfillLevels(Connection conn, SPKCriteriaPlan plan) throws SQLException {
+        // Only the columns the converters read
+        String select = "SELECT id, category, rating, borrower_count, book_condition, content_relevance, loan_duration"
+                + " FROM books WHERE level_c1 IS NULL";
+        String update = "UPDATE books SET " + String.join(" = ?, ", LEVEL_COLUMNS) + " = ?, " + SCORE_COLUMN + " = ?"
+                + keepUpdatedAt() + " WHERE id = ?";
+
+        List<Book> pending = new ArrayList<>();
+        try (PreparedStatement pstmt = conn.prepareStatement(select);
+             ResultSet rs = pstmt.executeQuery()) {
+            pending.addAll(new BookRowMapper(rs).mapAll(rs));
+        }
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        try (PreparedStatement pstmt = conn.prepareStatement(update)) {
+            int batched = 0;
+            for (Book book : pending) {
+                int[] levels = levels(book);
+                for (int i = 0; i < levels.length; i++) {
+                    pstmt.setInt(i + 1, levels[i]);
+                }
+                pstmt.setDouble(levels.length + 1, score(levels, plan));
+                pstmt.setInt(levels.length + 2, book.getId());
+                pstmt.addBatch();
+                if (++batched == BACKFILL_BATCH_SIZE) {
+                    pstmt.executeBatch();
+                    batched = 0;
+                }
+            }
+            if (batched > 0) {
+                pstmt.executeBatch();
+            }
+        }
+    }
+
+    // Assignment that stops MySQL's ON UPDATE CURRENT_TIMESTAMP from firing
+    private static String keepUpdatedAt() {
+        return hasUpdatedAt ? ", updated_at = updated_at" : "";
+    }
+
+    // Add missing score columns and the score index; null if the table could not be inspected
+    private static Boolean upgradeSchema() {
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            Set<String> existing = new HashSet<>();
+            try (PreparedStatement pstmt = conn.prepareStatement("SELECT COLUMN_NAME FROM INFORMATION_SCHEMA.COLUMNS"
+                    + " WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'books'");
+                 ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    existing.add(rs.getString(1).toLowerCase(Locale.ROOT));
+                }
+            }
+            if (existing.isEmpty()) {
+                System.err.println("Error checking stored SPK score columns: table books not found");
+                return null;
+            }
+            hasUpdatedAt = existing.contains("updated_at");
+
+            List<String> additions = new ArrayList<>();
+            for (String column : LEVEL_COLUMNS) {
+                if (!existing.contains(column)) {
+                    additions.add("ADD COLUMN " + column + " TINYINT NULL");
+                }
+            }
+            if (!existing.contains(SCORE_COLUMN)) {
+                additions.add("ADD COLUMN " + SCORE_COLUMN + " DOUBLE NULL");
+            }
+            if (!additions.isEmpty()) {
+                try (Statement stmt = conn.createStatement()) {
+                    stmt.execute("ALTER TABLE books " + String.join(", ", additions));
+                } catch (SQLException e) {
+                    System.err.println("Stored SPK score columns are missing and could not be added: " + e.getMessage());
+                    return false;
+                }
+                System.out.println("Added stored SPK score columns to books");
+            }
+
+            try (PreparedStatement pstmt = conn.prepareStatement("SELECT 1 FROM INFORMATION_SCHEMA.STATISTICS"
+                    + " WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'books' AND INDEX_NAME = ? LIMIT 1")) {
+                pstmt.setString(1, SCORE_INDEX);
+                boolean indexed;
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    indexed = rs.next();
+                }
+                if (!indexed) {
+                    try (Statement stmt = conn.createStatement()) {
+                        stmt.execute("CREATE INDEX " + SCORE_INDEX + " ON books(" + SCORE_COLUMN + " DESC, created_at DESC, id DESC)");
+                    } catch (SQLException e) {
+                        // The columns work without it; top N just sorts the table
+                        System.err.println("Error creating SPK score index: " + e.getMessage());
+                    }
+                }
+            }
+
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute("CREATE TABLE IF NOT EXISTS " + STATE_TABLE
+                        + " (id TINYINT PRIMARY KEY, plan_fingerprint VARCHAR(512) NOT NULL)");
+            } catch (SQLException e) {
+                // Scores are still written with books; ensureSynced fails and callers rank in memory
+                System.err.println("Error creating SPK score state table: " + e.getMessage());
+            }
+            return true;
+        } catch (SQLException e) {
+            System.err.println("Error checking stored SPK score columns: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * The stored score columns as they appear in book INSERT and UPDATE
+     * statements, each piece starting with ", " to follow the book columns.
+     * Empty when the table does not have them, so writes still work.
+     */
+    public static final class ScoreColumns {
+        private final String[] names;
+        private final SPKCriteriaPlan plan;
+
+        // plan: weights for spk_score, or null for no columns
+        private ScoreColumns(SPKCriteriaPlan plan) {
+            this.plan = plan;
+            if (plan != null) {
+                names = Arrays.copyOf(LEVEL_COLUMNS, LEVEL_COLUMNS.length + 1);
+                names[LEVEL_COLUMNS.length] = SCORE_COLUMN;
+            } else {
+                names = new String[0];
+            }
+        }
+
+        /**
+         * @return number of parameters bind() sets
+         */
+        public int size() {
+            return names.length;
+        }
+
+        /**
+         * @return column list for an INSERT, e.g. ", level_c1, ..., spk_score"
+         */
+        public String insertList() {
+            return join("");
+        }
+
+        /**
+         * @return VALUES placeholders for insertList()
+         */
+        public String placeholders() {
+            StringBuilder sql = new StringBuilder();
+            for (int i = 0; i < names.length; i++) {
+                sql.append(", ?");
+            }
+            return sql.toString();
+        }
+
+        /**
+         * @return SET assignments for an UPDATE, e.g. ", level_c1 = ?, ..."
+         */
+        public String assignments() {
+            return join(" = ?");
+        }
+
+        /**
+         * @return ON DUPLICATE KEY UPDATE assignments, e.g. ", level_c1 = VALUES(level_c1), ..."
+         */
+        public String upsertAssignments() {
+            StringBuilder sql = new StringBuilder();
+            for (String name : names) {
+                sql.append(", ").append(name).append(" = VALUES(").append(name).append(')');
+            }
+            return sql.toString();
+        }
+
+        /**
+         * Set the level and score parameters, in the order of the column list
+         * @param pstmt statement to bind
+         * @param firstIndex parameter index of the first score column
+         * @param book book being written
+         * @return index of the next parameter after the score columns
+         * @throws SQLException if a parameter cannot be set
+         */
+        public int bind(PreparedStatement pstmt, int firstIndex, Book book) throws SQLException {
+            if (names.length == 0) {
+                return firstIndex;
+            }
+            int[] levels = levels(book);
+            for (int i = 0; i < levels.length; i++) {
+                pstmt.setInt(firstIndex + i, levels[i]);
+            }
+            pstmt.setDouble(firstIndex + levels.length, score(levels, plan));
+            return firstIndex + names.length;
+        }
+
+        private String join(String suffix) {
+            StringBuilder sql = new StringBuilder();
+            for (String name : names) {
+                sql.append(", ").append(name).append(suffix);
+            }
+            return sql.toString();
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package com.bookspk;
+
+import java.util.List;
+
+/**
+ * Columnar Simple Additive Weighting (SAW) scorer used by BookDAO.getTopBooksSPK.
+ * Book criteria are kept in primitive columns so that scoring a whole catalog is a
+ * single loop without per-book allocation or string comparison.
+ */
+public class SPKScoringEngine {
+    // Normalized score for each level; index 0 means "unknown / out of range"
+    private static final double[] LEVEL_SCORE = {0.0, 0.2, 0.4, 0.6, 0.8, 1.0};
+
+    private final Book[] books;
+    private final int[] borrowerCounts;
+    private final byte[] conditionLevels;
+    private final byte[] relevanceLevels;
+    private final int[] loanDurations;
+
+    private SPKScoringEngine(int size) {
+        this.books = new Book[size];
+        this.borrowerCounts = new int[size];
+        this.conditionLevels = new byte[size];
+        this.relevanceLevels = new byte[size];
+        this.loanDurations = new int[size];
+    }
+
+    /**
+     * Build the columnar representation of a list of books
+     * @param books books to score
+     * @return scoring engine over the given books
+     */
+    public static SPKScoringEngine fromBooks(List<Book> books) {
+        SPKScoringEngine engine = new SPKScoringEngine(books.size());
+        for (int i = 0; i < books.size(); i++) {
+            Book book = books.get(i);
+            engine.books[i] = book;
+            engine.borrowerCounts[i] = book.getBorrowerCount();
+            engine.conditionLevels[i] = (byte) book.getConditionCode().getLevel();
+            engine.relevanceLevels[i] = (byte) book.getRelevanceCode().getLevel();
+            engine.loanDurations[i] = book.getLoanDuration();
+        }
+        return engine;
+    }
+
+    /**
+     * @return number of books in the engine
+     */
+    public int size() {
+        return books.length;
+    }
+
+    /**
+     * @param index row index
+     * @return the book stored at the given row
+     */
+    public Book getBook(int index) {
+        return books[index];
+    }
+
+    /**
+     * Normalize weights so they sum to 1, without modifying the input
+     * @param weights raw weights [borrowerCount, bookCondition, contentRelevance, loanDuration]
+     * @return normalized copy
+     */
+    public static double[] normalizeWeights(double[] weights) {
+        double totalWeight = 0;
+        for (double weight : weights) {
+            totalWeight += weight;
+        }
+        double[] normalized = new double[weights.length];
+        for (int i = 0; i < weights.length; i++) {
+            normalized[i] = weights[i] / totalWeight;
+        }
+        return normalized;
+    }
+
+    /**
+     * Score every book into the given array
+     * @param weights normalized weights [borrowerCount, bookCondition, contentRelevance, loanDuration]
+     * @param scores output array, at least size() long
+     */
+    public void score(double[] weights, double[] scores) {
+        final double w0 = weights[0];
+        final double w1 = weights[1];
+        final double w2 = weights[2];
+        final double w3 = weights[3];
+        final int n = books.length;
+        for (int i = 0; i < n; i++) {
+            scores[i] = (LEVEL_SCORE[borrowerLevel(borrowerCounts[i])] * w0) +
+                        (LEVEL_SCORE[conditionLevels[i]] * w1) +
+                        (LEVEL_SCORE[relevanceLevels[i]] * w2) +
+                        (LEVEL_SCORE[durationLevel(loanDurations[i])] * w3);
+        }
+    }
+
+    /**
+     * Score every book
+     * @param weights normalized weights
+     * @return scores indexed like the books
+     */
+    public double[] score(double[] weights) {
+        double[] scores = new double[books.length];
+        score(weights, scores);
+        return scores;
+    }
+
+    /**
+     * Score a single book; gives exactly the same value as score(double[], double[])
+     * @param book book to score
+     * @param weights normalized weights [borrowerCount, bookCondition, contentRelevance, loanDuration]
+     * @return SPK score
+     */
+    public static double score(Book book, double[] weights) {
+        return score(book.getBorrowerCount(), book.getConditionCode().getLevel(),
+                     book.getRelevanceCode().getLevel(), book.getLoanDuration(), weights);
+    }
+
+    /**
+     * Score one row from its raw criteria, e.g. while streaming a ResultSet
+     * @param borrowerCount Jumlah Peminjam
+     * @param conditionLevel Kondisi Fisik Buku level (1-5, 0 when unknown)
+     * @param relevanceLevel Relevansi Isi Buku level (1-5, 0 when unknown)
+     * @param loanDuration Durasi Peminjaman in days
+     * @param weights normalized weights [borrowerCount, bookCondition, contentRelevance, loanDuration]
+     * @return SPK score
+     */
+    public static double score(int borrowerCount, int conditionLevel, int relevanceLevel,
+                               int loanDuration, double[] weights) {
+        return (LEVEL_SCORE[borrowerLevel(borrowerCount)] * weights[0]) +
+               (LEVEL_SCORE[conditionLevel] * weights[1]) +
+               (LEVEL_SCORE[relevanceLevel] * weights[2]) +
+               (LEVEL_SCORE[durationLevel(loanDuration)] * weights[3]);
+    }
+
+    /**
+     * Order row indexes by score, highest first. Ties keep their original order,
+     * matching a stable sort of the book list.
+     * @param scores scores produced by score()
+     * @return row indexes in ranking order
+     */
+    public static int[] rankOrder(double[] scores) {
+        int n = scores.length;
+        int[] order = new int[n];
+        for (int i = 0; i < n; i++) {
+            order[i] = i;
+        }
+        int[] buffer = new int[n];
+        // Bottom-up merge sort on the index array (stable, no boxing)
+        for (int width = 1; width < n; width <<= 1) {
+            for (int lo = 0; lo < n - width; lo += width << 1) {
+                int mid = lo + width;
+                int hi = Math.min(lo + (width << 1), n);
+                int left = lo, right = mid, out = lo;
+                while (left < mid && right < hi) {
+                    buffer[out++] = scores[order[right]] > scores[order[left]] ? order[right++] : order[left++];
+                }
+                while (left < mid) buffer[out++] = order[left++];
+                while (right < hi) buffer[out++] = order[right++];
+                System.arraycopy(buffer, lo, order, lo, hi - lo);
+            }
+        }
+        return order;
+    }
+
+    // Normalized score of a level (0-5)
+    static double levelScore(int level) {
+        return LEVEL_SCORE[level];
+    }
+
+    // Jumlah Peminjam: 1-20 -> 1 ... 81-100 -> 5, otherwise 0
+    static int borrowerLevel(int borrowerCount) {
+        if (borrowerCount < 1 || borrowerCount > 100) return 0;
+        return (borrowerCount + 19) / 20;
+    }
+
+    // Durasi Peminjaman: shorter is better, <3 -> 5 ... >14 -> 1
+    static int durationLevel(int loanDuration) {
+        if (loanDuration < 3) return 5;
+        if (loanDuration <= 6) return 4;
+        if (loanDuration <= 10) return 3;
+        if (loanDuration <= 14) return 2;
+        return 1;
+    }
+}
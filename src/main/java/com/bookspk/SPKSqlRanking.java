@@ -0,0 +1,120 @@
+package com.bookspk;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * SAW ranking computed inside MySQL, for BookDAO.getTopBooksSPK when the
+ * catalog is not in memory. One generated query scores every row on the
+ * server, sorts and returns only the top K, so the table never crosses the
+ * wire.
+ * <p>
+ * The CASE expressions are generated from the Java rules (SPKScoringEngine
+ * levels and SPKDataConverter codes), not written out by hand, so the two
+ * cannot drift apart. Level scores are emitted as DOUBLE literals and the four
+ * terms are added in the same order as SPKScoringEngine.score, so the database
+ * produces bit-identical scores and the same tie order (catalog order).
+ */
+public final class SPKSqlRanking {
+    // Integer rules are scanned over these ranges; both are constant outside them
+    static final int MAX_BORROWER_COUNT = 100;
+    static final int MAX_LOAN_DURATION = 30;
+
+    private static final String SCORE_EXPRESSION =
+            "(" + rangeCase("borrower_count", SPKScoringEngine::borrowerLevel, 1, MAX_BORROWER_COUNT) + " * ?)"
+            + " + (" + conditionCase() + " * ?)"
+            + " + (" + relevanceCase() + " * ?)"
+            + " + (" + rangeCase("loan_duration", SPKScoringEngine::durationLevel, 0, MAX_LOAN_DURATION) + " * ?)";
+
+    private static final String TOP_SQL = "SELECT " + BookProjection.LIST_VIEW.getSelectList()
+            + ", " + SCORE_EXPRESSION + " AS spk_score FROM books"
+            + " ORDER BY spk_score DESC, created_at DESC, id DESC LIMIT ?";
+
+    private SPKSqlRanking() {
+    }
+
+    /**
+     * @return the generated ranking query; bind the four normalized weights, then the limit
+     */
+    public static String getSql() {
+        return TOP_SQL;
+    }
+
+    /**
+     * Top books scored by the database
+     * @param limit number of top books to return
+     * @param weights raw weights [borrowerCount, bookCondition, contentRelevance, loanDuration]
+     * @return best books first, with list view columns and their score
+     * @throws SQLException if the query fails
+     */
+    public static List<BookDAO.BookSPKResult> top(int limit, double[] weights) throws SQLException {
+        List<BookDAO.BookSPKResult> results = new ArrayList<>();
+        if (limit <= 0) {
+            return results;
+        }
+        double[] normalized = SPKScoringEngine.normalizeWeights(weights);
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(TOP_SQL)) {
+            for (int i = 0; i < 4; i++) {
+                pstmt.setDouble(i + 1, normalized[i]);
+            }
+            pstmt.setInt(5, limit);
+
+            try (ResultSet rs = pstmt.executeQuery()) {
+                RowMapper<Book> mapper = new BookRowMapper(rs);
+                int score = rs.findColumn("spk_score");
+                while (rs.next()) {
+                    results.add(new BookDAO.BookSPKResult(mapper.mapRow(rs), rs.getDouble(score)));
+                }
+            }
+        }
+        return results;
+    }
+
+    // CASE over an integer column, one branch per run of equal levels in [from, to].
+    // The CASE builders are package-private so SPKSqlRankingTest can check them against the Java rules.
+    static String rangeCase(String column, IntUnaryOperator level, int from, int to) {
+        StringBuilder sql = new StringBuilder("CASE WHEN ").append(column).append(" < ").append(from)
+                .append(" THEN ").append(literal(level.applyAsInt(from - 1)));
+        int runLevel = level.applyAsInt(from);
+        for (int value = from; value <= to; value++) {
+            if (value == to || level.applyAsInt(value + 1) != runLevel) {
+                sql.append(" WHEN ").append(column).append(" <= ").append(value)
+                   .append(" THEN ").append(literal(runLevel));
+                runLevel = level.applyAsInt(value + 1);
+            }
+        }
+        return sql.append(" ELSE ").append(literal(level.applyAsInt(to + 1))).append(" END").toString();
+    }
+
+    static String conditionCase() {
+        StringBuilder sql = new StringBuilder("CASE book_condition");
+        for (SPKDataConverter.ConditionCode code : SPKDataConverter.ConditionCode.values()) {
+            if (code.getLabel() != null) {
+                sql.append(" WHEN '").append(code.getLabel()).append("' THEN ").append(literal(code.getLevel()));
+            }
+        }
+        return sql.append(" ELSE ").append(literal(SPKDataConverter.ConditionCode.UNKNOWN.getLevel())).append(" END").toString();
+    }
+
+    static String relevanceCase() {
+        StringBuilder sql = new StringBuilder("CASE content_relevance");
+        for (SPKDataConverter.RelevanceCode code : SPKDataConverter.RelevanceCode.values()) {
+            if (code.getLabel() != null) {
+                sql.append(" WHEN '").append(code.getLabel()).append("' THEN ").append(literal(code.getLevel()));
+            }
+        }
+        return sql.append(" ELSE ").append(literal(SPKDataConverter.RelevanceCode.UNKNOWN.getLevel())).append(" END").toString();
+    }
+
+    // DOUBLE literal for a level's score; a plain 0.2 would be a DECIMAL in MySQL
+    private static String literal(int level) {
+        return SPKScoringEngine.levelScore(level) + "e0";
+    }
+}
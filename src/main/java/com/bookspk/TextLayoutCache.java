@@ -0,0 +1,292 @@
+package com.bookspk;
+
+import org.apache.pdfbox.pdmodel.font.PDFont;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Memoized text measurement and line wrapping for PDF layout (the card export
+ * in PDFExportUtil). Catalog exports measure the same text over and over:
+ * categories, conditions, publishers and the words of titles repeat across rows.
+ * <p>
+ * Two bounded LRU tables are kept: string widths per (font, string), in glyph
+ * units so that one entry serves every font size, and wrapped lines per (font,
+ * size, width, string). A line is wrapped by adding up the widths of its words,
+ * so new titles made of known words are wrapped without measuring anything.
+ * The standard fonts have integer glyph widths, so these sums are exact and the
+ * lines are the same as measuring every candidate line with getStringWidth.
+ * <p>
+ * Misses are measured with PDFont.getStringWidth. The standard 14 fonts keep
+ * their width caches in concurrent maps, so parallel layout workers can share
+ * this cache. Wrapped lines handed out are shared and must not be modified.
+ */
+public class TextLayoutCache {
+    // Entries per table, overridable with -Dbookspk.pdf.layoutCacheSize
+    private static final int DEFAULT_MAX_ENTRIES = Integer.getInteger("bookspk.pdf.layoutCacheSize", 20000);
+
+    private static final TextLayoutCache INSTANCE = new TextLayoutCache(DEFAULT_MAX_ENTRIES);
+
+    private final int maxEntries;
+    // Least recently used first; each guarded by itself
+    private final LinkedHashMap<WidthKey, Float> widths;
+    private final LinkedHashMap<WrapKey, String[]> wraps;
+
+    // Statistics
+    private final AtomicLong measureHitCount = new AtomicLong();
+    private final AtomicLong measureMissCount = new AtomicLong();
+    private final AtomicLong wrapHitCount = new AtomicLong();
+    private final AtomicLong wrapMissCount = new AtomicLong();
+    private final AtomicLong evictionCount = new AtomicLong();
+
+    /**
+     * @param maxEntries entries kept in each table (widths, wrapped lines)
+     */
+    public TextLayoutCache(int maxEntries) {
+        if (maxEntries < 1) {
+            throw new IllegalArgumentException("Invalid layout cache size: " + maxEntries);
+        }
+        this.maxEntries = maxEntries;
+        this.widths = new LinkedHashMap<WidthKey, Float>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<WidthKey, Float> eldest) {
+                return evict(size());
+            }
+        };
+        this.wraps = new LinkedHashMap<WrapKey, String[]>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<WrapKey, String[]> eldest) {
+                return evict(size());
+            }
+        };
+    }
+
+    /**
+     * Get the layout cache shared by the PDF exports
+     * @return TextLayoutCache instance
+     */
+    public static TextLayoutCache getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Width of a string in glyph units (1/1000 of the font size), as
+     * PDFont.getStringWidth returns it
+     * @param font font the string is drawn with
+     * @param text string to measure
+     * @return width in glyph units
+     * @throws IOException if the font cannot measure the string
+     */
+    public float stringWidth(PDFont font, String text) throws IOException {
+        WidthKey key = new WidthKey(font, text);
+        Float width;
+        synchronized (widths) {
+            width = widths.get(key);
+        }
+        if (width != null) {
+            measureHitCount.incrementAndGet();
+            return width;
+        }
+        measureMissCount.incrementAndGet();
+        width = font.getStringWidth(text);
+        synchronized (widths) {
+            widths.put(key, width);
+        }
+        return width;
+    }
+
+    /**
+     * Width of a string in points
+     * @param font font the string is drawn with
+     * @param fontSize font size
+     * @param text string to measure
+     * @return width in points
+     * @throws IOException if the font cannot measure the string
+     */
+    public float stringWidth(PDFont font, float fontSize, String text) throws IOException {
+        return stringWidth(font, text) / 1000 * fontSize;
+    }
+
+    /**
+     * Wrap text into lines no wider than maxWidth, breaking at spaces. A word
+     * wider than maxWidth gets a line of its own.
+     * @param font font the text is drawn with
+     * @param fontSize font size
+     * @param maxWidth maximum line width in points
+     * @param text text to wrap
+     * @return lines, shared and not to be modified; a single empty line for null or empty text
+     * @throws IOException if the font cannot measure the text
+     */
+    public String[] wrap(PDFont font, float fontSize, float maxWidth, String text) throws IOException {
+        if (text == null || text.isEmpty()) return new String[] {""};
+        WrapKey key = new WrapKey(font, fontSize, maxWidth, text);
+        String[] lines;
+        synchronized (wraps) {
+            lines = wraps.get(key);
+        }
+        if (lines != null) {
+            wrapHitCount.incrementAndGet();
+            return lines;
+        }
+        wrapMissCount.incrementAndGet();
+        lines = wrapText(font, fontSize, maxWidth, text);
+        synchronized (wraps) {
+            wraps.put(key, lines);
+        }
+        return lines;
+    }
+
+    private String[] wrapText(PDFont font, float fontSize, float maxWidth, String text) throws IOException {
+        String[] words = text.split(" ");
+        float spaceWidth = stringWidth(font, " ");
+        StringBuilder line = new StringBuilder();
+        float lineWidth = 0; // glyph units
+        List<String> lines = new ArrayList<>();
+        for (String word : words) {
+            float wordWidth = stringWidth(font, word);
+            float testWidth = line.length() == 0 ? wordWidth : lineWidth + spaceWidth + wordWidth;
+            if (testWidth / 1000 * fontSize > maxWidth) {
+                if (line.length() > 0) lines.add(line.toString());
+                line = new StringBuilder(word);
+                lineWidth = wordWidth;
+            } else {
+                if (line.length() > 0) line.append(" ");
+                line.append(word);
+                lineWidth = testWidth;
+            }
+        }
+        if (line.length() > 0) lines.add(line.toString());
+        return lines.toArray(new String[0]);
+    }
+
+    /**
+     * Drop every cached width and wrapped line; statistics are kept
+     */
+    public void clear() {
+        synchronized (widths) {
+            widths.clear();
+        }
+        synchronized (wraps) {
+            wraps.clear();
+        }
+    }
+
+    private boolean evict(int size) {
+        if (size > maxEntries) {
+            evictionCount.incrementAndGet();
+            return true;
+        }
+        return false;
+    }
+
+    // Statistics
+
+    public long getMeasureHitCount() {
+        return measureHitCount.get();
+    }
+
+    public long getMeasureMissCount() {
+        return measureMissCount.get();
+    }
+
+    public long getWrapHitCount() {
+        return wrapHitCount.get();
+    }
+
+    public long getWrapMissCount() {
+        return wrapMissCount.get();
+    }
+
+    public long getEvictionCount() {
+        return evictionCount.get();
+    }
+
+    public double getMeasureHitRate() {
+        long hits = measureHitCount.get();
+        long total = hits + measureMissCount.get();
+        return total == 0 ? 0.0 : (double) hits / total;
+    }
+
+    public double getWrapHitRate() {
+        long hits = wrapHitCount.get();
+        long total = hits + wrapMissCount.get();
+        return total == 0 ? 0.0 : (double) hits / total;
+    }
+
+    /**
+     * @return number of cached widths and wrapped lines
+     */
+    public int size() {
+        int size;
+        synchronized (widths) {
+            size = widths.size();
+        }
+        synchronized (wraps) {
+            return size + wraps.size();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.format("TextLayoutCache{entries=%d, measureHits=%d, measureMisses=%d, measureHitRate=%.1f%%, " +
+                        "wrapHits=%d, wrapMisses=%d, wrapHitRate=%.1f%%, evictions=%d}",
+                size(), getMeasureHitCount(), getMeasureMissCount(), getMeasureHitRate() * 100,
+                getWrapHitCount(), getWrapMissCount(), getWrapHitRate() * 100, getEvictionCount());
+    }
+
+    private static final class WidthKey {
+        private final PDFont font;
+        private final String text;
+
+        WidthKey(PDFont font, String text) {
+            this.font = font;
+            this.text = text;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof WidthKey)) return false;
+            WidthKey other = (WidthKey) o;
+            return font == other.font && text.equals(other.text);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * System.identityHashCode(font) + text.hashCode();
+        }
+    }
+
+    private static final class WrapKey {
+        private final PDFont font;
+        private final float fontSize;
+        private final float maxWidth;
+        private final String text;
+
+        WrapKey(PDFont font, float fontSize, float maxWidth, String text) {
+            this.font = font;
+            this.fontSize = fontSize;
+            this.maxWidth = maxWidth;
+            this.text = text;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof WrapKey)) return false;
+            WrapKey other = (WrapKey) o;
+            return font == other.font && fontSize == other.fontSize && maxWidth == other.maxWidth
+                    && text.equals(other.text);
+        }
+
+        @Override
+        public int hashCode() {
+            int hash = System.identityHashCode(font);
+            hash = 31 * hash + Float.floatToIntBits(fontSize);
+            hash = 31 * hash + Float.floatToIntBits(maxWidth);
+            return 31 * hash + text.hashCode();
+        }
+    }
+}
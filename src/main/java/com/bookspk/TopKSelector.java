@@ -0,0 +1,252 @@
+package com.bookspk;
+
+import java.util.Arrays;
+
+/**
+ * Bounded top-K selection over a score array.
+ * Keeps a min-heap of at most k row indexes, so picking the best k out of n
+ * costs O(n log k) instead of sorting the whole list.
+ * Ties are broken by row index (lower index ranks first), which matches a
+ * stable descending sort of the original list.
+ */
+public final class TopKSelector {
+
+    private TopKSelector() {}
+
+    /**
+     * Select the indexes of the k highest scores
+     * @param scores scores indexed by row
+     * @param k number of rows to keep
+     * @return row indexes ordered by score, highest first
+     */
+    public static int[] select(double[] scores, int k) {
+        return select(scores, scores.length, k);
+    }
+
+    /**
+     * Select the indexes of the k highest scores among the first n entries
+     * @param scores scores indexed by row
+     * @param n number of valid entries in scores
+     * @param k number of rows to keep
+     * @return row indexes ordered by score, highest first
+     */
+    public static int[] select(double[] scores, int n, int k) {
+        return select(scores, 0, n, k);
+    }
+
+    /**
+     * Select the indexes of the k highest scores in the range [from, to)
+     * @param scores scores indexed by row
+     * @param from first row (inclusive)
+     * @param to last row (exclusive)
+     * @param k number of rows to keep
+     * @return row indexes ordered by score, highest first
+     */
+    public static int[] select(double[] scores, int from, int to, int k) {
+        k = Math.max(0, Math.min(k, to - from));
+        int[] heap = new int[k];
+        int size = 0;
+
+        for (int i = from; i < to; i++) {
+            if (size < k) {
+                heap[size] = i;
+                siftUp(heap, size, scores);
+                size++;
+            } else if (k > 0 && isWorse(heap[0], i, scores)) {
+                heap[0] = i;
+                siftDown(heap, 0, size, scores);
+            }
+        }
+
+        // Pop the worst element to the back until the heap is empty
+        int[] ordered = new int[size];
+        for (int last = size - 1; last >= 0; last--) {
+            ordered[last] = heap[0];
+            heap[0] = heap[last];
+            siftDown(heap, 0, last, scores);
+        }
+        return ordered;
+    }
+
+    /**
+     * Merge two ranked index lists (as returned by select) and keep the best k
+     * @param a ranked row indexes
+     * @param b ranked row indexes, disjoint from a
+     * @param scores scores indexed by row
+     * @param k number of rows to keep
+     * @return merged row indexes ordered by score, highest first
+     */
+    public static int[] merge(int[] a, int[] b, double[] scores, int k) {
+        int[] merged = new int[Math.min(k, a.length + b.length)];
+        int i = 0, j = 0;
+        for (int out = 0; out < merged.length; out++) {
+            if (j >= b.length || (i < a.length && isWorse(b[j], a[i], scores))) {
+                merged[out] = a[i++];
+            } else {
+                merged[out] = b[j++];
+            }
+        }
+        return merged;
+    }
+
+    /**
+     * Top-k over values that arrive one at a time, e.g. rows of a ResultSet.
+     * Only k ids and scores are kept; ties rank the earlier offer first, like select().
+     */
+    public static final class Running {
+        private final int k;
+        private final int[] ids;
+        private final double[] scores;
+        private final long[] arrivals;
+        // Heap of slot numbers, worst entry at the root
+        private final int[] heap;
+        private int size = 0;
+        private long offered = 0;
+
+        /**
+         * @param k number of entries to keep
+         */
+        public Running(int k) {
+            this.k = Math.max(0, k);
+            this.ids = new int[this.k];
+            this.scores = new double[this.k];
+            this.arrivals = new long[this.k];
+            this.heap = new int[this.k];
+        }
+
+        /**
+         * @param id identifier of the entry (e.g. book id)
+         * @param score score of the entry
+         */
+        public void offer(int id, double score) {
+            long arrival = offered++;
+            if (size < k) {
+                ids[size] = id;
+                scores[size] = score;
+                arrivals[size] = arrival;
+                heap[size] = size;
+                siftUp(size);
+                size++;
+            } else if (k > 0 && scores[heap[0]] < score) {
+                // An equal score arrived later, so it never displaces the root
+                int slot = heap[0];
+                ids[slot] = id;
+                scores[slot] = score;
+                arrivals[slot] = arrival;
+                siftDown(0, size);
+            }
+        }
+
+        /**
+         * @return number of entries offered so far
+         */
+        public long getOfferedCount() {
+            return offered;
+        }
+
+        /**
+         * @return kept ids ordered by score, highest first
+         */
+        public int[] ids() {
+            int[] order = order();
+            int[] result = new int[order.length];
+            for (int i = 0; i < order.length; i++) {
+                result[i] = ids[order[i]];
+            }
+            return result;
+        }
+
+        /**
+         * @return kept scores, in the same order as ids()
+         */
+        public double[] scores() {
+            int[] order = order();
+            double[] result = new double[order.length];
+            for (int i = 0; i < order.length; i++) {
+                result[i] = scores[order[i]];
+            }
+            return result;
+        }
+
+        // Slots best first, without disturbing the heap
+        private int[] order() {
+            int[] copy = Arrays.copyOf(heap, size);
+            int[] ordered = new int[size];
+            for (int last = size - 1; last >= 0; last--) {
+                ordered[last] = copy[0];
+                copy[0] = copy[last];
+                siftDown(copy, 0, last);
+            }
+            return ordered;
+        }
+
+        private boolean worse(int a, int b) {
+            return scores[a] < scores[b] || (scores[a] == scores[b] && arrivals[a] > arrivals[b]);
+        }
+
+        private void siftUp(int pos) {
+            int item = heap[pos];
+            while (pos > 0) {
+                int parent = (pos - 1) >>> 1;
+                if (!worse(item, heap[parent])) break;
+                heap[pos] = heap[parent];
+                pos = parent;
+            }
+            heap[pos] = item;
+        }
+
+        private void siftDown(int pos, int size) {
+            siftDown(heap, pos, size);
+        }
+
+        private void siftDown(int[] heap, int pos, int size) {
+            int item = heap[pos];
+            int half = size >>> 1;
+            while (pos < half) {
+                int child = (pos << 1) + 1;
+                int right = child + 1;
+                if (right < size && worse(heap[right], heap[child])) {
+                    child = right;
+                }
+                if (!worse(heap[child], item)) break;
+                heap[pos] = heap[child];
+                pos = child;
+            }
+            heap[pos] = item;
+        }
+    }
+
+    /**
+     * @return true if row a ranks below row b
+     */
+    static boolean isWorse(int a, int b, double[] scores) {
+        return scores[a] < scores[b] || (scores[a] == scores[b] && a > b);
+    }
+
+    private static void siftUp(int[] heap, int pos, double[] scores) {
+        int item = heap[pos];
+        while (pos > 0) {
+            int parent = (pos - 1) >>> 1;
+            if (!isWorse(item, heap[parent], scores)) break;
+            heap[pos] = heap[parent];
+            pos = parent;
+        }
+        heap[pos] = item;
+    }
+
+    private static void siftDown(int[] heap, int pos, int size, double[] scores) {
+        int item = heap[pos];
+        int half = size >>> 1;
+        while (pos < half) {
+            int child = (pos << 1) + 1;
+            int right = child + 1;
+            if (right < size && isWorse(heap[right], heap[child], scores)) {
+                child = right;
+            }
+            if (!isWorse(heap[child], item, scores)) break;
+            heap[pos] = heap[child];
+            pos = child;
+        }
+        heap[pos] = item;
+    }
+}
@@ -27,12 +27,7 @@ public class UserDAO {
 
             try (ResultSet rs = pstmt.executeQuery()) {
                 if (rs.next()) {
-                    return new User(
-                            rs.getInt("id"),
-                            rs.getString("username"),
-                            rs.getString("password"),
-                            rs.getString("email"),
-                            rs.getTimestamp("created_at"));
+                    return userMapper(rs).mapRow(rs);
                 }
             }
         } catch (SQLException e) {
@@ -101,18 +96,10 @@ public class UserDAO {
         String sql = "SELECT * FROM users ORDER BY created_at DESC";
 
         try (Connection conn = DatabaseConnection.getConnection();
-                Statement stmt = conn.createStatement();
-                ResultSet rs = stmt.executeQuery(sql)) {
-
-            while (rs.next()) {
-                User user = new User(
-                        rs.getInt("id"),
-                        rs.getString("username"),
-                        rs.getString("password"),
-                        rs.getString("email"),
-                        rs.getTimestamp("created_at"));
-                users.add(user);
-            }
+                PreparedStatement pstmt = conn.prepareStatement(sql);
+                ResultSet rs = pstmt.executeQuery()) {
+
+            users.addAll(userMapper(rs).mapAll(rs));
         } catch (SQLException e) {
             System.err.println("Error getting users: " + e.getMessage());
         }
@@ -135,12 +122,7 @@ public class UserDAO {
 
             try (ResultSet rs = pstmt.executeQuery()) {
                 if (rs.next()) {
-                    return new User(
-                            rs.getInt("id"),
-                            rs.getString("username"),
-                            rs.getString("password"),
-                            rs.getString("email"),
-                            rs.getTimestamp("created_at"));
+                    return userMapper(rs).mapRow(rs);
                 }
             }
         } catch (SQLException e) {
@@ -251,4 +233,25 @@ public class UserDAO {
         }
         return false;
     }
+
+    /**
+     * Row mapper for SELECT * on the users table
+     * 
+     * @param rs result set to read
+     * @return mapper bound to the column positions of rs
+     * @throws SQLException if a column is missing
+     */
+    private static RowMapper<User> userMapper(ResultSet rs) throws SQLException {
+        int id = rs.findColumn("id");
+        int username = rs.findColumn("username");
+        int password = rs.findColumn("password");
+        int email = rs.findColumn("email");
+        int createdAt = rs.findColumn("created_at");
+        return row -> new User(
+                row.getInt(id),
+                row.getString(username),
+                row.getString(password),
+                row.getString(email),
+                row.getTimestamp(createdAt));
+    }
 }
\ No newline at end of file
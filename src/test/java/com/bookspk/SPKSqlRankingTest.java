@@ -0,0 +1,170 @@
+package com.bookspk;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.IntUnaryOperator;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that the CASE expressions SPKSqlRanking sends to MySQL give the same
+ * level scores as SPKScoringEngine and SPKDataConverter, and that the score
+ * they add up to is bit-identical. The SQL is evaluated here, so no database
+ * is needed.
+ */
+class SPKSqlRankingTest {
+    private static final Pattern RANGE_BRANCH = Pattern.compile("WHEN \\w+ (<=?) (-?\\d+) THEN (\\S+)");
+    private static final Pattern LABEL_BRANCH = Pattern.compile("WHEN '([^']*)' THEN (\\S+)");
+    private static final Pattern ELSE_BRANCH = Pattern.compile("ELSE (\\S+) END");
+
+    @Test
+    void borrowerCaseMatchesBorrowerLevel() {
+        RangeCase sql = RangeCase.parse(SPKSqlRanking.rangeCase("borrower_count",
+                SPKScoringEngine::borrowerLevel, 1, SPKSqlRanking.MAX_BORROWER_COUNT));
+        assertRangeMatches(sql, SPKScoringEngine::borrowerLevel, SPKSqlRanking.MAX_BORROWER_COUNT);
+    }
+
+    @Test
+    void durationCaseMatchesDurationLevel() {
+        RangeCase sql = RangeCase.parse(SPKSqlRanking.rangeCase("loan_duration",
+                SPKScoringEngine::durationLevel, 0, SPKSqlRanking.MAX_LOAN_DURATION));
+        assertRangeMatches(sql, SPKScoringEngine::durationLevel, SPKSqlRanking.MAX_LOAN_DURATION);
+    }
+
+    @Test
+    void conditionCaseMatchesConditionCodes() {
+        LabelCase sql = LabelCase.parse(SPKSqlRanking.conditionCase());
+        for (SPKDataConverter.ConditionCode code : SPKDataConverter.ConditionCode.values()) {
+            if (code.getLabel() != null) {
+                assertEquals(SPKScoringEngine.levelScore(code.getLevel()), sql.eval(code.getLabel()), code.name());
+            }
+        }
+        assertEquals(SPKScoringEngine.levelScore(SPKDataConverter.ConditionCode.UNKNOWN.getLevel()),
+                sql.eval("Tidak Diketahui"));
+    }
+
+    @Test
+    void relevanceCaseMatchesRelevanceCodes() {
+        LabelCase sql = LabelCase.parse(SPKSqlRanking.relevanceCase());
+        for (SPKDataConverter.RelevanceCode code : SPKDataConverter.RelevanceCode.values()) {
+            if (code.getLabel() != null) {
+                assertEquals(SPKScoringEngine.levelScore(code.getLevel()), sql.eval(code.getLabel()), code.name());
+            }
+        }
+        assertEquals(SPKScoringEngine.levelScore(SPKDataConverter.RelevanceCode.UNKNOWN.getLevel()),
+                sql.eval("Tidak Diketahui"));
+    }
+
+    @Test
+    void queryScoresMatchEngineScores() {
+        String borrower = SPKSqlRanking.rangeCase("borrower_count",
+                SPKScoringEngine::borrowerLevel, 1, SPKSqlRanking.MAX_BORROWER_COUNT);
+        String duration = SPKSqlRanking.rangeCase("loan_duration",
+                SPKScoringEngine::durationLevel, 0, SPKSqlRanking.MAX_LOAN_DURATION);
+        String condition = SPKSqlRanking.conditionCase();
+        String relevance = SPKSqlRanking.relevanceCase();
+        // The query is built from these expressions, added in this order
+        assertTrue(SPKSqlRanking.getSql().contains("(" + borrower + " * ?) + (" + condition + " * ?) + ("
+                + relevance + " * ?) + (" + duration + " * ?)"));
+
+        RangeCase borrowerSql = RangeCase.parse(borrower);
+        RangeCase durationSql = RangeCase.parse(duration);
+        LabelCase conditionSql = LabelCase.parse(condition);
+        LabelCase relevanceSql = LabelCase.parse(relevance);
+        SPKDataConverter.ConditionCode[] conditions = SPKDataConverter.ConditionCode.values();
+        SPKDataConverter.RelevanceCode[] relevances = SPKDataConverter.RelevanceCode.values();
+
+        Random random = new Random(42);
+        for (int i = 0; i < 10000; i++) {
+            double[] weights = SPKScoringEngine.normalizeWeights(new double[] {
+                    random.nextInt(100) + 1, random.nextInt(100) + 1, random.nextInt(100) + 1, random.nextInt(100) + 1});
+            int borrowerCount = random.nextInt(130) - 10;
+            int loanDuration = random.nextInt(45) - 5;
+            SPKDataConverter.ConditionCode conditionCode = conditions[random.nextInt(conditions.length)];
+            SPKDataConverter.RelevanceCode relevanceCode = relevances[random.nextInt(relevances.length)];
+
+            // Left to right, as MySQL evaluates the query
+            double database = (borrowerSql.eval(borrowerCount) * weights[0])
+                    + (conditionSql.eval(conditionCode.getLabel()) * weights[1])
+                    + (relevanceSql.eval(relevanceCode.getLabel()) * weights[2])
+                    + (durationSql.eval(loanDuration) * weights[3]);
+            double java = SPKScoringEngine.score(borrowerCount, conditionCode.getLevel(),
+                    relevanceCode.getLevel(), loanDuration, weights);
+            assertEquals(Double.doubleToLongBits(java), Double.doubleToLongBits(database),
+                    "borrowers " + borrowerCount + ", " + conditionCode + ", " + relevanceCode + ", duration " + loanDuration);
+        }
+    }
+
+    private static void assertRangeMatches(RangeCase sql, IntUnaryOperator level, int max) {
+        for (int value = -20; value <= max + 50; value++) {
+            assertEquals(SPKScoringEngine.levelScore(level.applyAsInt(value)), sql.eval(value), "value " + value);
+        }
+    }
+
+    // CASE WHEN column < n THEN x WHEN column <= m THEN y ... ELSE z END, evaluated like MySQL
+    private static final class RangeCase {
+        private final List<String> operators = new ArrayList<>();
+        private final List<Integer> bounds = new ArrayList<>();
+        private final List<Double> scores = new ArrayList<>();
+        private double otherwise;
+
+        static RangeCase parse(String sql) {
+            RangeCase parsed = new RangeCase();
+            Matcher branch = RANGE_BRANCH.matcher(sql);
+            while (branch.find()) {
+                parsed.operators.add(branch.group(1));
+                parsed.bounds.add(Integer.parseInt(branch.group(2)));
+                parsed.scores.add(Double.parseDouble(branch.group(3)));
+            }
+            parsed.otherwise = otherwise(sql);
+            assertTrue(!parsed.bounds.isEmpty(), sql);
+            return parsed;
+        }
+
+        double eval(int value) {
+            for (int i = 0; i < bounds.size(); i++) {
+                int bound = bounds.get(i);
+                if ("<".equals(operators.get(i)) ? value < bound : value <= bound) {
+                    return scores.get(i);
+                }
+            }
+            return otherwise;
+        }
+    }
+
+    // CASE column WHEN 'label' THEN x ... ELSE z END, evaluated like MySQL
+    private static final class LabelCase {
+        private final Map<String, Double> scores = new LinkedHashMap<>();
+        private double otherwise;
+
+        static LabelCase parse(String sql) {
+            LabelCase parsed = new LabelCase();
+            Matcher branch = LABEL_BRANCH.matcher(sql);
+            while (branch.find()) {
+                parsed.scores.put(branch.group(1), Double.parseDouble(branch.group(2)));
+            }
+            parsed.otherwise = otherwise(sql);
+            assertTrue(!parsed.scores.isEmpty(), sql);
+            return parsed;
+        }
+
+        double eval(String label) {
+            Double score = label == null ? null : scores.get(label);
+            return score != null ? score : otherwise;
+        }
+    }
+
+    private static double otherwise(String sql) {
+        Matcher match = ELSE_BRANCH.matcher(sql);
+        assertTrue(match.find(), sql);
+        return Double.parseDouble(match.group(1));
+    }
+}